@@ -21,7 +21,7 @@ version = "0.0.1-SNAPSHOT"
 
 java {
     toolchain {
-        languageVersion = JavaLanguageVersion.of(17)
+        languageVersion = JavaLanguageVersion.of(21)
     }
 }
 
@@ -31,6 +31,25 @@ configurations {
     }
 }
 
+/**
+ * JMH benchmarks live in src/jmh, run them with ./gradlew jmh
+ */
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+configurations {
+    named("jmhImplementation") {
+        extendsFrom(configurations.implementation.get())
+    }
+    named("jmhRuntimeOnly") {
+        extendsFrom(configurations.runtimeOnly.get())
+    }
+}
+
 repositories {
     gradlePluginPortal()
     mavenCentral()
@@ -41,9 +60,13 @@ dependencies {
      * Spring Boot Starters
      */
     implementation("org.springframework.boot:spring-boot-starter-web")
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
+    implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-cache")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
     implementation("org.springframework.boot:spring-boot-starter-batch")
     implementation("org.springframework.boot:spring-boot-starter-data-rest")
     implementation("org.springframework.session:spring-session-jdbc")
@@ -52,6 +75,7 @@ dependencies {
      * Database
      */
     implementation("org.postgresql:postgresql:42.7.3")
+    implementation("org.postgresql:r2dbc-postgresql")
     implementation("org.liquibase:liquibase-core")
 
     /**
@@ -92,8 +116,15 @@ dependencies {
         exclude(group = "org.mockito", module = "mockito-core")
     }
     testImplementation("org.mockito:mockito-junit-jupiter:5.5.0")
+    testImplementation("io.projectreactor:reactor-test")
     testImplementation("org.testcontainers:junit-jupiter:1.19.0")
     testImplementation("org.testcontainers:postgresql:1.19.0")
+
+    /**
+     * Benchmarks
+     */
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 
@@ -103,4 +134,49 @@ tasks.bootJar {
 
 tasks.withType<Test> {
     useJUnitPlatform()
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("load")
+    }
+}
+
+/**
+ * Load harness, needs Docker. Options are passed as -Pload.*, see WalletControllerLoadTest
+ */
+tasks.register<Test>("loadTest") {
+    group = "verification"
+    description = "Runs the load harness against a Testcontainers Postgres"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("load")
+    }
+    systemProperties(project.properties.filterKeys { it.startsWith("load.") })
+    testLogging {
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+}
+
+/**
+ * Results go to build/reports/jmh/results.json, extra JMH options can be passed
+ * with -PjmhArgs, e.g. ./gradlew jmh -PjmhArgs="WalletRequestBenchmark -f 2"
+ */
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks"
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass = "org.openjdk.jmh.Main"
+    args("-rf", "json", "-rff", results.get().asFile.path)
+    providers.gradleProperty("jmhArgs").orNull?.let { args(it.split(" ").filter(String::isNotBlank)) }
+    doFirst {
+        results.get().asFile.parentFile.mkdirs()
+    }
+}
+
+tasks.check {
+    dependsOn(tasks.named("compileJmhJava"))
 }
\ No newline at end of file
@@ -0,0 +1,3 @@
+#!/bin/sh
+# Lets the postgres-replica service stream WAL from this database
+echo "host replication all all md5" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,53 @@
+package org.example.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.example.controller.handler.ErrorHandler;
+import org.example.dto.ErrorResponseDto;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.metrics.WalletMetrics;
+import org.example.util.WalletServiceValidator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Error response building. Logging goes to a root logger without appenders, see logback.xml
+ * of this source set, so the handler numbers exclude console output.
+ * rejectNotEnoughMoney is the whole 402 path from the validator to the response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorHandlerBenchmark {
+    private final ErrorHandler errorHandler = new ErrorHandler();
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final NotEnoughMoneyException exception = new NotEnoughMoneyException(
+            "Wallet with UUID: 113e4467-e80b-12d3-a456-426614174000 has not enough money to process");
+    private final WalletServiceValidator validator =
+            new WalletServiceValidator(new WalletMetrics(new SimpleMeterRegistry(), Optional.empty()));
+    private final UUID uuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+
+    @Benchmark
+    public ErrorResponseDto handleNotEnoughMoney() {
+        return errorHandler.handleNoEnoughMoney(exception);
+    }
+
+    @Benchmark
+    public ErrorResponseDto rejectNotEnoughMoney() {
+        return errorHandler.handleNoEnoughMoney(validator.notEnoughMoney(uuid, 10050L));
+    }
+
+    /**
+     * Formatting per response as before, the handler now formats once per second.
+     */
+    @Benchmark
+    public String timestamp() {
+        return LocalDateTime.now().format(formatter);
+    }
+}
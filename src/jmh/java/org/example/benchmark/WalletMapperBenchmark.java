@@ -0,0 +1,25 @@
+package org.example.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.mapper.WalletMapper;
+import org.example.mapper.WalletMapperImpl;
+import org.example.model.Wallet;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletMapperBenchmark {
+    private final WalletMapper mapper = new WalletMapperImpl();
+    private final Wallet wallet = new Wallet(UUID.fromString("113e4467-e80b-12d3-a456-426614174000"), 9921323L, 1, 0L);
+
+    @Benchmark
+    public WalletBalanceResponseDto toOutputDto() {
+        return mapper.toOutputDto(wallet);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.model.OperationType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Request body handling of POST /v1/wallet: Jackson deserialization, Bean Validation
+ * and serialization of the response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletRequestBenchmark {
+    private static final String BODY =
+            "{\"walletUuid\": \"113e4467-e80b-12d3-a456-426614174000\", \"operationType\": \"WITHDRAW\", \"amount\": 100.50}";
+
+    private ObjectMapper objectMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private WalletRequestPostDto validDto;
+    private WalletRequestPostDto invalidDto;
+    private final WalletBalanceResponseDto response = new WalletBalanceResponseDto(9921323L);
+
+    @Setup
+    public void setUp() {
+        // Same defaults as the ObjectMapper of Spring MVC
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        UUID uuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+        validDto = new WalletRequestPostDto(uuid, OperationType.WITHDRAW, 10050L, null);
+        invalidDto = new WalletRequestPostDto(uuid, OperationType.WITHDRAW, 100_000_001L, null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public WalletRequestPostDto deserialize() throws Exception {
+        return objectMapper.readValue(BODY, WalletRequestPostDto.class);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<WalletRequestPostDto>> validateValid() {
+        return validator.validate(validDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<WalletRequestPostDto>> validateInvalid() {
+        return validator.validate(invalidDto);
+    }
+
+    @Benchmark
+    public String serializeResponse() throws Exception {
+        return objectMapper.writeValueAsString(response);
+    }
+}
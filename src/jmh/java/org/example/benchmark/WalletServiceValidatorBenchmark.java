@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.example.dto.WalletRequestPostDto;
+import org.example.metrics.WalletMetrics;
+import org.example.model.OperationType;
+import org.example.util.WalletServiceValidator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Balance checks and arithmetic applied per operation against a locked balance.
+ * Only accepted operations are measured, rejections log at error level.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalletServiceValidatorBenchmark {
+    private final WalletServiceValidator validator =
+            new WalletServiceValidator(new WalletMetrics(new SimpleMeterRegistry(), Optional.empty()));
+    private final UUID uuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+    private final long balance = 9921323L;
+
+    private WalletRequestPostDto withdraw;
+    private WalletRequestPostDto deposit;
+
+    @Setup
+    public void setUp() {
+        withdraw = new WalletRequestPostDto(uuid, OperationType.WITHDRAW, 10050L, null);
+        deposit = new WalletRequestPostDto(uuid, OperationType.DEPOSIT, 10050L, null);
+    }
+
+    @Benchmark
+    public RuntimeException checkWithdraw() {
+        return validator.checkRunningBalance(uuid, balance, 0L, withdraw);
+    }
+
+    @Benchmark
+    public RuntimeException checkDeposit() {
+        return validator.checkRunningBalance(uuid, balance, 0L, deposit);
+    }
+
+    @Benchmark
+    public long applyWithdraw() {
+        return withdraw.getOperationType().apply(balance, withdraw.getAmount());
+    }
+}
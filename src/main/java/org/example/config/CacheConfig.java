@@ -0,0 +1,15 @@
+package org.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Caffeine cache manager itself is configured by spring.cache.* properties.
+ */
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(prefix = "wallet.balance-cache", name = "enabled", havingValue = "true")
+public class CacheConfig {
+    public static final String BALANCES_CACHE = "balances";
+}
@@ -0,0 +1,69 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Puts every Hikari pool behind its own {@link ConcurrencyLimitedDataSource}. The routing data sources of
+ * sharding and of the replica are left alone: their pools are limited where they are created, see
+ * {@link HikariPools#limit}, so each shard and the replica get the permits of their own pool, and a lazy
+ * connection takes a permit only when it reaches a pool.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.db-concurrency", name = "enabled", havingValue = "true")
+public class DataSourceConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+            Environment environment, ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource
+                        && !(bean instanceof ConcurrencyLimitedDataSource)
+                        && !(bean instanceof AbstractRoutingDataSource)
+                        && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return limited(environment, registry, dataSource, beanName);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Permits default to the Hikari pool size, so waiting happens on the semaphore and not in the pool.
+     * Requests waiting here never reach the pool, so hikaricp.connections.pending stays low.
+     */
+    static ConcurrencyLimitedDataSource limited(
+            Environment environment, ObjectProvider<MeterRegistry> registry, DataSource pool, String poolName) {
+        int permits = environment.getProperty(
+                "wallet.db-concurrency.permits",
+                Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        long timeoutMs = environment.getProperty(
+                "wallet.db-concurrency.timeout-ms",
+                Long.class,
+                environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class, 30000L));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(pool, permits, timeoutMs);
+        registry.ifAvailable(meterRegistry -> {
+            Gauge.builder("wallet.db.permits.waiting", dataSource, ConcurrencyLimitedDataSource::queueLength)
+                    .description("Requests waiting for a connection permit")
+                    .tag("pool", poolName)
+                    .register(meterRegistry);
+            Gauge.builder("wallet.db.permits.available", dataSource, ConcurrencyLimitedDataSource::availablePermits)
+                    .description("Connection permits not in use")
+                    .tag("pool", poolName)
+                    .register(meterRegistry);
+        });
+        return dataSource;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+/**
+ * Pools for the data sources declared instead of the auto-configured one, with its spring.datasource.hikari
+ * settings and driver. Each pool reports the hikaricp.* metrics under its own name.
+ */
+final class HikariPools {
+
+    private HikariPools() {}
+
+    static HikariDataSource create(
+            Environment environment,
+            ObjectProvider<MeterRegistry> registry,
+            String poolName,
+            String url,
+            String username,
+            String password) {
+        HikariDataSource pool = new HikariDataSource();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name"));
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setPoolName(poolName);
+        registry.ifAvailable(
+                meterRegistry -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry)));
+        return pool;
+    }
+
+    /**
+     * The pool behind its own connection permits when wallet.db-concurrency.enabled, the pool itself otherwise.
+     */
+    static DataSource limit(Environment environment, ObjectProvider<MeterRegistry> registry, HikariDataSource pool) {
+        if (!environment.getProperty("wallet.db-concurrency.enabled", Boolean.class, false)) {
+            return pool;
+        }
+        return DataSourceConcurrencyConfig.limited(environment, registry, pool, pool.getPoolName());
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.service.replica.WalletReplica;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+/**
+ * Primary and replica pools behind one data source, read-only transactions read from the replica,
+ * see {@link WalletReplica}. Both pools take their settings from spring.datasource.hikari. The replica
+ * pool is not a bean of its own, so the health of the service does not depend on it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.replica", name = "enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @Primary
+    public WalletReplicaDataSource dataSource(
+            Environment environment, ObjectProvider<MeterRegistry> registry, WalletReplica replica) {
+        if (environment.getProperty("wallet.sharding.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("wallet.replica cannot be enabled together with wallet.sharding");
+        }
+        return new WalletReplicaDataSource(
+                HikariPools.limit(
+                        environment,
+                        registry,
+                        HikariPools.create(
+                                environment,
+                                registry,
+                                "wallet-primary",
+                                environment.getRequiredProperty("spring.datasource.url"),
+                                environment.getProperty("spring.datasource.username"),
+                                environment.getProperty("spring.datasource.password"))),
+                HikariPools.limit(
+                        environment,
+                        registry,
+                        HikariPools.create(
+                                environment,
+                                registry,
+                                "wallet-replica",
+                                environment.getRequiredProperty("wallet.replica.url"),
+                                environment.getProperty("wallet.replica.username"),
+                                environment.getProperty("wallet.replica.password"))),
+                replica);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the hold expiry sweeper, the Idempotency-Key purge and the export schedule when it is enabled.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {}
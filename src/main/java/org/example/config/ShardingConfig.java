@@ -0,0 +1,97 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.example.service.sharding.WalletShards;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+/**
+ * One Hikari pool per wallet.sharding.shards entry behind a routing data source, see {@link WalletShards}.
+ * Every pool takes its settings from spring.datasource.hikari, so the pool size and the connection permits
+ * are per shard.
+ * The Liquibase change log is applied to every shard.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    public static List<Shard> bindShards(Environment environment) {
+        return Binder.get(environment)
+                .bind("wallet.sharding.shards", Bindable.listOf(Shard.class))
+                .orElse(List.of());
+    }
+
+    @Bean
+    @Primary
+    public WalletShardRoutingDataSource dataSource(Environment environment, ObjectProvider<MeterRegistry> registry) {
+        List<Shard> shards = bindShards(environment);
+        if (shards.isEmpty()) {
+            throw new IllegalStateException(
+                    "wallet.sharding.enabled=true needs at least one wallet.sharding.shards entry");
+        }
+        Map<Object, Object> pools = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            Shard shard = shards.get(i);
+            pools.put(
+                    i,
+                    HikariPools.limit(
+                            environment,
+                            registry,
+                            HikariPools.create(
+                                    environment,
+                                    registry,
+                                    "wallet-shard-" + i,
+                                    shard.url(),
+                                    shard.username(),
+                                    shard.password())));
+        }
+        WalletShardRoutingDataSource dataSource = new WalletShardRoutingDataSource();
+        dataSource.setTargetDataSources(pools);
+        dataSource.setDefaultTargetDataSource(pools.get(0));
+        dataSource.setLenientFallback(false);
+        return dataSource;
+    }
+
+    @Bean
+    public SpringLiquibase liquibase(
+            DataSource dataSource, WalletShards shards, @Value("${spring.liquibase.change-log}") String changeLog) {
+        ShardedSpringLiquibase liquibase = new ShardedSpringLiquibase(IntStream.range(0, shards.count())
+                .mapToObj(shard -> shards.shardDataSource(shard, dataSource))
+                .toList());
+        liquibase.setChangeLog(changeLog);
+        return liquibase;
+    }
+
+    public record Shard(String url, String username, String password) {}
+
+    private static class ShardedSpringLiquibase extends SpringLiquibase {
+        private final List<DataSource> shards;
+
+        ShardedSpringLiquibase(List<DataSource> shards) {
+            this.shards = new ArrayList<>(shards);
+        }
+
+        @Override
+        public void afterPropertiesSet() throws LiquibaseException {
+            for (DataSource shard : shards) {
+                setDataSource(shard);
+                super.afterPropertiesSet();
+            }
+        }
+    }
+}
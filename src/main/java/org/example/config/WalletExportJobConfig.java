@@ -0,0 +1,142 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.example.service.export.WalletExportRow;
+import org.example.service.export.WalletExportWriter;
+import org.example.service.export.WalletRangePartitioner;
+import org.example.service.export.WalletReconciliationTasklet;
+import org.example.service.sharding.WalletShards;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JdbcCursorItemReader;
+import org.springframework.batch.item.database.builder.JdbcCursorItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Nightly export of all wallets with a reconciliation report, see {@link org.example.service.export}.
+ *
+ * <p>The wallets table is split into uuid ranges, every range is read by its own worker thread through
+ * a server-side cursor over the primary key index, fetch size is the chunk size. Memory does not depend
+ * on the number of wallets. Each worker holds one connection and one snapshot while it reads its range.
+ * With sharding every shard is split into wallet.export.partitions ranges.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "wallet.export", name = "enabled", havingValue = "true")
+public class WalletExportJobConfig {
+    public static final String JOB_NAME = "walletExportJob";
+    public static final String OUTPUT_DIR = "outputDir";
+
+    private static final String WORKER_STEP_NAME = "walletExportWorkerStep";
+
+    @Bean
+    public Job walletExportJob(JobRepository jobRepository, Step walletExportStep, Step walletReconciliationStep) {
+        // The gzip files cannot be appended to, a failed run is started again from scratch
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .start(walletExportStep)
+                .next(walletReconciliationStep)
+                .preventRestart()
+                .build();
+    }
+
+    @Bean
+    public Step walletExportStep(
+            JobRepository jobRepository,
+            Step walletExportWorkerStep,
+            WalletShards shards,
+            @Value("${wallet.export.partitions:8}") int partitions) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("wallet-export-");
+        executor.setConcurrencyLimit(partitions);
+        return new StepBuilder("walletExportStep", jobRepository)
+                .partitioner(WORKER_STEP_NAME, new WalletRangePartitioner(shards.count()))
+                .step(walletExportWorkerStep)
+                .gridSize(partitions)
+                .taskExecutor(executor)
+                .build();
+    }
+
+    @Bean
+    public Step walletExportWorkerStep(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            JdbcCursorItemReader<WalletExportRow> walletExportReader,
+            WalletExportWriter walletExportWriter,
+            @Value("${wallet.export.chunk-size:1000}") int chunkSize) {
+        return new StepBuilder(WORKER_STEP_NAME, jobRepository)
+                .<WalletExportRow, WalletExportRow>chunk(chunkSize, transactionManager)
+                .reader(walletExportReader)
+                .writer(walletExportWriter)
+                .build();
+    }
+
+    @Bean
+    public Step walletReconciliationStep(
+            JobRepository jobRepository,
+            PlatformTransactionManager transactionManager,
+            WalletReconciliationTasklet walletReconciliationTasklet) {
+        return new StepBuilder("walletReconciliationStep", jobRepository)
+                .tasklet(walletReconciliationTasklet, transactionManager)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public JdbcCursorItemReader<WalletExportRow> walletExportReader(
+            DataSource dataSource,
+            WalletShards shards,
+            @Value("${wallet.export.chunk-size:1000}") int chunkSize,
+            @Value("#{stepExecutionContext['" + WalletRangePartitioner.SHARD + "']}") int shard,
+            @Value("#{stepExecutionContext['" + WalletRangePartitioner.MIN_UUID + "']}") String minUuid,
+            @Value("#{stepExecutionContext['" + WalletRangePartitioner.MAX_UUID + "']}") String maxUuid) {
+        return new JdbcCursorItemReaderBuilder<WalletExportRow>()
+                .name("walletExportReader")
+                .dataSource(shards.shardDataSource(shard, dataSource))
+                .sql(
+                        """
+                        SELECT uuid, balance, stripes, reserved, balance + CASE WHEN stripes > 1 THEN
+                            (SELECT COALESCE(SUM(s.balance), 0)::BIGINT FROM wallet_balance_slots s WHERE s.wallet_uuid = w.uuid)
+                        ELSE 0 END AS total
+                        FROM wallets w
+                        WHERE uuid BETWEEN ? AND ?
+                        ORDER BY uuid
+                        """)
+                .preparedStatementSetter(new ArgumentPreparedStatementSetter(
+                        new Object[] {UUID.fromString(minUuid), UUID.fromString(maxUuid)}))
+                .fetchSize(chunkSize)
+                .rowMapper((rs, rowNum) -> new WalletExportRow(
+                        rs.getObject("uuid", UUID.class),
+                        rs.getLong("balance"),
+                        rs.getInt("stripes"),
+                        rs.getLong("total"),
+                        rs.getLong("reserved")))
+                .saveState(false)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public WalletExportWriter walletExportWriter(
+            @Value("#{jobParameters['" + OUTPUT_DIR + "']}") String outputDir,
+            @Value("#{stepExecutionContext['" + WalletRangePartitioner.PARTITION + "']}") int partition) {
+        return new WalletExportWriter(Path.of(outputDir), partition);
+    }
+
+    @Bean
+    @StepScope
+    public WalletReconciliationTasklet walletReconciliationTasklet(
+            ObjectMapper objectMapper, @Value("#{jobParameters['" + OUTPUT_DIR + "']}") String outputDir) {
+        return new WalletReconciliationTasklet(objectMapper, Path.of(outputDir), WORKER_STEP_NAME);
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.example.service.replica.WalletReplica;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Connections are taken at the first statement, when the transaction is already marked read-only.
+ * A read-only transaction takes its connection from the replica pool when {@link WalletReplica}
+ * allows it, from the primary pool otherwise. All other work goes to the primary.
+ */
+public class WalletReplicaDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+    private final DataSource primary;
+    private final DataSource replica;
+
+    public WalletReplicaDataSource(DataSource primary, DataSource replica, WalletReplica walletReplica) {
+        super(primary);
+        this.primary = primary;
+        this.replica = replica;
+        setReadOnlyDataSource(new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return walletReplica.routeToReplica() ? replica.getConnection() : primary.getConnection();
+            }
+        });
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            ((Closeable) replica).close();
+        } finally {
+            ((Closeable) primary).close();
+        }
+    }
+}
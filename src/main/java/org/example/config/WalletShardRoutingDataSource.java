@@ -0,0 +1,31 @@
+package org.example.config;
+
+import java.io.Closeable;
+import javax.sql.DataSource;
+import org.example.service.sharding.WalletShards;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Takes the connection from the shard picked by {@link WalletShards#onShard}, shard 0 when none is picked.
+ * The shard is read when a connection is taken, a transaction stays on its shard.
+ */
+public class WalletShardRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WalletShards.current();
+    }
+
+    @Override
+    public void close() {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof Closeable pool) {
+                try {
+                    pool.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close shard pool", e);
+                }
+            }
+        }
+    }
+}
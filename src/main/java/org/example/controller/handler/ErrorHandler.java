@@ -1,13 +1,29 @@
 package org.example.controller.handler;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.ErrorResponseDto;
+import org.example.exception.AsyncOperationNotFoundException;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.InvalidIdempotencyKeyException;
 import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletBalanceLimitException;
+import org.example.exception.WalletCrossShardException;
+import org.example.exception.WalletEngineUnsupportedException;
+import org.example.exception.WalletHoldConflictException;
+import org.example.exception.WalletHoldNotFoundException;
 import org.example.exception.WalletNoExistException;
 import org.example.exception.WalletOperationLockException;
+import org.example.exception.WalletOperationTimeoutException;
+import org.example.exception.WalletOverloadedException;
+import org.example.exception.WalletRejectionException;
+import org.example.util.LogRateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,29 +32,88 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 
 @Slf4j
 @RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ErrorHandler {
-    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * Rejections are expected outcomes and come in storms, only this many per second are logged.
+     */
+    private static final int REJECTION_LOGS_PER_SECOND = 10;
+
+    protected final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final LogRateLimiter rejectionLog = new LogRateLimiter(REJECTION_LOGS_PER_SECOND);
+    private volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, null);
 
     @ExceptionHandler(WalletNoExistException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponseDto handleNotExists(WalletNoExistException e) {
-        log.error("Wallet not exists was thrown", e);
+        logRejection("Wallet not exists", e);
+        return new ErrorResponseDto(
+                HttpStatus.NOT_FOUND.name(), "Required wallet not exists", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(AsyncOperationNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponseDto handleAsyncOperationNotFound(AsyncOperationNotFoundException e) {
+        logRejection("Async operation not exists", e);
+        return new ErrorResponseDto(
+                HttpStatus.NOT_FOUND.name(), "Required operation not exists", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(WalletHoldNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponseDto handleHoldNotFound(WalletHoldNotFoundException e) {
+        logRejection("Hold not exists", e);
+        return new ErrorResponseDto(
+                HttpStatus.NOT_FOUND.name(), "Required hold not exists", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(WalletHoldConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponseDto handleHoldConflict(WalletHoldConflictException e) {
+        logRejection("Hold cannot be changed", e);
         return new ErrorResponseDto(
-                HttpStatus.NOT_FOUND.name(),
-                "Required wallet not exists",
+                HttpStatus.CONFLICT.name(), "Hold is closed or expired", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(WalletCrossShardException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponseDto handleCrossShard(WalletCrossShardException e) {
+        logRejection("Wallets on different shards", e);
+        return new ErrorResponseDto(
+                HttpStatus.UNPROCESSABLE_ENTITY.name(),
+                "Wallets of one operation must be on the same shard",
+                e.getMessage(),
+                timestamp());
+    }
+
+    @ExceptionHandler(WalletEngineUnsupportedException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponseDto handleEngineUnsupported(WalletEngineUnsupportedException e) {
+        logRejection("Not supported by the wallet engine", e);
+        return new ErrorResponseDto(
+                HttpStatus.UNPROCESSABLE_ENTITY.name(),
+                "Operation is not supported by the configured wallet engine",
                 e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                timestamp());
     }
 
     @ExceptionHandler(NotEnoughMoneyException.class)
     @ResponseStatus(HttpStatus.PAYMENT_REQUIRED)
     public ErrorResponseDto handleNoEnoughMoney(NotEnoughMoneyException e) {
-        log.error("Not enough Money on wallet", e);
+        logRejection("Not enough Money on wallet", e);
+        return new ErrorResponseDto(
+                HttpStatus.PAYMENT_REQUIRED.name(), "This wallet have not enough money", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(WalletBalanceLimitException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponseDto handleBalanceLimit(WalletBalanceLimitException e) {
+        logRejection("Max balance exceeded", e);
         return new ErrorResponseDto(
-                HttpStatus.PAYMENT_REQUIRED.name(),
-                "This wallet have not enough money",
+                HttpStatus.UNPROCESSABLE_ENTITY.name(),
+                "Wallet balance would exceed the maximum",
                 e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                timestamp());
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -46,21 +121,59 @@ public class ErrorHandler {
     public ErrorResponseDto handleValidationException(MethodArgumentNotValidException e) {
         log.error("Not valid request DTO", e);
         return new ErrorResponseDto(
-                HttpStatus.BAD_REQUEST.name(),
-                "Invalid DTO body in request",
-                e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                HttpStatus.BAD_REQUEST.name(), "Invalid DTO body in request", e.getMessage(), timestamp());
     }
 
-    @ExceptionHandler(WalletOperationLockException.class)
+    /**
+     * A lock failure that was not retried is answered like one that ran out of retries.
+     */
+    @ExceptionHandler({WalletOperationLockException.class, PessimisticLockingFailureException.class})
     @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
-    public ErrorResponseDto handleLockException(WalletOperationLockException e) {
+    public ErrorResponseDto handleLockException(RuntimeException e) {
         log.error("Lock conflict, too many retries", e);
         return new ErrorResponseDto(
                 HttpStatus.TOO_MANY_REQUESTS.name(),
                 "Too many retries, pessimistic lock conflict",
                 e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                timestamp());
+    }
+
+    @ExceptionHandler(WalletOperationTimeoutException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponseDto handleOperationTimeout(WalletOperationTimeoutException e) {
+        log.error("Wallet operation timed out: {}", e.getMessage());
+        return new ErrorResponseDto(
+                HttpStatus.SERVICE_UNAVAILABLE.name(),
+                "Operation timed out, retry with the same Idempotency-Key",
+                e.getMessage(),
+                timestamp());
+    }
+
+    @ExceptionHandler(WalletOverloadedException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponseDto handleOverloaded(WalletOverloadedException e) {
+        logRejection("Operation not admitted", e);
+        return new ErrorResponseDto(
+                HttpStatus.TOO_MANY_REQUESTS.name(), "Too many operations in flight", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(IdempotencyKeyConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponseDto handleIdempotencyKeyConflict(IdempotencyKeyConflictException e) {
+        logRejection("Idempotency key reused with another request", e);
+        return new ErrorResponseDto(
+                HttpStatus.CONFLICT.name(),
+                "Idempotency key was already used with another request",
+                e.getMessage(),
+                timestamp());
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponseDto handleInvalidIdempotencyKey(InvalidIdempotencyKeyException e) {
+        log.error("Invalid idempotency key", e);
+        return new ErrorResponseDto(
+                HttpStatus.BAD_REQUEST.name(), "Invalid Idempotency-Key header", e.getMessage(), timestamp());
     }
 
     @ExceptionHandler(Exception.class)
@@ -68,10 +181,7 @@ public class ErrorHandler {
     public ErrorResponseDto handleException(Exception e) {
         log.error("Exception was thrown", e);
         return new ErrorResponseDto(
-                HttpStatus.INTERNAL_SERVER_ERROR.name(),
-                "Something get wrong.",
-                e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                HttpStatus.INTERNAL_SERVER_ERROR.name(), "Something get wrong.", e.getMessage(), timestamp());
     }
 
     @ExceptionHandler(InvalidFormatException.class)
@@ -79,10 +189,7 @@ public class ErrorHandler {
     public ErrorResponseDto handleInvalidFormat(InvalidFormatException e) {
         log.error("Invalid format of Request Body", e);
         return new ErrorResponseDto(
-                HttpStatus.BAD_REQUEST.name(),
-                "Invalid format of Request Body",
-                e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                HttpStatus.BAD_REQUEST.name(), "Invalid format of Request Body", e.getMessage(), timestamp());
     }
 
     @ExceptionHandler(HttpMessageNotReadableException.class)
@@ -90,10 +197,7 @@ public class ErrorHandler {
     public ErrorResponseDto handleNotReadable(InvalidFormatException e) {
         log.error("Unreadable format of Request Body", e);
         return new ErrorResponseDto(
-                HttpStatus.BAD_REQUEST.name(),
-                "Unreadable format of Request Body",
-                e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                HttpStatus.BAD_REQUEST.name(), "Unreadable format of Request Body", e.getMessage(), timestamp());
     }
 
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
@@ -101,9 +205,34 @@ public class ErrorHandler {
     public ErrorResponseDto handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException e) {
         log.error("Invalid argument type", e);
         return new ErrorResponseDto(
-                HttpStatus.BAD_REQUEST.name(),
-                "Invalid argument type",
-                e.getMessage(),
-                LocalDateTime.now().format(formatter));
+                HttpStatus.BAD_REQUEST.name(), "Invalid argument type", e.getMessage(), timestamp());
+    }
+
+    /**
+     * Timestamp of the response, formatted once per second.
+     */
+    protected String timestamp() {
+        long now = System.currentTimeMillis();
+        long second = Math.floorDiv(now, 1000);
+        Timestamp cached = timestamp;
+        if (cached.second() != second) {
+            String text = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault())
+                    .format(formatter);
+            cached = new Timestamp(second, text);
+            timestamp = cached;
+        }
+        return cached.text();
     }
+
+    /**
+     * No stack trace, rejections are stackless and the metrics count every one of them.
+     */
+    private void logRejection(String reason, WalletRejectionException e) {
+        long suppressed = rejectionLog.tryAcquire();
+        if (suppressed >= 0) {
+            log.info("{}: {}, {} similar suppressed", reason, e.getMessage().strip(), suppressed);
+        }
+    }
+
+    private record Timestamp(long second, String text) {}
 }
@@ -0,0 +1,36 @@
+package org.example.controller.handler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ErrorResponseDto;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+/**
+ * Same mapping as {@link ErrorHandler}, plus the WebFlux counterparts of the MVC binding errors.
+ */
+@Slf4j
+@Profile("reactive")
+@RestControllerAdvice
+public class ReactiveErrorHandler extends ErrorHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponseDto handleBindException(WebExchangeBindException e) {
+        log.error("Not valid request DTO", e);
+        return new ErrorResponseDto(
+                HttpStatus.BAD_REQUEST.name(), "Invalid DTO body in request", e.getMessage(), timestamp());
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponseDto handleServerWebInput(ServerWebInputException e) {
+        log.error("Unreadable request", e);
+        return new ErrorResponseDto(
+                HttpStatus.BAD_REQUEST.name(), "Unreadable format of Request Body", e.getMessage(), timestamp());
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.controller.wallet;
+
+import jakarta.validation.Valid;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.service.WalletAsyncService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * POST /v1/wallet?mode=async answers 202 once the operation is journaled, the outcome is polled
+ * with GET /v1/wallet/operations/{operationId}.
+ */
+@RestController
+@RequestMapping("/v1")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "wallet.async", name = "enabled", havingValue = "true")
+public class AsyncWalletController {
+    private final WalletAsyncService walletAsyncService;
+
+    @PostMapping(value = "/wallet", params = "mode=async")
+    public ResponseEntity<AsyncOperationStatusDto> acceptWalletOperation(
+            @RequestBody @Valid WalletRequestPostDto dto,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        dto.setIdempotencyKey(idempotencyKey);
+        return new ResponseEntity<>(walletAsyncService.accept(dto), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/wallet/operations/{operationId}")
+    public ResponseEntity<AsyncOperationStatusDto> getStatus(@PathVariable("operationId") UUID operationId) {
+        return ResponseEntity.ok(walletAsyncService.getStatus(operationId));
+    }
+}
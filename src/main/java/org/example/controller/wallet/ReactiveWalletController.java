@@ -0,0 +1,32 @@
+package org.example.controller.wallet;
+
+import jakarta.validation.Valid;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.service.ReactiveWalletService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/v1")
+@RequiredArgsConstructor
+@Profile("reactive")
+public class ReactiveWalletController {
+    private final ReactiveWalletService walletService;
+
+    @PostMapping("/wallet")
+    public Mono<ResponseEntity<String>> processWalletOperation(@RequestBody @Valid WalletRequestPostDto dto) {
+        return walletService
+                .processWalletOperation(dto)
+                .map(balance -> ResponseEntity.ok("Operation with wallet success"));
+    }
+
+    @GetMapping("wallets/{walletUuid}")
+    public Mono<ResponseEntity<WalletBalanceResponseDto>> getBalance(@PathVariable("walletUuid") UUID uuid) {
+        return walletService.getBalance(uuid).map(ResponseEntity::ok);
+    }
+}
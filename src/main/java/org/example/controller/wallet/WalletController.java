@@ -1,29 +1,128 @@
 package org.example.controller.wallet;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletBalanceItemDto;
 import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletBalancesRequestDto;
+import org.example.dto.WalletBatchRequestDto;
+import org.example.dto.WalletBatchResponseDto;
+import org.example.dto.WalletOperationPageDto;
 import org.example.dto.WalletRequestPostDto;
+import org.example.dto.WalletStripesRequestDto;
+import org.example.dto.WalletTransferRequestDto;
+import org.example.dto.WalletTransferResponseDto;
+import org.example.service.WalletBatchService;
+import org.example.service.WalletOperationService;
 import org.example.service.WalletService;
+import org.example.service.WalletTransferService;
+import org.example.util.Money;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/v1")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class WalletController {
+    private static final JsonFactory JSON = new JsonFactory();
+
     private final WalletService walletService;
+    private final WalletBatchService walletBatchService;
+    private final WalletOperationService walletOperationService;
+    private final WalletTransferService walletTransferService;
 
     @PostMapping("/wallet")
-    public ResponseEntity<String> processWalletOperation(@RequestBody @Valid WalletRequestPostDto dto) {
+    public ResponseEntity<String> processWalletOperation(
+            @RequestBody @Valid WalletRequestPostDto dto,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        dto.setIdempotencyKey(idempotencyKey);
         walletService.processWalletOperation(dto);
         return ResponseEntity.ok("Operation with wallet success");
     }
 
+    /**
+     * The balance is the available one, money held by open holds is in reserved and not included.
+     * A deposit is limited by balance and reserved together.
+     * With readYourWrites=true the balance comes from the primary while the replica lags behind.
+     */
     @GetMapping("wallets/{walletUuid}")
-    public ResponseEntity<WalletBalanceResponseDto> getBalance(@PathVariable("walletUuid") UUID uuid) {
-        return new ResponseEntity<>(walletService.getBalance(uuid), HttpStatus.OK);
+    public ResponseEntity<WalletBalanceResponseDto> getBalance(
+            @PathVariable("walletUuid") UUID uuid,
+            @RequestParam(name = "readYourWrites", defaultValue = "false") boolean readYourWrites) {
+        return new ResponseEntity<>(walletService.getBalance(uuid, readYourWrites), HttpStatus.OK);
+    }
+
+    @PutMapping("/wallets/{walletUuid}/stripes")
+    public ResponseEntity<WalletBalanceResponseDto> setStripes(
+            @PathVariable("walletUuid") UUID uuid, @RequestBody @Valid WalletStripesRequestDto dto) {
+        return ResponseEntity.ok(walletService.setStripes(uuid, dto.getStripes()));
+    }
+
+    @GetMapping("/wallets/{walletUuid}/operations")
+    public ResponseEntity<WalletOperationPageDto> getOperations(
+            @PathVariable("walletUuid") UUID uuid,
+            @RequestParam(name = "cursor", required = false) Long cursor,
+            @RequestParam(name = "limit", defaultValue = "50") int limit) {
+        return ResponseEntity.ok(walletOperationService.getOperations(uuid, cursor, limit));
+    }
+
+    /**
+     * Balances in request order, written while they are read. A missing wallet is an item with found false.
+     */
+    @PostMapping("/wallets/balances")
+    public ResponseEntity<StreamingResponseBody> getBalances(@RequestBody @Valid WalletBalancesRequestDto dto) {
+        List<UUID> uuids = dto.getWalletUuids().stream().distinct().toList();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = JSON.createGenerator(out)) {
+                generator.writeStartArray();
+                walletService.streamBalances(uuids, item -> writeBalance(generator, item));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * With wallet.sharding.enabled all wallets of the batch must be on one shard, otherwise 422
+     * UNPROCESSABLE_ENTITY and nothing is applied.
+     */
+    @PostMapping("/wallets/batch")
+    public ResponseEntity<WalletBatchResponseDto> processBatch(@RequestBody @Valid WalletBatchRequestDto dto) {
+        return ResponseEntity.ok(walletBatchService.processBatch(dto));
+    }
+
+    /**
+     * With wallet.sharding.enabled both wallets must be on one shard, a transfer between shards is
+     * not routed and is answered with 422 UNPROCESSABLE_ENTITY, nothing is debited.
+     */
+    @PostMapping("/transfers")
+    public ResponseEntity<WalletTransferResponseDto> transfer(@RequestBody @Valid WalletTransferRequestDto dto) {
+        return ResponseEntity.ok(walletTransferService.transfer(dto));
+    }
+
+    private static void writeBalance(JsonGenerator generator, WalletBalanceItemDto item) {
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("walletUuid", item.walletUuid().toString());
+            generator.writeBooleanField("found", item.found());
+            if (item.found()) {
+                generator.writeFieldName("balance");
+                generator.writeNumber(Money.format(item.balance()));
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
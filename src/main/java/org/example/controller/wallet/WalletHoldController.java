@@ -0,0 +1,46 @@
+package org.example.controller.wallet;
+
+import jakarta.validation.Valid;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletCaptureRequestDto;
+import org.example.dto.WalletHoldDto;
+import org.example.dto.WalletHoldRequestDto;
+import org.example.service.WalletHoldService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Authorize and capture: POST /v1/holds reserves money on a wallet, capture takes it,
+ * release or expiry gives it back.
+ */
+@RestController
+@RequestMapping("/v1/holds")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WalletHoldController {
+    private final WalletHoldService walletHoldService;
+
+    @PostMapping
+    public ResponseEntity<WalletHoldDto> hold(@RequestBody @Valid WalletHoldRequestDto dto) {
+        return ResponseEntity.ok(walletHoldService.hold(dto));
+    }
+
+    @PostMapping("/{holdId}/capture")
+    public ResponseEntity<WalletHoldDto> capture(
+            @PathVariable("holdId") UUID holdId, @RequestBody(required = false) @Valid WalletCaptureRequestDto dto) {
+        return ResponseEntity.ok(
+                walletHoldService.capture(holdId, dto == null || dto.getAmount() == null ? 0 : dto.getAmount()));
+    }
+
+    @PostMapping("/{holdId}/release")
+    public ResponseEntity<WalletHoldDto> release(@PathVariable("holdId") UUID holdId) {
+        return ResponseEntity.ok(walletHoldService.release(holdId));
+    }
+
+    @GetMapping("/{holdId}")
+    public ResponseEntity<WalletHoldDto> getHold(@PathVariable("holdId") UUID holdId) {
+        return ResponseEntity.ok(walletHoldService.getHold(holdId));
+    }
+}
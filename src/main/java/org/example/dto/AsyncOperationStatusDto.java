@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.UUID;
+import org.example.model.AsyncOperationStatus;
+import org.example.model.OperationType;
+import org.example.util.MoneySerializer;
+
+/**
+ * Operation accepted with POST /v1/wallet?mode=async. Balance is the wallet balance right after
+ * an applied operation, reason is the rejection message.
+ */
+public record AsyncOperationStatusDto(
+        UUID operationId,
+        UUID walletUuid,
+        OperationType operationType,
+        @JsonSerialize(using = MoneySerializer.class) long amount,
+        AsyncOperationStatus status,
+        @JsonSerialize(using = MoneySerializer.class) Long balance,
+        String reason) {}
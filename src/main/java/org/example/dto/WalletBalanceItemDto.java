@@ -0,0 +1,8 @@
+package org.example.dto;
+
+import java.util.UUID;
+
+/**
+ * One wallet of a bulk balance lookup, balance is null when the wallet was not found.
+ */
+public record WalletBalanceItemDto(UUID walletUuid, boolean found, Long balance) {}
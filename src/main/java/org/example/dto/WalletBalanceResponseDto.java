@@ -1,5 +1,9 @@
 package org.example.dto;
 
-import java.math.BigDecimal;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.example.util.MoneySerializer;
 
-public record WalletBalanceResponseDto(BigDecimal balance) {}
+/**
+ * Balance in kopecks, written as a decimal like 1000.50.
+ */
+public record WalletBalanceResponseDto(@JsonSerialize(using = MoneySerializer.class) long balance) {}
@@ -0,0 +1,21 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalancesRequestDto {
+    @NotEmpty(message = "Wallet UUIDs must be not empty")
+    @Size(max = 10000, message = "Request must have maximum 10000 wallet UUIDs")
+    private List<@NotNull(message = "UUID must be not null and valid") UUID> walletUuids;
+}
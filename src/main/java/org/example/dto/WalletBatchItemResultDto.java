@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.UUID;
+import org.example.model.BatchItemStatus;
+import org.example.util.MoneySerializer;
+
+public record WalletBatchItemResultDto(
+        int index,
+        UUID walletUuid,
+        BatchItemStatus status,
+        @JsonSerialize(using = MoneySerializer.class) Long balance,
+        String reason) {}
@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.model.BatchMode;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBatchRequestDto {
+    @NotEmpty(message = "Operations must be not empty")
+    @Size(max = 10000, message = "Batch must have maximum 10000 operations")
+    private List<@Valid WalletRequestPostDto> operations;
+
+    private BatchMode mode;
+}
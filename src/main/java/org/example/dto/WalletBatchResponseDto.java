@@ -0,0 +1,6 @@
+package org.example.dto;
+
+import java.util.List;
+import org.example.model.BatchMode;
+
+public record WalletBatchResponseDto(BatchMode mode, boolean committed, List<WalletBatchItemResultDto> items) {}
@@ -0,0 +1,28 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.util.MoneyDeserializer;
+import org.example.util.MoneySerializer;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletCaptureRequestDto {
+    /**
+     * In kopecks, at most the held amount, the rest goes back to the balance.
+     * A missing or null amount reads as 0 and captures the whole hold.
+     */
+    @Min(value = 0, message = "Amount must not be negative")
+    @Max(value = 100_000_000, message = "Amount must be maximum 1000000")
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long amount;
+}
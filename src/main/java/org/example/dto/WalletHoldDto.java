@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.time.Instant;
+import java.util.UUID;
+import org.example.model.HoldStatus;
+import org.example.util.MoneySerializer;
+
+/**
+ * Balance and reserved are the wallet values right after a hold, capture or release, absent on lookups.
+ */
+public record WalletHoldDto(
+        UUID holdId,
+        UUID walletUuid,
+        @JsonSerialize(using = MoneySerializer.class) long amount,
+        @JsonSerialize(using = MoneySerializer.class) long captured,
+        HoldStatus status,
+        Instant expiresAt,
+        @JsonSerialize(using = MoneySerializer.class) Long balance,
+        @JsonSerialize(using = MoneySerializer.class) Long reserved) {}
@@ -0,0 +1,38 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import jakarta.validation.constraints.*;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.util.MoneyDeserializer;
+import org.example.util.MoneySerializer;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletHoldRequestDto {
+    @NotNull(message = "UUID must be not null and valid")
+    private UUID walletUuid;
+
+    /**
+     * In kopecks, same limits as a single operation.
+     */
+    @NotNull(message = "Amount must be not null")
+    @Min(value = 1, message = "Amount must be at least 0.01")
+    @Max(value = 100_000_000, message = "Amount must be maximum 1000000")
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long amount;
+
+    /**
+     * The hold expires and its money is released after this many seconds, wallet.holds.default-ttl when missing.
+     */
+    @Min(value = 1, message = "TTL must be at least 1 second")
+    @Max(value = 2_592_000, message = "TTL must be maximum 30 days")
+    private Integer ttlSeconds;
+}
@@ -0,0 +1,15 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.time.Instant;
+import java.util.UUID;
+import org.example.model.OperationType;
+import org.example.util.MoneySerializer;
+
+public record WalletOperationDto(
+        Long id,
+        UUID walletUuid,
+        OperationType operationType,
+        @JsonSerialize(using = MoneySerializer.class) long amount,
+        @JsonSerialize(using = MoneySerializer.class) long balance,
+        Instant createdAt) {}
@@ -0,0 +1,5 @@
+package org.example.dto;
+
+import java.util.List;
+
+public record WalletOperationPageDto(List<WalletOperationDto> operations, Long nextCursor) {}
@@ -1,13 +1,17 @@
 package org.example.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.validation.constraints.*;
-import java.math.BigDecimal;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.example.model.OperationType;
+import org.example.util.MoneyDeserializer;
+import org.example.util.MoneySerializer;
 
 @Data
 @Builder
@@ -20,10 +24,25 @@ public class WalletRequestPostDto {
     @NotNull(message = "Operation Type must be like DEPOSIT|WITHDRAW")
     private OperationType operationType;
 
+    /**
+     * In kopecks, the JSON value is still a decimal like 999.00.
+     */
     @NotNull(message = "Amount must be not null")
-    @DecimalMin(value = "0.01", message = "Amount must be at least 0.01")
-    @Positive(message = "Amount must be positive")
-    @DecimalMax(value = "1000000.00", message = "Amount must be maximum 1000000")
-    @Digits(integer = 7, fraction = 2, message = "Amount maximum must have 7 integers and 2 fractions, like 999.00")
-    private BigDecimal amount;
+    @Min(value = 1, message = "Amount must be at least 0.01")
+    @Max(value = 100_000_000, message = "Amount must be maximum 1000000")
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long amount;
+
+    /**
+     * Taken from the Idempotency-Key header, not from the body.
+     */
+    @JsonIgnore
+    private String idempotencyKey;
+
+    @JsonIgnore
+    @AssertTrue(message = "Operation Type must be like DEPOSIT|WITHDRAW")
+    public boolean isBalanceOperation() {
+        return operationType == null || operationType.isBalanceOperation();
+    }
 }
@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletStripesRequestDto {
+    @NotNull(message = "Stripes must be not null")
+    @Min(value = 1, message = "Stripes must be at least 1")
+    @Max(value = 64, message = "Stripes must be maximum 64")
+    private Integer stripes;
+}
@@ -0,0 +1,41 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import jakarta.validation.constraints.*;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.util.MoneyDeserializer;
+import org.example.util.MoneySerializer;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletTransferRequestDto {
+    @NotNull(message = "Source UUID must be not null and valid")
+    private UUID fromWalletUuid;
+
+    @NotNull(message = "Target UUID must be not null and valid")
+    private UUID toWalletUuid;
+
+    /**
+     * In kopecks, same limits as a single operation.
+     */
+    @NotNull(message = "Amount must be not null")
+    @Min(value = 1, message = "Amount must be at least 0.01")
+    @Max(value = 100_000_000, message = "Amount must be maximum 1000000")
+    @JsonSerialize(using = MoneySerializer.class)
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private Long amount;
+
+    @JsonIgnore
+    @AssertTrue(message = "Source and target wallets must be different")
+    public boolean isDifferentWallets() {
+        return fromWalletUuid == null || !fromWalletUuid.equals(toWalletUuid);
+    }
+}
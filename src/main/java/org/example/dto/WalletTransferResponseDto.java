@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.UUID;
+import org.example.util.MoneySerializer;
+
+/**
+ * Balances of both wallets right after the transfer.
+ */
+public record WalletTransferResponseDto(
+        UUID fromWalletUuid,
+        @JsonSerialize(using = MoneySerializer.class) long fromBalance,
+        UUID toWalletUuid,
+        @JsonSerialize(using = MoneySerializer.class) long toBalance) {}
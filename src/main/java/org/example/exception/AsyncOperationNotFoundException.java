@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class AsyncOperationNotFoundException extends WalletRejectionException {
+    public AsyncOperationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.exception;
+
+/**
+ * Thrown inside the operation transaction to roll it back when its Idempotency-Key
+ * was recorded concurrently. Never reaches the client, the stored response is returned instead.
+ */
+public class DuplicateOperationException extends RuntimeException {
+    public DuplicateOperationException(String message) {
+        super(message);
+    }
+}
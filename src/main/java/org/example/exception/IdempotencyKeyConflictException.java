@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class IdempotencyKeyConflictException extends WalletRejectionException {
+    public IdempotencyKeyConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,6 @@
 package org.example.exception;
 
-public class NotEnoughMoneyException extends RuntimeException {
+public class NotEnoughMoneyException extends WalletRejectionException {
     public NotEnoughMoneyException(String message) {
         super(message);
     }
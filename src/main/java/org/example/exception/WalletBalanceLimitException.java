@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class WalletBalanceLimitException extends WalletRejectionException {
+    public WalletBalanceLimitException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class WalletCrossShardException extends WalletRejectionException {
+    public WalletCrossShardException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class WalletEngineUnsupportedException extends WalletRejectionException {
+    public WalletEngineUnsupportedException(String message) {
+        super(message);
+    }
+}
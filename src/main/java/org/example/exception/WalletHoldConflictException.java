@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class WalletHoldConflictException extends WalletRejectionException {
+    public WalletHoldConflictException(String message) {
+        super(message);
+    }
+}
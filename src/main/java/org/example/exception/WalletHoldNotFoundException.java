@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class WalletHoldNotFoundException extends WalletRejectionException {
+    public WalletHoldNotFoundException(String message) {
+        super(message);
+    }
+}
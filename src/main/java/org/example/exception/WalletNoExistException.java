@@ -1,6 +1,6 @@
 package org.example.exception;
 
-public class WalletNoExistException extends RuntimeException {
+public class WalletNoExistException extends WalletRejectionException {
     public WalletNoExistException(String message) {
         super(message);
     }
@@ -0,0 +1,11 @@
+package org.example.exception;
+
+/**
+ * The caller stopped waiting for a queued operation. It may still be applied unless the message
+ * says otherwise, a retry with the same Idempotency-Key is safe.
+ */
+public class WalletOperationTimeoutException extends RuntimeException {
+    public WalletOperationTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.exception;
+
+public class WalletOverloadedException extends WalletRejectionException {
+    public WalletOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.exception;
+
+/**
+ * Expected business outcome answered with a 4xx, like not enough money. Thrown often under load,
+ * so it has no stack trace.
+ */
+public abstract class WalletRejectionException extends RuntimeException {
+    protected WalletRejectionException(String message) {
+        super(message, null, false, false);
+    }
+}
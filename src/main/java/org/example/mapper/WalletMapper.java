@@ -1,7 +1,9 @@
 package org.example.mapper;
 
 import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletOperationDto;
 import org.example.model.Wallet;
+import org.example.model.WalletOperation;
 import org.mapstruct.Mapper;
 import org.mapstruct.ReportingPolicy;
 
@@ -9,4 +11,6 @@ import org.mapstruct.ReportingPolicy;
 public interface WalletMapper {
 
     WalletBalanceResponseDto toOutputDto(Wallet wallet);
+
+    WalletOperationDto toOperationDto(WalletOperation operation);
 }
@@ -0,0 +1,159 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Top wallets by time spent waiting for their row lock, a no-op unless
+ * wallet.metrics.contended-wallets.enabled=true.
+ *
+ * <p>Lock waits are summed in space-saving sketches of fixed capacity, so memory does not depend
+ * on the number of wallets. A wallet always lands in the same of {@value #STRIPES} stripes, each
+ * a sketch of its own with its own lock, so recording threads of different wallets rarely meet
+ * and an eviction scans only the counters of one stripe.
+ *
+ * <p>Every interval the top wallets are published as wallet.lock.contended{rank} in seconds of
+ * lock wait, exactly {@code top} series whatever the wallets are, the wallets behind the ranks
+ * are logged. Then the sketches start over.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.metrics.contended-wallets", name = "enabled", havingValue = "true")
+public class ContendedWallets {
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int top;
+    /**
+     * Seconds of lock wait by rank, as Double bits, 0 for a rank no wallet reached.
+     */
+    private final AtomicLongArray ranks;
+
+    private final ScheduledExecutorService executor;
+
+    public ContendedWallets(
+            MeterRegistry registry,
+            @Value("${wallet.metrics.contended-wallets.capacity:256}") int capacity,
+            @Value("${wallet.metrics.contended-wallets.top:10}") int top,
+            @Value("${wallet.metrics.contended-wallets.interval:1m}") Duration interval) {
+        int stripeCapacity = Math.max(1, Math.ceilDiv(capacity, STRIPES));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+        this.top = top;
+        this.ranks = new AtomicLongArray(top);
+        for (int i = 0; i < top; i++) {
+            int rank = i;
+            Gauge.builder("wallet.lock.contended", ranks, values -> Double.longBitsToDouble(values.get(rank)))
+                    .description("Seconds spent waiting for the row lock of the most contended wallets")
+                    .baseUnit("seconds")
+                    .tag("rank", String.valueOf(rank + 1))
+                    .register(registry);
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wallet-contended-wallets");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::publish, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void record(UUID uuid, long nanos) {
+        int hash = uuid.hashCode();
+        stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)].record(uuid, nanos);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void publish() {
+        List<Map.Entry<UUID, Long>> waits = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            waits.addAll(stripe.reset().entrySet());
+        }
+        List<Map.Entry<UUID, Long>> sorted = waits.stream()
+                .sorted(Map.Entry.<UUID, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(top)
+                .toList();
+        for (int i = 0; i < top; i++) {
+            double seconds = i < sorted.size() ? sorted.get(i).getValue() / 1e9 : 0;
+            ranks.set(i, Double.doubleToRawLongBits(seconds));
+        }
+        if (!sorted.isEmpty()) {
+            StringBuilder ranking = new StringBuilder();
+            for (int i = 0; i < sorted.size(); i++) {
+                Map.Entry<UUID, Long> entry = sorted.get(i);
+                ranking.append(i == 0 ? "" : ", ")
+                        .append(i + 1)
+                        .append(": ")
+                        .append(entry.getKey())
+                        .append(String.format(" %.3fs", entry.getValue() / 1e9));
+            }
+            log.info("Most contended wallets by row lock wait: {}", ranking);
+        }
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int capacity;
+        private Map<UUID, Long> waits = new HashMap<>();
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void record(UUID uuid, long nanos) {
+            lock.lock();
+            try {
+                Long current = waits.get(uuid);
+                if (current != null || waits.size() < capacity) {
+                    waits.put(uuid, (current == null ? 0 : current) + nanos);
+                    return;
+                }
+                // Space-saving: the new wallet takes over the smallest counter and inherits its count
+                UUID minUuid = null;
+                long min = Long.MAX_VALUE;
+                for (Map.Entry<UUID, Long> entry : waits.entrySet()) {
+                    if (entry.getValue() < min) {
+                        min = entry.getValue();
+                        minUuid = entry.getKey();
+                    }
+                }
+                waits.remove(minUuid);
+                waits.put(uuid, min + nanos);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<UUID, Long> reset() {
+            lock.lock();
+            try {
+                Map<UUID, Long> snapshot = waits;
+                waits = new HashMap<>();
+                return snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletBalanceLimitException;
+import org.example.exception.WalletCrossShardException;
+import org.example.exception.WalletHoldConflictException;
+import org.example.exception.WalletHoldNotFoundException;
+import org.example.exception.WalletNoExistException;
+import org.example.exception.WalletOperationLockException;
+import org.example.exception.WalletOverloadedException;
+import org.example.model.OperationType;
+import org.example.service.admission.AdaptiveConcurrencyLimit;
+import org.example.service.replica.WalletReplica;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wallet metrics, exported by Actuator together with the hikaricp.* pool metrics.
+ *
+ * <ul>
+ *   <li>wallet.operation - timer per operation type and outcome
+ *   <li>wallet.lock.wait - histogram of statements that take the wallet row lock
+ *   <li>wallet.operation.rejections - rejected operations per reason
+ *   <li>wallet.operation.retries, wallet.operation.retry.backoff - lock failures retried and the backoff slept
+ *   <li>wallet.operation.attempts - attempts per operation, 1 when the first one went through
+ *   <li>wallet.operation.recoveries - operations given up per reason: attempts, deadline or interrupted
+ *   <li>wallet.async.pending - async operations accepted and not applied yet
+ *   <li>wallet.async.failed - async operations given up after their attempts and recorded as FAILED
+ *   <li>wallet.admission.rejections - operations answered 429 before touching the DB, per reason: wallet or global
+ *   <li>wallet.admission.limit, wallet.admission.in_flight - the adaptive global limit and its usage
+ *   <li>wallet.holds.expired - holds released by the expiry sweeper
+ *   <li>wallet.idempotency.purged - Idempotency-Keys deleted after their retention
+ *   <li>wallet.replica.lag - replay lag of the read replica in ms, NaN while unknown
+ *   <li>wallet.replica.routing - read-only transactions per mode, target pool and reason
+ * </ul>
+ */
+@Component
+public class WalletMetrics {
+    public static final String FIND_BY_UUID_WITH_LOCK = "find_by_uuid_with_lock";
+    public static final String GUARDED_UPDATE = "guarded_update";
+    public static final String TRANSFER_LOCK = "transfer_lock";
+
+    private final MeterRegistry registry;
+    private final Optional<ContendedWallets> contendedWallets;
+    private final Counter retries;
+    private final Timer retryBackoff;
+    private final DistributionSummary attempts;
+
+    public WalletMetrics(MeterRegistry registry, Optional<ContendedWallets> contendedWallets) {
+        this.registry = registry;
+        this.contendedWallets = contendedWallets;
+        this.retries = Counter.builder("wallet.operation.retries")
+                .description("Operation attempts failed on the row lock and retried")
+                .register(registry);
+        this.retryBackoff = Timer.builder("wallet.operation.retry.backoff")
+                .description("Backoff slept before retrying an operation, no connection is held")
+                .register(registry);
+        this.attempts = DistributionSummary.builder("wallet.operation.attempts")
+                .description("Attempts per operation")
+                .register(registry);
+    }
+
+    public void recordOperation(OperationType operationType, Throwable error, long nanos) {
+        recordOperation(operationType.name(), error, nanos);
+    }
+
+    /**
+     * @param type an operation type or TRANSFER
+     */
+    public void recordOperation(String type, Throwable error, long nanos) {
+        Timer.builder("wallet.operation")
+                .tag("type", type)
+                .tag("outcome", outcome(error))
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Times a statement that waits for the row lock of the wallet.
+     */
+    public <T> T timeLock(String statement, UUID uuid, Supplier<T> lock) {
+        long start = System.nanoTime();
+        try {
+            return lock.get();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("wallet.lock.wait")
+                    .tag("statement", statement)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            contendedWallets.ifPresent(wallets -> wallets.record(uuid, elapsed));
+        }
+    }
+
+    public void asyncBacklog(Map<?, ?> pending) {
+        Gauge.builder("wallet.async.pending", pending, Map::size)
+                .description("Async operations accepted and not applied yet")
+                .register(registry);
+    }
+
+    public void asyncFailed(int count) {
+        registry.counter("wallet.async.failed").increment(count);
+    }
+
+    public void admissionLimit(AdaptiveConcurrencyLimit limit) {
+        Gauge.builder("wallet.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Adaptive limit of wallet operations in flight")
+                .register(registry);
+        Gauge.builder("wallet.admission.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Wallet operations in flight")
+                .register(registry);
+    }
+
+    public void admissionRejection(String reason) {
+        registry.counter("wallet.admission.rejections", "reason", reason).increment();
+    }
+
+    public void holdsExpired(int count) {
+        registry.counter("wallet.holds.expired").increment(count);
+    }
+
+    public void idempotencyKeysPurged(int count) {
+        registry.counter("wallet.idempotency.purged").increment(count);
+    }
+
+    public void replicaLag(WalletReplica replica) {
+        Gauge.builder("wallet.replica.lag", replica, WalletReplica::getLagMillis)
+                .description("Replay lag of the read replica")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    /**
+     * @param mode replica or read_your_writes
+     * @param target pool the transaction reads from, replica or primary
+     * @param reason ok, lag or unavailable
+     */
+    public void replicaRouting(String mode, String target, String reason) {
+        registry.counter("wallet.replica.routing", "mode", mode, "target", target, "reason", reason)
+                .increment();
+    }
+
+    public void rejection(String reason) {
+        registry.counter("wallet.operation.rejections", "reason", reason).increment();
+    }
+
+    public void retry(long backoffNanos) {
+        retries.increment();
+        retryBackoff.record(backoffNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void attempts(int count) {
+        attempts.record(count);
+    }
+
+    public void recovery(String reason) {
+        Counter.builder("wallet.operation.recoveries")
+                .description("Operations given up after retries, answered with 429")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    private static String outcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        if (error instanceof NotEnoughMoneyException) {
+            return "not_enough_money";
+        }
+        if (error instanceof WalletNoExistException) {
+            return "not_found";
+        }
+        if (error instanceof WalletOperationLockException) {
+            return "lock_timeout";
+        }
+        if (error instanceof WalletOverloadedException) {
+            return "overloaded";
+        }
+        if (error instanceof IdempotencyKeyConflictException) {
+            return "idempotency_conflict";
+        }
+        if (error instanceof WalletHoldNotFoundException) {
+            return "hold_not_found";
+        }
+        if (error instanceof WalletHoldConflictException) {
+            return "hold_conflict";
+        }
+        if (error instanceof WalletCrossShardException) {
+            return "cross_shard";
+        }
+        if (error instanceof WalletBalanceLimitException || error instanceof DataIntegrityViolationException) {
+            return "limit_exceeded";
+        }
+        return "error";
+    }
+}
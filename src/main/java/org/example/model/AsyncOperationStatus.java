@@ -0,0 +1,11 @@
+package org.example.model;
+
+public enum AsyncOperationStatus {
+    ACCEPTED,
+    APPLIED,
+    REJECTED,
+    /**
+     * Gave up after wallet.async.max-attempts, not applied.
+     */
+    FAILED
+}
@@ -0,0 +1,7 @@
+package org.example.model;
+
+public enum BatchItemStatus {
+    APPLIED,
+    REJECTED,
+    ROLLED_BACK
+}
@@ -0,0 +1,8 @@
+package org.example.model;
+
+public enum HoldStatus {
+    OPEN,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
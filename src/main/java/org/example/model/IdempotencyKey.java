@@ -0,0 +1,41 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request an Idempotency-Key was first used with, and the balance it was answered with.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys")
+public class IdempotencyKey {
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String idempotencyKey;
+
+    @Column(name = "wallet_uuid", nullable = false, updatable = false)
+    private UUID walletUuid;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation_type", length = 16, nullable = false, updatable = false)
+    private OperationType operationType;
+
+    /**
+     * In kopecks, like balance.
+     */
+    @Column(name = "amount", nullable = false, updatable = false)
+    private long amount;
+
+    @Column(name = "balance", nullable = false, updatable = false)
+    private long balance;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+}
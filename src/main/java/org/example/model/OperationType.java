@@ -2,5 +2,24 @@ package org.example.model;
 
 public enum OperationType {
     DEPOSIT,
-    WITHDRAW
+    WITHDRAW,
+    /**
+     * Hold operations, only written to the ledger by the holds endpoints. POST /v1/wallet takes DEPOSIT and WITHDRAW.
+     */
+    HOLD,
+    CAPTURE,
+    RELEASE;
+
+    public boolean isBalanceOperation() {
+        return this == DEPOSIT || this == WITHDRAW;
+    }
+
+    /**
+     * For DEPOSIT and WITHDRAW.
+     *
+     * @throws ArithmeticException on long overflow
+     */
+    public long apply(long balance, long amount) {
+        return this == DEPOSIT ? Math.addExact(balance, amount) : Math.subtractExact(balance, amount);
+    }
 }
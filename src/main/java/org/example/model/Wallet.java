@@ -2,11 +2,8 @@ package org.example.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMax;
-import jakarta.validation.constraints.DecimalMin;
-import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Positive;
-import java.math.BigDecimal;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -23,10 +20,23 @@ public class Wallet {
     @JsonProperty("wallet_id")
     private UUID uuid;
 
-    @Column(name = "balance", precision = 10, scale = 2, nullable = false)
-    @NotNull(message = "Balance must be not null")
+    /**
+     * In kopecks, 1000.50 is 100050.
+     */
+    @Column(name = "balance", nullable = false)
     @Positive(message = "Balance must be positive")
-    @DecimalMin(value = "0.00", message = "Balance must be at least 0.00")
-    @DecimalMax(value = "1000000000.00", message = "Your balance is too large, max is 1000000000")
-    private BigDecimal balance;
+    @Max(value = 100_000_000_000L, message = "Your balance is too large, max is 1000000000")
+    private long balance;
+
+    /**
+     * Number of balance slots, the wallets row is slot 0. Changed only through the stripes endpoint.
+     */
+    @Column(name = "stripes", nullable = false, insertable = false, updatable = false)
+    private int stripes = 1;
+
+    /**
+     * Money of open holds, in kopecks. It is not part of balance, balance is what can be withdrawn.
+     */
+    @Column(name = "reserved", nullable = false, insertable = false, updatable = false)
+    private long reserved;
 }
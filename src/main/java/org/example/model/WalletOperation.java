@@ -0,0 +1,41 @@
+package org.example.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Append-only ledger entry, written in the same transaction as the balance change.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "wallet_operations")
+public class WalletOperation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_uuid", nullable = false, updatable = false)
+    private UUID walletUuid;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "operation_type", length = 16, nullable = false, updatable = false)
+    private OperationType operationType;
+
+    /**
+     * In kopecks, like balance.
+     */
+    @Column(name = "amount", nullable = false, updatable = false)
+    private long amount;
+
+    @Column(name = "balance", nullable = false, updatable = false)
+    private long balance;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private Instant createdAt;
+}
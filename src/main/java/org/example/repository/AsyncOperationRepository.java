@@ -0,0 +1,80 @@
+package org.example.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.model.AsyncOperationStatus;
+import org.example.model.OperationType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outcomes of async operations. An outcome is written in the transaction that applies the operation,
+ * so an operation id found here is never applied again.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AsyncOperationRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<AsyncOperationStatusDto> findStatus(UUID operationId) {
+        return jdbcTemplate
+                .query(
+                        "SELECT operation_id, wallet_uuid, operation_type, amount, status, balance, reason "
+                                + "FROM async_operations WHERE operation_id = ?",
+                        (rs, rowNum) -> toStatus(rs),
+                        operationId)
+                .stream()
+                .findFirst();
+    }
+
+    public Set<UUID> findRecorded(Collection<UUID> operationIds) {
+        Set<UUID> recorded = new HashSet<>();
+        jdbcTemplate.query(
+                "SELECT operation_id FROM async_operations WHERE operation_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", operationIds.toArray())),
+                rs -> {
+                    recorded.add(rs.getObject("operation_id", UUID.class));
+                });
+        return recorded;
+    }
+
+    public void insertStatuses(List<AsyncOperationStatusDto> statuses) {
+        List<Object[]> args = new ArrayList<>(statuses.size());
+        statuses.forEach(status -> args.add(new Object[] {
+            status.operationId(),
+            status.walletUuid(),
+            status.operationType().name(),
+            status.amount(),
+            status.status().name(),
+            status.balance(),
+            status.reason()
+        }));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO async_operations "
+                        + "(operation_id, wallet_uuid, operation_type, amount, status, balance, reason) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                args);
+    }
+
+    private static AsyncOperationStatusDto toStatus(ResultSet rs) throws SQLException {
+        long balance = rs.getLong("balance");
+        boolean noBalance = rs.wasNull();
+        return new AsyncOperationStatusDto(
+                rs.getObject("operation_id", UUID.class),
+                rs.getObject("wallet_uuid", UUID.class),
+                OperationType.valueOf(rs.getString("operation_type")),
+                rs.getLong("amount"),
+                AsyncOperationStatus.valueOf(rs.getString("status")),
+                noBalance ? null : balance,
+                rs.getString("reason"));
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.repository;
+
+import java.util.UUID;
+import org.example.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * @return 0 when the key was already recorded by a concurrent transaction
+     */
+    @Modifying
+    @Query(
+            value =
+                    """
+                    INSERT INTO idempotency_keys (idempotency_key, wallet_uuid, operation_type, amount, balance)
+                    VALUES (:key, :uuid, :operationType, :amount, :balance)
+                    ON CONFLICT DO NOTHING
+                    """,
+            nativeQuery = true)
+    int insertIfAbsent(
+            @Param("key") String key,
+            @Param("uuid") UUID uuid,
+            @Param("operationType") String operationType,
+            @Param("amount") long amount,
+            @Param("balance") long balance);
+}
@@ -0,0 +1,127 @@
+package org.example.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGStatement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Same statements as {@link WalletRepository} on plain JDBC: no persistence context, no JPQL translation,
+ * no SQL logging, parameters are set without boxing and balances are read straight from the result set.
+ * The statements of {@link WalletSql} are taken with their named parameters replaced by ?, the setters
+ * follow the order the names appear in.
+ *
+ * <p>Statements are prepared on the server from the first execution. The driver keeps them per connection
+ * by SQL text, so every later execution only binds and executes.
+ */
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet", name = "repository", havingValue = "jdbc")
+public class JdbcWalletWriteRepository implements WalletWriteRepository {
+    private static final String FIND_TOTAL_BALANCE = positional(WalletSql.FIND_TOTAL_BALANCE);
+    private static final String EXISTS = "SELECT 1 FROM wallets WHERE uuid = ?";
+    private static final String FIND_WITH_LOCK =
+            "SELECT balance, stripes, reserved FROM wallets WHERE uuid = ? FOR UPDATE";
+    private static final String UPDATE_BALANCE = "UPDATE wallets SET balance = ? WHERE uuid = ?";
+    private static final String DEPOSIT = positional(WalletSql.DEPOSIT);
+    private static final String WITHDRAW = positional(WalletSql.WITHDRAW);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Optional<Long> findTotalBalance(UUID uuid) {
+        return jdbcTemplate.query(
+                FIND_TOTAL_BALANCE,
+                ps -> {
+                    serverPrepared(ps);
+                    ps.setObject(1, uuid);
+                    ps.setObject(2, uuid);
+                },
+                JdbcWalletWriteRepository::firstLong);
+    }
+
+    @Override
+    public boolean existsById(UUID uuid) {
+        return jdbcTemplate.query(
+                EXISTS,
+                ps -> {
+                    serverPrepared(ps);
+                    ps.setObject(1, uuid);
+                },
+                ResultSet::next);
+    }
+
+    @Override
+    public Optional<LockedWallet> findByUuidWithLock(UUID uuid) {
+        return jdbcTemplate.query(
+                FIND_WITH_LOCK,
+                ps -> {
+                    serverPrepared(ps);
+                    ps.setObject(1, uuid);
+                },
+                rs -> rs.next()
+                        ? Optional.of(new LockedWallet(rs.getLong(1), rs.getInt(2), rs.getLong(3)))
+                        : Optional.empty());
+    }
+
+    @Override
+    public void updateBalance(long balance, UUID uuid) {
+        jdbcTemplate.update(UPDATE_BALANCE, ps -> {
+            serverPrepared(ps);
+            ps.setLong(1, balance);
+            ps.setObject(2, uuid);
+        });
+    }
+
+    @Override
+    public Optional<Long> depositBalanceReturning(long amount, UUID uuid) {
+        return jdbcTemplate.query(
+                DEPOSIT,
+                ps -> {
+                    serverPrepared(ps);
+                    ps.setLong(1, amount);
+                    ps.setObject(2, uuid);
+                    ps.setLong(3, amount);
+                    ps.setObject(4, uuid);
+                    ps.setObject(5, uuid);
+                    ps.setLong(6, amount);
+                    ps.setObject(7, uuid);
+                },
+                JdbcWalletWriteRepository::firstLong);
+    }
+
+    @Override
+    public Optional<Long> withdrawBalanceReturning(long amount, UUID uuid) {
+        return jdbcTemplate.query(
+                WITHDRAW,
+                ps -> {
+                    serverPrepared(ps);
+                    ps.setLong(1, amount);
+                    ps.setObject(2, uuid);
+                    ps.setLong(3, amount);
+                    ps.setObject(4, uuid);
+                    ps.setLong(5, amount);
+                    ps.setObject(6, uuid);
+                },
+                JdbcWalletWriteRepository::firstLong);
+    }
+
+    private static String positional(String sql) {
+        return NamedParameterUtils.parseSqlStatementIntoString(sql);
+    }
+
+    private static void serverPrepared(PreparedStatement ps) throws SQLException {
+        ps.unwrap(PGStatement.class).setPrepareThreshold(1);
+    }
+
+    private static Optional<Long> firstLong(ResultSet rs) throws SQLException {
+        return rs.next() ? Optional.of(rs.getLong(1)) : Optional.empty();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+@Repository
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet", name = "repository", havingValue = "jpa", matchIfMissing = true)
+public class JpaWalletWriteRepository implements WalletWriteRepository {
+    private final WalletRepository repository;
+
+    @Override
+    public Optional<Long> findTotalBalance(UUID uuid) {
+        return repository.findTotalBalance(uuid);
+    }
+
+    @Override
+    public boolean existsById(UUID uuid) {
+        return repository.existsById(uuid);
+    }
+
+    @Override
+    public Optional<LockedWallet> findByUuidWithLock(UUID uuid) {
+        return repository
+                .findByUuidWithLock(uuid)
+                .map(wallet -> new LockedWallet(wallet.getBalance(), wallet.getStripes(), wallet.getReserved()));
+    }
+
+    @Override
+    public void updateBalance(long balance, UUID uuid) {
+        repository.updateBalance(balance, uuid);
+    }
+
+    @Override
+    public Optional<Long> depositBalanceReturning(long amount, UUID uuid) {
+        return repository.depositBalanceReturning(amount, uuid);
+    }
+
+    @Override
+    public Optional<Long> withdrawBalanceReturning(long amount, UUID uuid) {
+        return repository.withdrawBalanceReturning(amount, uuid);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.repository;
+
+/**
+ * Wallets row as read under its row lock, balance of the row only, without slots. Reserved is held
+ * by open holds and counts against the max balance together with the balance.
+ */
+public record LockedWallet(long balance, int stripes, long reserved) {}
@@ -0,0 +1,49 @@
+package org.example.repository;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletBalanceItemDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based balance reads for many wallets at once.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBalanceRepository {
+    /**
+     * Rows are fetched from a cursor in chunks of this size, never all at once.
+     */
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Looks up all wallets with one statement and passes the totals to the consumer in the given order,
+     * a missing wallet is passed as not found. Needs a transaction for the cursor.
+     */
+    public void streamTotalBalances(Collection<UUID> uuids, Consumer<WalletBalanceItemDto> consumer) {
+        jdbcTemplate.query(
+                """
+                SELECT requested.uuid, w.balance + CASE WHEN w.stripes > 1 THEN
+                    (SELECT COALESCE(SUM(s.balance), 0)::BIGINT FROM wallet_balance_slots s WHERE s.wallet_uuid = w.uuid)
+                ELSE 0 END AS balance
+                FROM unnest(?::uuid[]) WITH ORDINALITY AS requested (uuid, position)
+                LEFT JOIN wallets w ON w.uuid = requested.uuid
+                ORDER BY requested.position
+                """,
+                ps -> {
+                    ps.setFetchSize(FETCH_SIZE);
+                    ps.setArray(1, ps.getConnection().createArrayOf("uuid", uuids.toArray()));
+                },
+                rs -> {
+                    long balance = rs.getLong("balance");
+                    boolean found = !rs.wasNull();
+                    consumer.accept(
+                            new WalletBalanceItemDto(rs.getObject("uuid", UUID.class), found, found ? balance : null));
+                });
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.model.IdempotencyKey;
+import org.example.model.WalletOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain JDBC access for multi-wallet batches, joins the surrounding JPA transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBatchRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks all given wallets with one statement. Rows are locked in uuid order,
+     * so concurrent batches always take the locks in the same order and cannot deadlock.
+     *
+     * @return locked wallets, a missing wallet is absent
+     */
+    public Map<UUID, LockedWallet> lockWallets(Collection<UUID> uuids) {
+        Map<UUID, LockedWallet> wallets = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT uuid, balance, stripes, reserved FROM wallets WHERE uuid = ANY(?) ORDER BY uuid FOR UPDATE",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", uuids.toArray())),
+                rs -> {
+                    wallets.put(
+                            rs.getObject("uuid", UUID.class),
+                            new LockedWallet(rs.getLong("balance"), rs.getInt("stripes"), rs.getLong("reserved")));
+                });
+        return wallets;
+    }
+
+    public void updateBalances(Map<UUID, Long> balances) {
+        List<Object[]> args = new ArrayList<>(balances.size());
+        balances.forEach((uuid, balance) -> args.add(new Object[] {balance, uuid}));
+        jdbcTemplate.batchUpdate("UPDATE wallets SET balance = ? WHERE uuid = ?", args);
+    }
+
+    /**
+     * Appends ledger rows for applied operations with one JDBC batch.
+     */
+    public void insertOperations(List<WalletOperation> operations) {
+        List<Object[]> args = new ArrayList<>(operations.size());
+        operations.forEach(operation -> args.add(new Object[] {
+            operation.getWalletUuid(),
+            operation.getOperationType().name(),
+            operation.getAmount(),
+            operation.getBalance()
+        }));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance) VALUES (?, ?, ?, ?)",
+                args);
+    }
+
+    /**
+     * Records the keys with one statement. A key recorded by another transaction is skipped, the insert
+     * waits for that transaction, so a skipped key is committed and can be read right after.
+     *
+     * @return the skipped keys
+     */
+    public Set<String> insertIdempotencyKeys(List<IdempotencyKey> keys) {
+        String[] names = new String[keys.size()];
+        UUID[] walletUuids = new UUID[keys.size()];
+        String[] operationTypes = new String[keys.size()];
+        Long[] amounts = new Long[keys.size()];
+        Long[] balances = new Long[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            IdempotencyKey key = keys.get(i);
+            names[i] = key.getIdempotencyKey();
+            walletUuids[i] = key.getWalletUuid();
+            operationTypes[i] = key.getOperationType().name();
+            amounts[i] = key.getAmount();
+            balances[i] = key.getBalance();
+        }
+        Set<String> skipped = new LinkedHashSet<>(List.of(names));
+        jdbcTemplate.query(
+                """
+                INSERT INTO idempotency_keys (idempotency_key, wallet_uuid, operation_type, amount, balance)
+                SELECT * FROM unnest(?::varchar[], ?::uuid[], ?::varchar[], ?::bigint[], ?::bigint[])
+                ON CONFLICT (idempotency_key) DO NOTHING
+                RETURNING idempotency_key
+                """,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", names));
+                    ps.setArray(2, ps.getConnection().createArrayOf("uuid", walletUuids));
+                    ps.setArray(3, ps.getConnection().createArrayOf("varchar", operationTypes));
+                    ps.setArray(4, ps.getConnection().createArrayOf("bigint", amounts));
+                    ps.setArray(5, ps.getConnection().createArrayOf("bigint", balances));
+                },
+                rs -> {
+                    skipped.remove(rs.getString(1));
+                });
+        return skipped;
+    }
+
+    public void deleteIdempotencyKeys(Collection<String> keys) {
+        jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE idempotency_key = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", keys.toArray())));
+    }
+
+    /**
+     * Deletes up to limit keys recorded before the given time, oldest first, in the current transaction.
+     * Keys locked by another purge are skipped.
+     */
+    public int deleteIdempotencyKeysBefore(Instant createdBefore, int limit) {
+        return jdbcTemplate.update(
+                """
+                DELETE FROM idempotency_keys WHERE idempotency_key IN (
+                    SELECT idempotency_key FROM idempotency_keys WHERE created_at < ?
+                    ORDER BY created_at LIMIT ? FOR UPDATE SKIP LOCKED
+                )
+                """,
+                Timestamp.from(createdBefore),
+                limit);
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletHoldDto;
+import org.example.model.HoldStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain JDBC access for holds, joins the surrounding transaction. A hold moves money from the wallet balance
+ * to reserved, a capture takes it out of reserved, a release or an expiry moves it back to the balance.
+ * Every change appends a ledger row with the wallet total in the same statement.
+ *
+ * <p>Capture and release lock the hold row first, then the wallets row. The sweeper skips locked holds,
+ * so it never waits for a capture.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletHoldRepository {
+    private static final String SLOTS_TOTAL =
+            """
+            CASE WHEN updated.stripes > 1 THEN
+                (SELECT COALESCE(SUM(s.balance), 0)::BIGINT FROM wallet_balance_slots s WHERE s.wallet_uuid = updated.uuid)
+            ELSE 0 END
+            """;
+    private static final String CLOSE =
+            """
+            WITH closed AS (
+                UPDATE wallet_holds SET status = ?, captured = COALESCE(?, amount), closed_at = now()
+                WHERE id = ? AND status = 'OPEN' AND amount >= COALESCE(?, 0) %s
+                RETURNING id, wallet_uuid, amount, captured, status, expires_at
+            ), updated AS (
+                UPDATE wallets w SET balance = w.balance + closed.amount - closed.captured,
+                    reserved = w.reserved - closed.amount
+                FROM closed WHERE w.uuid = closed.wallet_uuid
+                RETURNING w.uuid, w.balance, w.reserved, w.stripes
+            ), ledger AS (
+                INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+                SELECT updated.uuid, ?, CASE WHEN closed.captured > 0 THEN closed.captured ELSE closed.amount END,
+                    updated.balance + %s
+                FROM updated, closed
+                RETURNING balance
+            )
+            SELECT closed.id, closed.wallet_uuid, closed.amount, closed.captured, closed.status, closed.expires_at,
+                ledger.balance, updated.reserved
+            FROM closed, updated, ledger
+            """;
+    private static final String CAPTURE = CLOSE.formatted("AND expires_at > now()", SLOTS_TOTAL);
+    private static final String RELEASE = CLOSE.formatted("", SLOTS_TOTAL);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Guarded like a withdraw, only the wallets row balance counts.
+     *
+     * @return the open hold, empty when the wallet does not exist or its row has not enough money
+     */
+    public Optional<WalletHoldDto> hold(UUID holdId, UUID uuid, long amount, Instant expiresAt) {
+        return jdbcTemplate.query(
+                """
+                WITH updated AS (
+                    UPDATE wallets SET balance = balance - ?, reserved = reserved + ?
+                    WHERE uuid = ? AND balance >= ? RETURNING uuid, balance, reserved, stripes
+                ), hold AS (
+                    INSERT INTO wallet_holds (id, wallet_uuid, amount, status, expires_at)
+                    SELECT ?, uuid, ?, 'OPEN', ? FROM updated
+                    RETURNING id, wallet_uuid, amount, captured, status, expires_at
+                ), ledger AS (
+                    INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+                    SELECT uuid, 'HOLD', ?, balance + %s FROM updated
+                    RETURNING balance
+                )
+                SELECT hold.*, ledger.balance, updated.reserved FROM hold, updated, ledger
+                """
+                        .formatted(SLOTS_TOTAL),
+                ps -> {
+                    ps.setLong(1, amount);
+                    ps.setLong(2, amount);
+                    ps.setObject(3, uuid);
+                    ps.setLong(4, amount);
+                    ps.setObject(5, holdId);
+                    ps.setLong(6, amount);
+                    ps.setObject(7, expiresAt.atOffset(ZoneOffset.UTC));
+                    ps.setLong(8, amount);
+                },
+                rs -> rs.next() ? Optional.of(toHold(rs, true)) : Optional.empty());
+    }
+
+    /**
+     * Captures an open hold that has not expired yet, the part that is not captured goes back to the balance.
+     *
+     * @param amount null captures the whole hold
+     * @return the captured hold, empty when there is no such open hold or it is smaller than the amount
+     */
+    public Optional<WalletHoldDto> capture(UUID holdId, Long amount) {
+        return close(CAPTURE, HoldStatus.CAPTURED, "CAPTURE", holdId, amount);
+    }
+
+    /**
+     * @return the released hold, empty when there is no such open hold
+     */
+    public Optional<WalletHoldDto> release(UUID holdId) {
+        return close(RELEASE, HoldStatus.RELEASED, "RELEASE", holdId, 0L);
+    }
+
+    public Optional<WalletHoldDto> findById(UUID holdId) {
+        return jdbcTemplate.query(
+                "SELECT id, wallet_uuid, amount, captured, status, expires_at FROM wallet_holds WHERE id = ?",
+                rs -> rs.next() ? Optional.of(toHold(rs, false)) : Optional.empty(),
+                holdId);
+    }
+
+    /**
+     * Locks the oldest expired open holds, skipping holds that are being captured or released right now.
+     * Reads the partial index on expires_at only, closed holds are not in it.
+     */
+    public List<ExpiredHold> lockExpired(int limit) {
+        return jdbcTemplate.query(
+                """
+                SELECT id, wallet_uuid, amount FROM wallet_holds
+                WHERE status = 'OPEN' AND expires_at <= now()
+                ORDER BY expires_at LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """,
+                (rs, rowNum) -> new ExpiredHold(
+                        rs.getObject("id", UUID.class), rs.getObject("wallet_uuid", UUID.class), rs.getLong("amount")),
+                limit);
+    }
+
+    /**
+     * Expires locked holds and moves their money back to the balance, one RELEASE ledger row per wallet.
+     * The caller must hold the hold row locks and the wallets row locks.
+     *
+     * @return wallet totals after the release
+     */
+    public Map<UUID, Long> expire(List<ExpiredHold> holds) {
+        Map<UUID, Long> balances = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(holds.size());
+        holds.forEach(hold -> ids.add(hold.id()));
+        jdbcTemplate.query(
+                """
+                WITH expired AS (
+                    UPDATE wallet_holds SET status = 'EXPIRED', closed_at = now()
+                    WHERE id = ANY(?) RETURNING wallet_uuid, amount
+                ), released AS (
+                    SELECT wallet_uuid, SUM(amount)::BIGINT AS amount FROM expired GROUP BY wallet_uuid
+                ), updated AS (
+                    UPDATE wallets w SET balance = w.balance + released.amount, reserved = w.reserved - released.amount
+                    FROM released WHERE w.uuid = released.wallet_uuid
+                    RETURNING w.uuid, w.balance, w.stripes, released.amount
+                )
+                INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+                SELECT uuid, 'RELEASE', amount, balance + %s FROM updated
+                RETURNING wallet_uuid, balance
+                """
+                        .formatted(SLOTS_TOTAL),
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", ids.toArray())),
+                rs -> {
+                    balances.put(rs.getObject("wallet_uuid", UUID.class), rs.getLong("balance"));
+                });
+        return balances;
+    }
+
+    private Optional<WalletHoldDto> close(
+            String sql, HoldStatus status, String operationType, UUID holdId, Long amount) {
+        return jdbcTemplate.query(
+                sql,
+                ps -> {
+                    ps.setString(1, status.name());
+                    ps.setObject(2, amount, Types.BIGINT);
+                    ps.setObject(3, holdId);
+                    ps.setObject(4, amount, Types.BIGINT);
+                    ps.setString(5, operationType);
+                },
+                rs -> rs.next() ? Optional.of(toHold(rs, true)) : Optional.empty());
+    }
+
+    private static WalletHoldDto toHold(ResultSet rs, boolean withBalance) throws SQLException {
+        return new WalletHoldDto(
+                rs.getObject("id", UUID.class),
+                rs.getObject("wallet_uuid", UUID.class),
+                rs.getLong("amount"),
+                rs.getLong("captured"),
+                HoldStatus.valueOf(rs.getString("status")),
+                rs.getObject("expires_at", OffsetDateTime.class).toInstant(),
+                withBalance ? rs.getLong("balance") : null,
+                withBalance ? rs.getLong("reserved") : null);
+    }
+
+    public record ExpiredHold(UUID id, UUID walletUuid, long amount) {}
+}
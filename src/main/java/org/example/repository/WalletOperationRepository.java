@@ -0,0 +1,23 @@
+package org.example.repository;
+
+import java.util.List;
+import java.util.UUID;
+import org.example.model.WalletOperation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WalletOperationRepository extends JpaRepository<WalletOperation, Long> {
+
+    @Query("SELECT o FROM WalletOperation o WHERE o.walletUuid = :uuid ORDER BY o.id DESC")
+    List<WalletOperation> findLatest(@Param("uuid") UUID uuid, Limit limit);
+
+    /**
+     * Keyset page: reads the (wallet_uuid, id) index from the cursor on, without OFFSET.
+     */
+    @Query("SELECT o FROM WalletOperation o WHERE o.walletUuid = :uuid AND o.id < :cursor ORDER BY o.id DESC")
+    List<WalletOperation> findBefore(@Param("uuid") UUID uuid, @Param("cursor") Long cursor, Limit limit);
+}
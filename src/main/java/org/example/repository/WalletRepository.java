@@ -1,8 +1,6 @@
 package org.example.repository;
 
 import jakarta.persistence.LockModeType;
-import jakarta.persistence.QueryHint;
-import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 import org.example.model.Wallet;
@@ -12,19 +10,32 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface WalletRepository extends JpaRepository<Wallet, UUID> {
-
     Optional<Wallet> findByUuid(UUID uuid);
 
+    @Query(value = WalletSql.FIND_TOTAL_BALANCE, nativeQuery = true)
+    Optional<Long> findTotalBalance(@Param("uuid") UUID uuid);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "1000"))
     @Query("SELECT w FROM Wallet w WHERE w.uuid = :uuid")
     Optional<Wallet> findByUuidWithLock(@Param("uuid") UUID uuid);
 
     @Modifying
-    @Query("UPDATE Wallet w SET w.balance = w.balance + :amount WHERE w.uuid = :uuid")
-    void depositBalance(@Param("amount") BigDecimal amount, @Param("uuid") UUID uuid);
+    @Query("UPDATE Wallet w SET w.balance = :balance WHERE w.uuid = :uuid")
+    void updateBalance(@Param("balance") long balance, @Param("uuid") UUID uuid);
 
-    @Modifying
-    @Query("UPDATE Wallet w SET w.balance = w.balance - :amount WHERE w.uuid = :uuid")
-    void withdrawBalance(@Param("amount") BigDecimal amount, @Param("uuid") UUID uuid);
+    /**
+     * Single round trip guarded deposit into the wallets row, the ledger row is appended by the same statement.
+     * Returns the wallet total, empty result means the wallet does not exist or the deposit would exceed
+     * the max balance, use {@link #existsById} to tell them apart.
+     */
+    @Query(value = WalletSql.DEPOSIT, nativeQuery = true)
+    Optional<Long> depositBalanceReturning(@Param("amount") long amount, @Param("uuid") UUID uuid);
+
+    /**
+     * Single round trip guarded withdraw from the wallets row, the ledger row is appended by the same statement.
+     * Returns the wallet total, empty result means the wallet does not exist or the row has not enough money,
+     * use {@link #existsById} to tell them apart.
+     */
+    @Query(value = WalletSql.WITHDRAW, nativeQuery = true)
+    Optional<Long> withdrawBalanceReturning(@Param("amount") long amount, @Param("uuid") UUID uuid);
 }
@@ -0,0 +1,153 @@
+package org.example.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.example.util.WalletServiceValidator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Balance slots of striped wallets. The wallets row is slot 0, slots 1..stripes-1 live in
+ * wallet_balance_slots, the wallet balance is the sum of all of them.
+ *
+ * <p>Lock order is the wallets row first, then its slots. Single slot operations lock one row only.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletSlotRepository {
+    /**
+     * Balance of the other slots as seen by the statement, so the ledger gets the wallet total.
+     */
+    private static final String OTHER_SLOTS_TOTAL =
+            "(SELECT COALESCE(SUM(balance), 0)::BIGINT FROM wallet_balance_slots WHERE wallet_uuid = ? AND slot <> updated.slot)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Integer> findStripes(UUID uuid) {
+        return jdbcTemplate
+                .query("SELECT stripes FROM wallets WHERE uuid = ?", (rs, rowNum) -> rs.getInt(1), uuid)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Guarded deposit into one slot, the wallet total of the row, all slots and reserved money must stay
+     * within MAX_BALANCE, so folding the slots later cannot break chck_wallets_balance. Deposits into
+     * other slots of the same wallet that are not committed yet are not seen by the check.
+     * Empty result means there is no such slot or the deposit would exceed the max balance.
+     */
+    public Optional<Long> depositToSlot(UUID uuid, int slot, long amount) {
+        return first(
+                """
+                WITH updated AS (
+                    UPDATE wallet_balance_slots SET balance = balance + ?
+                    WHERE wallet_uuid = ? AND slot = ?
+                    AND (SELECT balance + reserved FROM wallets WHERE uuid = ?)
+                        + (SELECT COALESCE(SUM(balance), 0) FROM wallet_balance_slots WHERE wallet_uuid = ?)
+                        + ? <= %d
+                    RETURNING slot, balance
+                )
+                INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+                SELECT ?, 'DEPOSIT', ?, updated.balance + (SELECT balance FROM wallets WHERE uuid = ?) + %s
+                FROM updated
+                RETURNING balance
+                """
+                        .formatted(WalletServiceValidator.MAX_BALANCE, OTHER_SLOTS_TOTAL),
+                amount,
+                uuid,
+                slot,
+                uuid,
+                uuid,
+                amount,
+                uuid,
+                amount,
+                uuid,
+                uuid);
+    }
+
+    /**
+     * Withdraw from any slot that has enough money and is not locked right now.
+     * Empty result means there is no such slot.
+     */
+    public Optional<Long> withdrawFromSlot(UUID uuid, long amount) {
+        return first(
+                """
+                WITH picked AS (
+                    SELECT slot FROM wallet_balance_slots
+                    WHERE wallet_uuid = ? AND balance >= ?
+                    ORDER BY random() LIMIT 1
+                    FOR UPDATE SKIP LOCKED
+                ), updated AS (
+                    UPDATE wallet_balance_slots s SET balance = s.balance - ?
+                    FROM picked WHERE s.wallet_uuid = ? AND s.slot = picked.slot
+                    RETURNING s.slot, s.balance
+                )
+                INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+                SELECT ?, 'WITHDRAW', ?, updated.balance + (SELECT balance FROM wallets WHERE uuid = ?) + %s
+                FROM updated
+                RETURNING balance
+                """
+                        .formatted(OTHER_SLOTS_TOTAL),
+                uuid,
+                amount,
+                amount,
+                uuid,
+                uuid,
+                amount,
+                uuid,
+                uuid);
+    }
+
+    /**
+     * Moves the money of all slots into the wallets rows. The caller must hold the wallets row locks.
+     *
+     * @return moved amount per wallet, wallets without money in slots are absent
+     */
+    public Map<UUID, Long> foldSlots(Collection<UUID> uuids) {
+        Map<UUID, Long> folded = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT wallet_uuid, balance FROM wallet_balance_slots "
+                        + "WHERE wallet_uuid = ANY(?) ORDER BY wallet_uuid, slot FOR UPDATE",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("uuid", uuids.toArray())),
+                rs -> {
+                    folded.merge(rs.getObject("wallet_uuid", UUID.class), rs.getLong("balance"), Long::sum);
+                });
+        folded.values().removeIf(amount -> amount == 0);
+        if (folded.isEmpty()) {
+            return folded;
+        }
+        jdbcTemplate.update(
+                "UPDATE wallet_balance_slots SET balance = 0 WHERE wallet_uuid = ANY(?) AND balance > 0",
+                ps -> ps.setArray(
+                        1,
+                        ps.getConnection().createArrayOf("uuid", folded.keySet().toArray())));
+        List<Object[]> args = new ArrayList<>(folded.size());
+        folded.forEach((uuid, amount) -> args.add(new Object[] {amount, uuid}));
+        jdbcTemplate.batchUpdate("UPDATE wallets SET balance = balance + ? WHERE uuid = ?", args);
+        return folded;
+    }
+
+    /**
+     * Recreates empty slots 1..stripes-1. The caller must hold the wallets row lock
+     * and fold the slots first.
+     */
+    public void resetSlots(UUID uuid, int stripes) {
+        jdbcTemplate.update("DELETE FROM wallet_balance_slots WHERE wallet_uuid = ?", uuid);
+        jdbcTemplate.update(
+                "INSERT INTO wallet_balance_slots (wallet_uuid, slot) SELECT ?, generate_series(1, ? - 1)",
+                uuid,
+                stripes);
+        jdbcTemplate.update("UPDATE wallets SET stripes = ? WHERE uuid = ?", stripes, uuid);
+    }
+
+    private Optional<Long> first(String sql, Object... args) {
+        return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getLong(1), args).stream()
+                .findFirst();
+    }
+}
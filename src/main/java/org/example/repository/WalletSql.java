@@ -0,0 +1,67 @@
+package org.example.repository;
+
+import org.example.util.WalletServiceValidator;
+
+/**
+ * Statements of the single wallet path shared by {@link WalletRepository}, {@link JdbcWalletWriteRepository}
+ * and the reactive service, so the three cannot drift apart. Parameters are named, :uuid and :amount,
+ * {@link JdbcWalletWriteRepository} turns them into positional ones.
+ */
+public final class WalletSql {
+    /**
+     * Balance of slots 1..stripes-1, only looked up for striped wallets.
+     */
+    public static final String SLOTS_TOTAL =
+            """
+            CASE WHEN stripes > 1 THEN
+                (SELECT COALESCE(SUM(s.balance), 0)::BIGINT FROM wallet_balance_slots s WHERE s.wallet_uuid = :uuid)
+            ELSE 0 END
+            """;
+
+    /**
+     * Wallet total including slots, no row when the wallet does not exist.
+     */
+    public static final String FIND_TOTAL_BALANCE =
+            "SELECT balance + " + SLOTS_TOTAL + " AS balance FROM wallets WHERE uuid = :uuid";
+
+    /**
+     * Guarded deposit into the wallets row and its ledger row in one statement, returns the wallet total.
+     * The wallet total with reserved money must stay within the bound of chck_wallets_reserved.
+     */
+    public static final String DEPOSIT =
+            """
+            WITH updated AS (
+                UPDATE wallets SET balance = balance + :amount
+                WHERE uuid = :uuid AND balance + reserved + :amount + """
+                    + SLOTS_TOTAL
+                    + "    <= " + WalletServiceValidator.MAX_BALANCE + "\n"
+                    + """
+                RETURNING balance, stripes
+            )
+            INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+            SELECT :uuid, 'DEPOSIT', :amount, balance + """
+                    + SLOTS_TOTAL
+                    + """
+            FROM updated
+            RETURNING balance
+            """;
+
+    /**
+     * Guarded withdraw from the wallets row and its ledger row in one statement, returns the wallet total.
+     */
+    public static final String WITHDRAW =
+            """
+            WITH updated AS (
+                UPDATE wallets SET balance = balance - :amount
+                WHERE uuid = :uuid AND balance >= :amount RETURNING balance, stripes
+            )
+            INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+            SELECT :uuid, 'WITHDRAW', :amount, balance + """
+                    + SLOTS_TOTAL
+                    + """
+            FROM updated
+            RETURNING balance
+            """;
+
+    private WalletSql() {}
+}
@@ -0,0 +1,74 @@
+package org.example.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain JDBC access for transfers, joins the surrounding transaction. A transfer is two round trips:
+ * lock both rows, then one statement for both balances and both ledger rows.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletTransferRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks both wallets in uuid order, so opposite transfers between the same wallets cannot deadlock.
+     *
+     * @return locked wallets, a missing wallet is absent
+     */
+    public Map<UUID, LockedWallet> lockWallets(UUID first, UUID second) {
+        Map<UUID, LockedWallet> wallets = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT uuid, balance, stripes, reserved FROM wallets WHERE uuid IN (?, ?) ORDER BY uuid FOR UPDATE",
+                rs -> {
+                    wallets.put(
+                            rs.getObject("uuid", UUID.class),
+                            new LockedWallet(rs.getLong("balance"), rs.getInt("stripes"), rs.getLong("reserved")));
+                },
+                first,
+                second);
+        return wallets;
+    }
+
+    /**
+     * Moves the amount between the wallets rows and appends a WITHDRAW and a DEPOSIT ledger row.
+     * The caller must hold both row locks and check the balance.
+     *
+     * @return wallet totals after the transfer
+     */
+    public Map<UUID, Long> transfer(UUID from, UUID to, long amount) {
+        Map<UUID, Long> balances = new HashMap<>();
+        jdbcTemplate.query(
+                """
+                WITH debited AS (
+                    UPDATE wallets SET balance = balance - ? WHERE uuid = ? RETURNING uuid, balance, stripes
+                ), credited AS (
+                    UPDATE wallets SET balance = balance + ? WHERE uuid = ? RETURNING uuid, balance, stripes
+                ), changed AS (
+                    SELECT uuid, 'WITHDRAW' AS operation_type, balance, stripes FROM debited
+                    UNION ALL
+                    SELECT uuid, 'DEPOSIT', balance, stripes FROM credited
+                )
+                INSERT INTO wallet_operations (wallet_uuid, operation_type, amount, balance)
+                SELECT uuid, operation_type, ?, balance + CASE WHEN stripes > 1 THEN
+                    (SELECT COALESCE(SUM(s.balance), 0)::BIGINT FROM wallet_balance_slots s WHERE s.wallet_uuid = changed.uuid)
+                ELSE 0 END
+                FROM changed
+                RETURNING wallet_uuid, balance
+                """,
+                rs -> {
+                    balances.put(rs.getObject("wallet_uuid", UUID.class), rs.getLong("balance"));
+                },
+                amount,
+                from,
+                amount,
+                to,
+                amount);
+        return balances;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Statements of the single wallet request path. Two implementations, selected with wallet.repository:
+ * jpa (default) goes through Hibernate, jdbc runs the same SQL on JdbcTemplate without entities.
+ * Both join the surrounding transaction.
+ */
+public interface WalletWriteRepository {
+    /**
+     * Wallet total including slots, empty when the wallet does not exist.
+     */
+    Optional<Long> findTotalBalance(UUID uuid);
+
+    boolean existsById(UUID uuid);
+
+    Optional<LockedWallet> findByUuidWithLock(UUID uuid);
+
+    void updateBalance(long balance, UUID uuid);
+
+    /**
+     * Single round trip deposit into the wallets row, the ledger row is appended by the same statement.
+     * Returns the wallet total, empty result means the wallet does not exist.
+     */
+    Optional<Long> depositBalanceReturning(long amount, UUID uuid);
+
+    /**
+     * Single round trip guarded withdraw from the wallets row, the ledger row is appended by the same statement.
+     * Returns the wallet total, empty result means the wallet does not exist or the row has not enough money,
+     * use {@link #existsById} to tell them apart.
+     */
+    Optional<Long> withdrawBalanceReturning(long amount, UUID uuid);
+}
@@ -0,0 +1,12 @@
+package org.example.service;
+
+import java.util.UUID;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveWalletService {
+    Mono<WalletBalanceResponseDto> processWalletOperation(WalletRequestPostDto dto);
+
+    Mono<WalletBalanceResponseDto> getBalance(UUID uuid);
+}
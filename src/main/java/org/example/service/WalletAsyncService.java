@@ -0,0 +1,11 @@
+package org.example.service;
+
+import java.util.UUID;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.dto.WalletRequestPostDto;
+
+public interface WalletAsyncService {
+    AsyncOperationStatusDto accept(WalletRequestPostDto dto);
+
+    AsyncOperationStatusDto getStatus(UUID operationId);
+}
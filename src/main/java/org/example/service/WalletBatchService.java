@@ -0,0 +1,8 @@
+package org.example.service;
+
+import org.example.dto.WalletBatchRequestDto;
+import org.example.dto.WalletBatchResponseDto;
+
+public interface WalletBatchService {
+    WalletBatchResponseDto processBatch(WalletBatchRequestDto dto);
+}
@@ -0,0 +1,18 @@
+package org.example.service;
+
+import java.util.UUID;
+import org.example.dto.WalletHoldDto;
+import org.example.dto.WalletHoldRequestDto;
+
+public interface WalletHoldService {
+    WalletHoldDto hold(WalletHoldRequestDto dto);
+
+    /**
+     * @param amount 0 captures the whole hold
+     */
+    WalletHoldDto capture(UUID holdId, long amount);
+
+    WalletHoldDto release(UUID holdId);
+
+    WalletHoldDto getHold(UUID holdId);
+}
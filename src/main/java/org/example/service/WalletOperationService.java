@@ -0,0 +1,8 @@
+package org.example.service;
+
+import java.util.UUID;
+import org.example.dto.WalletOperationPageDto;
+
+public interface WalletOperationService {
+    WalletOperationPageDto getOperations(UUID uuid, Long cursor, int limit);
+}
@@ -1,13 +1,25 @@
 package org.example.service;
 
+import java.util.Collection;
 import java.util.UUID;
+import java.util.function.Consumer;
+import org.example.dto.WalletBalanceItemDto;
 import org.example.dto.WalletBalanceResponseDto;
 import org.example.dto.WalletRequestPostDto;
 
 public interface WalletService {
-    void processWalletOperation(WalletRequestPostDto dto);
+    WalletBalanceResponseDto processWalletOperation(WalletRequestPostDto dto);
 
-    void processWalletOperationForProxy(WalletRequestPostDto dto);
+    default WalletBalanceResponseDto getBalance(UUID uuid) {
+        return getBalance(uuid, false);
+    }
 
-    WalletBalanceResponseDto getBalance(UUID uuid);
+    /**
+     * @param readYourWrites read from the replica only while it is close behind the primary
+     */
+    WalletBalanceResponseDto getBalance(UUID uuid, boolean readYourWrites);
+
+    void streamBalances(Collection<UUID> uuids, Consumer<WalletBalanceItemDto> consumer);
+
+    WalletBalanceResponseDto setStripes(UUID uuid, int stripes);
 }
@@ -0,0 +1,8 @@
+package org.example.service;
+
+import org.example.dto.WalletTransferRequestDto;
+import org.example.dto.WalletTransferResponseDto;
+
+public interface WalletTransferService {
+    WalletTransferResponseDto transfer(WalletTransferRequestDto dto);
+}
@@ -0,0 +1,121 @@
+package org.example.service.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Global in-flight limit that follows the observed latency, a gradient limit like Netflix concurrency-limits.
+ *
+ * <p>Every sample is compared to the long-term average latency. While latency stays within
+ * {@link #TOLERANCE} of the average, the limit grows by about sqrt(limit) per sample, as long as it
+ * is actually used. When latency rises above that, something below is queueing (the pool,
+ * row locks, Postgres), and the limit shrinks in proportion, by half at most. The new limit is
+ * smoothed into the old one. An operation that gave up on a lock cuts the limit by 10%.
+ *
+ * <p>Releases do not lock: the estimate and the average are one immutable state replaced by CAS,
+ * a release that loses the race computes its sample again on the winner's state.
+ */
+public class AdaptiveConcurrencyLimit {
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+    /**
+     * Long-term average is an exponential average over about this many samples.
+     */
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicReference<Estimate> estimate;
+    private volatile int limit;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.limit = initialLimit;
+        this.estimate = new AtomicReference<>(new Estimate(initialLimit, 0));
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param rttNanos time the operation held the permit
+     * @param dropped the operation gave up on a lock, the latency sample is meaningless
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        update(current, rttNanos, dropped);
+    }
+
+    /**
+     * Releases without a sample, for operations whose latency says nothing about the database.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(int inFlightAtRelease, long rttNanos, boolean dropped) {
+        while (true) {
+            Estimate current = estimate.get();
+            Estimate next = next(current, inFlightAtRelease, rttNanos, dropped);
+            if (estimate.compareAndSet(current, next)) {
+                limit = (int) next.limit();
+                return;
+            }
+        }
+    }
+
+    private Estimate next(Estimate current, int inFlightAtRelease, long rttNanos, boolean dropped) {
+        double estimatedLimit = current.limit();
+        if (dropped) {
+            return new Estimate(clamp(estimatedLimit * BACKOFF_RATIO), current.longRtt());
+        }
+        double rtt = Math.max(rttNanos, 1);
+        double longRtt = current.longRtt();
+        if (longRtt == 0) {
+            longRtt = rtt;
+        } else {
+            longRtt += (rtt - longRtt) * 2 / (LONG_WINDOW + 1);
+        }
+        // After a spike the average is far above current latency, bring it down faster
+        if (longRtt > rtt * 2) {
+            longRtt *= 0.95;
+        }
+        // Only grow a limit that is actually used, idle traffic proves nothing
+        if (inFlightAtRelease * 2 < estimatedLimit) {
+            return new Estimate(estimatedLimit, longRtt);
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        return new Estimate(clamp(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING), longRtt);
+    }
+
+    private double clamp(double newLimit) {
+        return Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * @param limit the limit before it is rounded down
+     * @param longRtt long-term average latency in nanos, 0 before the first sample
+     */
+    private record Estimate(double limit, double longRtt) {}
+}
@@ -0,0 +1,102 @@
+package org.example.service.admission;
+
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import org.example.exception.WalletOperationLockException;
+import org.example.exception.WalletOverloadedException;
+import org.example.metrics.WalletMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission in front of the wallet operations, a no-op unless wallet.admission.enabled=true.
+ * An operation is rejected with 429 before it takes a DB connection when its wallet already has
+ * per-wallet operations in flight, or when the {@link AdaptiveConcurrencyLimit global limit} is reached.
+ * Nothing waits for a permit.
+ *
+ * <p>Callers admit every attempt of a retried operation on its own, inside the retry, so no permit is
+ * held while the retry backs off.
+ *
+ * <p>Per wallet permits are striped: a fixed array of semaphores indexed by the uuid hash, so memory
+ * does not depend on the number of wallets. Two wallets on one stripe share its permits.
+ */
+@Component
+public class WalletAdmission {
+    private final Semaphore[] stripes;
+    private final int perWallet;
+    private final AdaptiveConcurrencyLimit globalLimit;
+    private final WalletMetrics metrics;
+
+    public WalletAdmission(
+            WalletMetrics metrics,
+            @Value("${wallet.admission.enabled:false}") boolean enabled,
+            @Value("${wallet.admission.stripes:4096}") int stripes,
+            @Value("${wallet.admission.per-wallet:8}") int perWallet,
+            @Value("${wallet.admission.limit.initial:50}") int initialLimit,
+            @Value("${wallet.admission.limit.min:8}") int minLimit,
+            @Value("${wallet.admission.limit.max:400}") int maxLimit) {
+        this.metrics = metrics;
+        this.perWallet = perWallet;
+        if (!enabled) {
+            this.stripes = null;
+            this.globalLimit = null;
+            return;
+        }
+        this.stripes = new Semaphore[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Semaphore(perWallet);
+        }
+        this.globalLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        metrics.admissionLimit(globalLimit);
+    }
+
+    public <T> T execute(UUID uuid, Supplier<T> operation) {
+        if (stripes == null) {
+            return operation.get();
+        }
+        Semaphore stripe = stripes[stripe(uuid)];
+        if (!stripe.tryAcquire()) {
+            metrics.admissionRejection("wallet");
+            throw new WalletOverloadedException("Too many operations in flight for wallet with UUID: " + uuid);
+        }
+        try {
+            if (!globalLimit.tryAcquire()) {
+                metrics.admissionRejection("global");
+                throw new WalletOverloadedException(
+                        "Too many wallet operations in flight, limit: " + globalLimit.getLimit());
+            }
+            // Operations of a busy wallet wait for each other on its row lock, that is what the per-wallet
+            // permits are for. Their latency would drag the global limit down for all other wallets,
+            // so it is not sampled when the wallet had company at the start or at the end
+            boolean contended = stripe.availablePermits() < perWallet - 1;
+            long start = System.nanoTime();
+            boolean dropped = false;
+            try {
+                return operation.get();
+            } catch (PessimisticLockingFailureException | WalletOperationLockException e) {
+                dropped = true;
+                throw e;
+            } finally {
+                if (contended || stripe.availablePermits() < perWallet - 1) {
+                    globalLimit.release();
+                } else {
+                    globalLimit.release(System.nanoTime() - start, dropped);
+                }
+            }
+        } finally {
+            stripe.release();
+        }
+    }
+
+    /**
+     * Murmur3 finalizer over all 128 bits, the low bits of UUID.hashCode ignore most of the uuid.
+     */
+    private int stripe(UUID uuid) {
+        long hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) Long.remainderUnsigned(hash ^ (hash >>> 33), stripes.length);
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.service.async;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.model.AsyncOperationStatus;
+import org.example.model.IdempotencyKey;
+import org.example.model.WalletOperation;
+import org.example.repository.AsyncOperationRepository;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletBatchRepository;
+import org.example.repository.WalletSlotRepository;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.util.WalletServiceValidator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AsyncOperationApplier {
+    /**
+     * Length of async_operations.reason.
+     */
+    private static final int MAX_REASON_LENGTH = 512;
+
+    private final AsyncOperationRepository asyncRepository;
+    private final WalletBatchRepository batchRepository;
+    private final WalletSlotRepository slotRepository;
+    private final WalletServiceValidator validator;
+    private final WalletBalanceCache balanceCache;
+    private final IdempotencyKeyStore idempotencyKeyStore;
+
+    /**
+     * Applies journal entries in order like a best effort batch: all wallets are locked once in uuid order,
+     * one UPDATE per changed wallet, ledger rows and outcomes go in JDBC batches. Entries whose outcome
+     * is already recorded were applied before a restart and are skipped.
+     *
+     * <p>Idempotency-Keys share idempotency_keys with synchronous operations. An entry whose key is
+     * recorded already is not applied again, it gets the stored balance, or is rejected when the key
+     * was used with another request. Keys of applied entries are recorded in the same transaction,
+     * a key recorded meanwhile by an operation on another wallet makes the batch be computed again.
+     *
+     * @return outcomes recorded by this call
+     */
+    @Transactional
+    public List<AsyncOperationStatusDto> apply(List<JournalEntry> entries) {
+        Map<UUID, JournalEntry> unapplied = new LinkedHashMap<>();
+        entries.forEach(entry -> unapplied.putIfAbsent(entry.operationId(), entry));
+        unapplied.keySet().removeAll(asyncRepository.findRecorded(unapplied.keySet()));
+        if (unapplied.isEmpty()) {
+            return List.of();
+        }
+
+        Set<UUID> uuids = new LinkedHashSet<>();
+        unapplied.values().forEach(entry -> uuids.add(entry.walletUuid()));
+        Map<UUID, LockedWallet> wallets = batchRepository.lockWallets(uuids);
+        Map<UUID, Long> initialBalances = new HashMap<>();
+        wallets.forEach((uuid, wallet) -> initialBalances.put(uuid, wallet.balance()));
+        slotRepository
+                .foldSlots(initialBalances.keySet())
+                .forEach((uuid, folded) -> initialBalances.merge(uuid, folded, Long::sum));
+
+        // Synchronous operations on these wallets wait for the row locks, so their keys are visible
+        Map<String, IdempotencyKey> storedKeys = idempotencyKeyStore.findStored(unapplied.values().stream()
+                .map(JournalEntry::idempotencyKey)
+                .filter(Objects::nonNull)
+                .toList());
+
+        while (true) {
+            Map<UUID, Long> balances = new HashMap<>(initialBalances);
+            List<AsyncOperationStatusDto> statuses = new ArrayList<>(unapplied.size());
+            List<WalletOperation> ledger = new ArrayList<>(unapplied.size());
+            List<IdempotencyKey> newKeys = new ArrayList<>();
+            for (JournalEntry entry : unapplied.values()) {
+                UUID uuid = entry.walletUuid();
+                IdempotencyKey stored = entry.idempotencyKey() == null ? null : storedKeys.get(entry.idempotencyKey());
+                if (stored != null) {
+                    statuses.add(replay(stored, entry));
+                    continue;
+                }
+                Long balance = balances.get(uuid);
+                RuntimeException rejection = balance == null
+                        ? validator.walletNotFound(uuid)
+                        : validator.checkRunningBalance(
+                                uuid, balance, wallets.get(uuid).reserved(), entry.operationType(), entry.amount());
+                if (rejection != null) {
+                    statuses.add(status(entry, AsyncOperationStatus.REJECTED, null, rejection.getMessage()));
+                    continue;
+                }
+                long newBalance = entry.operationType().apply(balance, entry.amount());
+                balances.put(uuid, newBalance);
+                statuses.add(status(entry, AsyncOperationStatus.APPLIED, newBalance, null));
+                ledger.add(new WalletOperation(null, uuid, entry.operationType(), entry.amount(), newBalance, null));
+                if (entry.idempotencyKey() != null) {
+                    newKeys.add(new IdempotencyKey(
+                            entry.idempotencyKey(), uuid, entry.operationType(), entry.amount(), newBalance, null));
+                }
+            }
+
+            Set<String> concurrentKeys = idempotencyKeyStore.recordAll(newKeys);
+            if (!concurrentKeys.isEmpty()) {
+                log.debug("Idempotency-Keys {} recorded concurrently, computing the async batch again", concurrentKeys);
+                idempotencyKeyStore.forgetAll(newKeys.stream()
+                        .map(IdempotencyKey::getIdempotencyKey)
+                        .filter(key -> !concurrentKeys.contains(key))
+                        .toList());
+                storedKeys.putAll(idempotencyKeyStore.findStored(concurrentKeys));
+                continue;
+            }
+            record(balances, initialBalances, ledger, statuses);
+            return statuses;
+        }
+    }
+
+    private void record(
+            Map<UUID, Long> balances,
+            Map<UUID, Long> initialBalances,
+            List<WalletOperation> ledger,
+            List<AsyncOperationStatusDto> statuses) {
+        Map<UUID, Long> changedBalances = new HashMap<>();
+        balances.forEach((uuid, balance) -> {
+            if (!balance.equals(initialBalances.get(uuid))) {
+                changedBalances.put(uuid, balance);
+            }
+        });
+        batchRepository.updateBalances(changedBalances);
+        batchRepository.insertOperations(ledger);
+        asyncRepository.insertStatuses(statuses);
+        changedBalances.forEach(balanceCache::onBalanceChanged);
+        log.debug("Async batch of {} operations on {} wallets was applied", statuses.size(), changedBalances.size());
+    }
+
+    private AsyncOperationStatusDto replay(IdempotencyKey stored, JournalEntry entry) {
+        if (!stored.getWalletUuid().equals(entry.walletUuid())
+                || stored.getOperationType() != entry.operationType()
+                || stored.getAmount() != entry.amount()) {
+            return status(
+                    entry,
+                    AsyncOperationStatus.REJECTED,
+                    null,
+                    "Idempotency-Key: " + entry.idempotencyKey() + " was already used with another request");
+        }
+        log.debug("Async operation {} was applied before with its Idempotency-Key", entry.operationId());
+        return status(entry, AsyncOperationStatus.APPLIED, stored.getBalance(), null);
+    }
+
+    /**
+     * Records the entry as FAILED, so it is not applied on replay either. An entry recorded meanwhile keeps
+     * its outcome.
+     *
+     * @return false when the entry already has an outcome
+     */
+    @Transactional
+    public boolean fail(JournalEntry entry, String reason) {
+        if (!asyncRepository.findRecorded(List.of(entry.operationId())).isEmpty()) {
+            return false;
+        }
+        asyncRepository.insertStatuses(List.of(status(entry, AsyncOperationStatus.FAILED, null, reason)));
+        return true;
+    }
+
+    private static AsyncOperationStatusDto status(
+            JournalEntry entry, AsyncOperationStatus status, Long balance, String reason) {
+        String stripped = reason == null ? null : reason.strip();
+        return new AsyncOperationStatusDto(
+                entry.operationId(),
+                entry.walletUuid(),
+                entry.operationType(),
+                entry.amount(),
+                status,
+                balance,
+                stripped == null || stripped.length() <= MAX_REASON_LENGTH
+                        ? stripped
+                        : stripped.substring(0, MAX_REASON_LENGTH));
+    }
+}
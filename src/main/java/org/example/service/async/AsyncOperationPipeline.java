@@ -0,0 +1,202 @@
+package org.example.service.async;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletRequestPostDto;
+import org.example.metrics.WalletMetrics;
+import org.example.service.sharding.WalletShards;
+import org.example.service.wallet.WalletOperationRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Accepted async operations: journaled first, then applied by background workers in batches.
+ * Wallets are spread over the workers by uuid, so operations on one wallet are applied
+ * in the order they were accepted and workers never wait for each other's row locks.
+ *
+ * <p>On start the operations left in the journal are queued again before anything new is accepted.
+ * A batch that fails is retried, operations stay in the journal until it commits. After max-attempts
+ * failures its operations are applied one by one, so one bad operation does not hold back the others,
+ * and an operation that fails again is recorded as FAILED and released. While the database is down
+ * FAILED cannot be recorded either, the batch keeps being retried and is applied once it is back.
+ * A batch over several shards commits one transaction per shard.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.async", name = "enabled", havingValue = "true")
+public class AsyncOperationPipeline {
+    private final AsyncOperationApplier applier;
+    private final WalletOperationRetry retry;
+    private final WalletShards shards;
+    private final WalletOperationJournal journal;
+    private final WalletMetrics metrics;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final long failureBackoffMs;
+    private final List<BlockingQueue<JournalEntry>> lanes = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ConcurrentMap<UUID, JournalEntry> pending = new ConcurrentHashMap<>();
+
+    public AsyncOperationPipeline(
+            AsyncOperationApplier applier,
+            WalletOperationRetry retry,
+            WalletShards shards,
+            WalletMetrics metrics,
+            @Value("${wallet.async.journal-dir:data/journal}") Path journalDir,
+            @Value("${wallet.async.segment-bytes:67108864}") long segmentBytes,
+            @Value("${wallet.async.workers:4}") int workers,
+            @Value("${wallet.async.max-batch-size:1000}") int maxBatchSize,
+            @Value("${wallet.async.max-attempts:10}") int maxAttempts,
+            @Value("${wallet.async.failure-backoff-ms:1000}") long failureBackoffMs)
+            throws IOException {
+        this.applier = applier;
+        this.retry = retry;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.failureBackoffMs = failureBackoffMs;
+        for (int i = 0; i < workers; i++) {
+            lanes.add(new LinkedBlockingQueue<>());
+        }
+        List<JournalEntry> recovered = new ArrayList<>();
+        this.journal = WalletOperationJournal.open(journalDir, segmentBytes, recovered);
+        recovered.forEach(this::enqueue);
+        metrics.asyncBacklog(pending);
+        log.info("Async pipeline started with {} operations to replay from {}", recovered.size(), journalDir);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < lanes.size(); i++) {
+            BlockingQueue<JournalEntry> lane = lanes.get(i);
+            Thread worker = new Thread(() -> drain(lane), "wallet-async-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Returns once the operation is in the journal on disk.
+     */
+    public JournalEntry submit(UUID operationId, WalletRequestPostDto dto) {
+        JournalEntry entry = journal.append(
+                operationId, dto.getWalletUuid(), dto.getOperationType(), dto.getAmount(), dto.getIdempotencyKey());
+        enqueue(entry);
+        return entry;
+    }
+
+    /**
+     * @return the operation when it is accepted and its outcome is not committed yet
+     */
+    public JournalEntry findPending(UUID operationId) {
+        return pending.get(operationId);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        workers.forEach(Thread::interrupt);
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        journal.close();
+    }
+
+    private void enqueue(JournalEntry entry) {
+        pending.put(entry.operationId(), entry);
+        lanes.get(Math.floorMod(entry.walletUuid().hashCode(), lanes.size())).add(entry);
+    }
+
+    private void drain(BlockingQueue<JournalEntry> lane) {
+        List<JournalEntry> batch = new ArrayList<>(maxBatchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(lane.take());
+                lane.drainTo(batch, maxBatchSize - 1);
+                applyOrFail(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batch.clear();
+        }
+    }
+
+    private void applyOrFail(List<JournalEntry> batch) throws InterruptedException {
+        Map<Integer, List<JournalEntry>> byShard = new LinkedHashMap<>();
+        batch.forEach(entry -> byShard.computeIfAbsent(shards.shardOf(entry.walletUuid()), shard -> new ArrayList<>())
+                .add(entry));
+        for (Map.Entry<Integer, List<JournalEntry>> shardBatch : byShard.entrySet()) {
+            applyOrFail(shardBatch.getKey(), shardBatch.getValue());
+        }
+        batch.forEach(entry -> pending.remove(entry.operationId(), entry));
+        journal.release(batch);
+    }
+
+    /**
+     * Returns once every operation of the batch has an outcome committed, APPLIED, REJECTED or FAILED.
+     */
+    private void applyOrFail(int shard, List<JournalEntry> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                apply(shard, batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts) {
+                    try {
+                        applyOneByOne(shard, batch);
+                        return;
+                    } catch (RuntimeException failError) {
+                        if (failError != e) {
+                            e.addSuppressed(failError);
+                        }
+                    }
+                }
+                log.error(
+                        "Async batch of {} operations failed {} times, retrying in {} ms",
+                        batch.size(),
+                        attempt,
+                        failureBackoffMs,
+                        e);
+                TimeUnit.MILLISECONDS.sleep(failureBackoffMs);
+            }
+        }
+    }
+
+    /**
+     * Throws when an operation can be neither applied nor recorded as FAILED, the database is down then.
+     */
+    private void applyOneByOne(int shard, List<JournalEntry> batch) {
+        int failed = 0;
+        for (JournalEntry entry : batch) {
+            try {
+                apply(shard, List.of(entry));
+            } catch (RuntimeException e) {
+                String reason = "Not applied after " + maxAttempts + " attempts: " + e.getMessage();
+                if (shards.onShard(shard, () -> applier.fail(entry, reason))) {
+                    failed++;
+                    log.error("Async operation {} recorded as FAILED", entry.operationId(), e);
+                }
+            }
+        }
+        metrics.asyncFailed(failed);
+    }
+
+    private void apply(int shard, List<JournalEntry> batch) {
+        shards.onShard(shard, () -> retry.execute(batch.getFirst().walletUuid(), () -> applier.apply(batch)));
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.service.async;
+
+import java.util.UUID;
+import org.example.model.OperationType;
+
+/**
+ * Operation accepted in async mode, as it is stored in the journal. The Idempotency-Key is null
+ * for an operation accepted without one.
+ */
+public record JournalEntry(
+        UUID operationId,
+        UUID walletUuid,
+        OperationType operationType,
+        long amount,
+        String idempotencyKey,
+        WalletOperationJournal.Segment segment) {}
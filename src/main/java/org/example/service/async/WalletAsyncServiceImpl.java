@@ -0,0 +1,98 @@
+package org.example.service.async;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.AsyncOperationNotFoundException;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.model.AsyncOperationStatus;
+import org.example.repository.AsyncOperationRepository;
+import org.example.service.WalletAsyncService;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.service.sharding.WalletShards;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers before the operation touches the database. With an Idempotency-Key the operation id is
+ * derived from the key, so a retried request gets the same id and is applied once. Keys are shared with
+ * synchronous operations: the applier records them in idempotency_keys and does not apply an operation
+ * whose key is recorded there already, whichever mode recorded it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet.async", name = "enabled", havingValue = "true")
+public class WalletAsyncServiceImpl implements WalletAsyncService {
+    private final AsyncOperationPipeline pipeline;
+    private final AsyncOperationRepository repository;
+    private final IdempotencyKeyStore idempotencyKeyStore;
+    private final WalletShards shards;
+
+    @Override
+    public AsyncOperationStatusDto accept(WalletRequestPostDto dto) {
+        String idempotencyKey = dto.getIdempotencyKey();
+        UUID operationId;
+        if (idempotencyKey == null) {
+            operationId = UUID.randomUUID();
+        } else {
+            idempotencyKeyStore.checkKey(idempotencyKey);
+            operationId = UUID.nameUUIDFromBytes(("async:" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+            Optional<AsyncOperationStatusDto> known = find(operationId);
+            if (known.isPresent()) {
+                log.debug("Async operation for Idempotency-Key: {} is already accepted", idempotencyKey);
+                return checkSameRequest(known.get(), dto, idempotencyKey);
+            }
+            // Throws when the key was used with another request, the applier checks idempotency_keys too
+            if (idempotencyKeyStore.findCached(dto) != null) {
+                log.debug("Idempotency-Key: {} was applied synchronously, its balance is replayed", idempotencyKey);
+            }
+        }
+        return toStatus(pipeline.submit(operationId, dto));
+    }
+
+    @Override
+    public AsyncOperationStatusDto getStatus(UUID operationId) {
+        return find(operationId)
+                .orElseThrow(() ->
+                        new AsyncOperationNotFoundException("Operation with id: " + operationId + " was not found"));
+    }
+
+    /**
+     * Pending first: the outcome is committed before the operation leaves the pending ones.
+     * The outcome is on the shard of the wallet, which the operation id does not tell.
+     */
+    private Optional<AsyncOperationStatusDto> find(UUID operationId) {
+        JournalEntry pending = pipeline.findPending(operationId);
+        if (pending != null) {
+            return Optional.of(toStatus(pending));
+        }
+        return shards.findOnAnyShard(0, () -> repository.findStatus(operationId));
+    }
+
+    private static AsyncOperationStatusDto checkSameRequest(
+            AsyncOperationStatusDto known, WalletRequestPostDto dto, String idempotencyKey) {
+        if (!known.walletUuid().equals(dto.getWalletUuid())
+                || known.operationType() != dto.getOperationType()
+                || known.amount() != dto.getAmount()) {
+            throw new IdempotencyKeyConflictException(
+                    "Idempotency-Key: " + idempotencyKey + " was already used with another request");
+        }
+        return known;
+    }
+
+    private static AsyncOperationStatusDto toStatus(JournalEntry entry) {
+        return new AsyncOperationStatusDto(
+                entry.operationId(),
+                entry.walletUuid(),
+                entry.operationType(),
+                entry.amount(),
+                AsyncOperationStatus.ACCEPTED,
+                null,
+                null);
+    }
+}
@@ -0,0 +1,329 @@
+package org.example.service.async;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.OperationType;
+import org.example.service.idempotency.IdempotencyKeyStore;
+
+/**
+ * Append-only journal of accepted async operations, split into segment files journal-&lt;seq&gt;.log.
+ * Records have a CRC, a torn record at the tail after a crash is cut off on recovery.
+ *
+ * <p>{@link #append} returns once the record is on disk. Appenders that come while another one
+ * is in fsync are written meanwhile and made durable together by the next fsync.
+ * A segment is deleted when it is no longer written to and all its operations are {@link #release released}.
+ */
+@Slf4j
+public class WalletOperationJournal implements AutoCloseable {
+    /**
+     * crc, operation id, wallet uuid, operation type, amount, length of the Idempotency-Key in bytes,
+     * the key follows the header.
+     */
+    static final int HEADER_SIZE = 4 + 16 + 16 + 1 + 8 + 2;
+
+    /**
+     * A UTF-16 unit takes at most 3 bytes in UTF-8.
+     */
+    static final int MAX_KEY_BYTES = 3 * IdempotencyKeyStore.MAX_KEY_LENGTH;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + MAX_KEY_BYTES);
+    private Segment active;
+    private long written;
+    private long synced;
+
+    private WalletOperationJournal(Path directory, long segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the journal in the directory and reads the operations of the previous run in append order.
+     * New operations go to a new segment.
+     */
+    public static WalletOperationJournal open(Path directory, long segmentBytes, List<JournalEntry> recovered)
+            throws IOException {
+        Files.createDirectories(directory);
+        WalletOperationJournal journal = new WalletOperationJournal(directory, segmentBytes);
+        long lastSequence = 0;
+        for (Path file : segmentFiles(directory)) {
+            Segment segment = new Segment(sequence(file), file);
+            segment.sealed = true;
+            int count = journal.recover(segment, recovered);
+            log.info("Recovered {} operations from journal segment {}", count, file);
+            segment.remaining.addAndGet(count);
+            journal.deleteIfReleased(segment);
+            lastSequence = segment.sequence;
+        }
+        journal.active = journal.create(lastSequence + 1);
+        return journal;
+    }
+
+    public JournalEntry append(
+            UUID operationId, UUID walletUuid, OperationType operationType, long amount, String idempotencyKey) {
+        JournalEntry entry;
+        long end;
+        synchronized (writeLock) {
+            entry = new JournalEntry(operationId, walletUuid, operationType, amount, idempotencyKey, active);
+            buffer.clear();
+            write(buffer, entry);
+            buffer.flip();
+            int size = buffer.remaining();
+            try {
+                while (buffer.hasRemaining()) {
+                    active.channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to journal segment " + active.file, e);
+            }
+            active.remaining.incrementAndGet();
+            active.size += size;
+            written += size;
+            end = written;
+        }
+        sync(end);
+        return entry;
+    }
+
+    /**
+     * Marks operations as applied or rejected in the database, they are not needed for recovery anymore.
+     */
+    public void release(List<JournalEntry> entries) {
+        for (JournalEntry entry : entries) {
+            if (entry.segment().remaining.decrementAndGet() == 0) {
+                deleteIfReleased(entry.segment());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                active.channel.force(false);
+                active.channel.close();
+            }
+        }
+    }
+
+    private void sync(long end) {
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            try {
+                FileChannel channel;
+                long target;
+                boolean full;
+                synchronized (writeLock) {
+                    channel = active.channel;
+                    target = written;
+                    full = active.size >= segmentBytes;
+                }
+                channel.force(false);
+                synced = target;
+                if (full) {
+                    roll();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync journal segment " + active.file, e);
+            }
+        }
+    }
+
+    /**
+     * Called under the sync lock, so no fsync of the old segment runs concurrently.
+     */
+    private void roll() throws IOException {
+        Segment old;
+        synchronized (writeLock) {
+            old = active;
+            old.channel.force(false);
+            synced = written;
+            active = create(old.sequence + 1);
+        }
+        old.channel.close();
+        old.sealed = true;
+        deleteIfReleased(old);
+    }
+
+    /**
+     * The directory is synced too, otherwise records acknowledged by fsync of the file may be lost
+     * with the directory entry of a segment created just before a crash.
+     */
+    private Segment create(long sequence) throws IOException {
+        Path file = directory.resolve(PREFIX + String.format("%019d", sequence) + SUFFIX);
+        Segment segment = new Segment(sequence, file);
+        segment.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            segment.channel.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    private void deleteIfReleased(Segment segment) {
+        if (segment.sealed && segment.remaining.get() == 0 && segment.deleted.compareAndSet(false, true)) {
+            try {
+                Files.deleteIfExists(segment.file);
+                log.debug("Deleted released journal segment {}", segment.file);
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}, it is replayed on the next start", segment.file, e);
+            }
+        }
+    }
+
+    /**
+     * Reads records up to the first torn or corrupted one and truncates the file there.
+     */
+    private int recover(Segment segment, List<JournalEntry> recovered) throws IOException {
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + MAX_KEY_BYTES);
+            long position = 0;
+            long size = channel.size();
+            while (position + HEADER_SIZE <= size) {
+                record.clear().limit(HEADER_SIZE);
+                readFully(channel, record, position);
+                int keyBytes = Short.toUnsignedInt(record.getShort(HEADER_SIZE - 2));
+                if (keyBytes > MAX_KEY_BYTES || position + HEADER_SIZE + keyBytes > size) {
+                    break;
+                }
+                record.limit(HEADER_SIZE + keyBytes);
+                readFully(channel, record, position);
+                record.flip();
+                JournalEntry entry = read(record, segment);
+                if (entry == null) {
+                    break;
+                }
+                recovered.add(entry);
+                count++;
+                position += record.limit();
+            }
+            if (position < size) {
+                log.warn("Journal segment {} has a torn record at {}, truncating", segment.file, position);
+                channel.truncate(position);
+                channel.force(false);
+            }
+        }
+        return count;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer record, long position) throws IOException {
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new EOFException("Journal segment ended inside a record at " + position);
+            }
+        }
+    }
+
+    /**
+     * Leaves the position at the end of the record.
+     */
+    static void write(ByteBuffer record, JournalEntry entry) {
+        byte[] key = entry.idempotencyKey() == null
+                ? new byte[0]
+                : entry.idempotencyKey().getBytes(StandardCharsets.UTF_8);
+        record.position(4);
+        record.putLong(entry.operationId().getMostSignificantBits());
+        record.putLong(entry.operationId().getLeastSignificantBits());
+        record.putLong(entry.walletUuid().getMostSignificantBits());
+        record.putLong(entry.walletUuid().getLeastSignificantBits());
+        record.put((byte) entry.operationType().ordinal());
+        record.putLong(entry.amount());
+        record.putShort((short) key.length);
+        record.put(key);
+        record.putInt(0, crc(record, record.position()));
+    }
+
+    /**
+     * @return null when the record is corrupted
+     */
+    static JournalEntry read(ByteBuffer record, Segment segment) {
+        if (record.getInt(0) != crc(record, record.limit())) {
+            return null;
+        }
+        record.position(4);
+        UUID operationId = new UUID(record.getLong(), record.getLong());
+        UUID walletUuid = new UUID(record.getLong(), record.getLong());
+        int type = record.get();
+        if (type < 0 || type >= OperationType.values().length) {
+            return null;
+        }
+        long amount = record.getLong();
+        byte[] key = new byte[Short.toUnsignedInt(record.getShort())];
+        record.get(key);
+        return new JournalEntry(
+                operationId,
+                walletUuid,
+                OperationType.values()[type],
+                amount,
+                key.length == 0 ? null : new String(key, StandardCharsets.UTF_8),
+                segment);
+    }
+
+    private static int crc(ByteBuffer record, int end) {
+        CRC32C crc = new CRC32C();
+        crc.update(record.slice(4, end - 4));
+        return (int) crc.getValue();
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Remaining counts the operations of the segment that are not recorded in the database yet.
+     */
+    static final class Segment {
+        private final long sequence;
+        private final Path file;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private final AtomicBoolean deleted = new AtomicBoolean();
+        private volatile boolean sealed;
+        private FileChannel channel;
+        private long size;
+
+        private Segment(long sequence, Path file) {
+            this.sequence = sequence;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.service.batch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBatchItemResultDto;
+import org.example.dto.WalletBatchRequestDto;
+import org.example.dto.WalletBatchResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.model.BatchItemStatus;
+import org.example.model.BatchMode;
+import org.example.model.WalletOperation;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletBatchRepository;
+import org.example.repository.WalletSlotRepository;
+import org.example.service.WalletBatchService;
+import org.example.service.admission.WalletAdmission;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.sharding.WalletShards;
+import org.example.service.wallet.WalletOperationRetry;
+import org.example.util.WalletServiceValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class WalletBatchServiceImpl implements WalletBatchService {
+    private final WalletBatchRepository batchRepository;
+    private final WalletSlotRepository slotRepository;
+    private final WalletServiceValidator validator;
+    private final WalletBalanceCache balanceCache;
+    private final WalletShards shards;
+    private final WalletOperationRetry retry;
+    private final WalletAdmission admission;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${wallet.batch.default-mode:BEST_EFFORT}")
+    private BatchMode defaultMode;
+
+    /**
+     * Locks every wallet of the batch once, applies the operations in request order against
+     * the locked balances in memory and writes one UPDATE per changed wallet and one ledger row
+     * per applied operation in JDBC batches. Slots of striped wallets are folded into the wallet rows first.
+     * All wallets of the batch must be on one shard, the batch is one local transaction.
+     *
+     * <p>A lock failure rolls the whole batch back and retries it in a new transaction, like a single
+     * operation. Retries and admission are keyed by the first wallet of the batch.
+     */
+    @Override
+    public WalletBatchResponseDto processBatch(WalletBatchRequestDto dto) {
+        Set<UUID> uuids = new LinkedHashSet<>();
+        dto.getOperations().forEach(operation -> uuids.add(operation.getWalletUuid()));
+        UUID first = uuids.iterator().next();
+        return shards.onShard(
+                shards.sameShard(uuids),
+                () -> retry.execute(
+                        first,
+                        () -> admission.execute(
+                                first, () -> transactionTemplate.execute(status -> apply(dto, uuids)))));
+    }
+
+    private WalletBatchResponseDto apply(WalletBatchRequestDto dto, Set<UUID> uuids) {
+        BatchMode mode = dto.getMode() != null ? dto.getMode() : defaultMode;
+        List<WalletRequestPostDto> operations = dto.getOperations();
+
+        Map<UUID, LockedWallet> wallets = batchRepository.lockWallets(uuids);
+        Map<UUID, Long> balances = new HashMap<>();
+        wallets.forEach((uuid, wallet) -> balances.put(uuid, wallet.balance()));
+        slotRepository.foldSlots(balances.keySet()).forEach((uuid, folded) -> balances.merge(uuid, folded, Long::sum));
+        Map<UUID, Long> initialBalances = new HashMap<>(balances);
+
+        List<WalletBatchItemResultDto> items = new ArrayList<>(operations.size());
+        List<WalletOperation> ledger = new ArrayList<>(operations.size());
+        boolean hasRejections = false;
+        for (int i = 0; i < operations.size(); i++) {
+            WalletRequestPostDto operation = operations.get(i);
+            UUID uuid = operation.getWalletUuid();
+            Long balance = balances.get(uuid);
+            RuntimeException rejection = balance == null
+                    ? validator.walletNotFound(uuid)
+                    : validator.checkRunningBalance(
+                            uuid, balance, wallets.get(uuid).reserved(), operation);
+            if (rejection != null) {
+                hasRejections = true;
+                items.add(
+                        new WalletBatchItemResultDto(i, uuid, BatchItemStatus.REJECTED, null, rejection.getMessage()));
+                continue;
+            }
+            long newBalance = operation.getOperationType().apply(balance, operation.getAmount());
+            balances.put(uuid, newBalance);
+            items.add(new WalletBatchItemResultDto(i, uuid, BatchItemStatus.APPLIED, newBalance, null));
+            ledger.add(new WalletOperation(
+                    null, uuid, operation.getOperationType(), operation.getAmount(), newBalance, null));
+        }
+
+        if (mode == BatchMode.ALL_OR_NOTHING && hasRejections) {
+            log.debug("Batch of {} operations was rolled back", operations.size());
+            return new WalletBatchResponseDto(
+                    mode, false, items.stream().map(this::rollBack).toList());
+        }
+
+        Map<UUID, Long> changedBalances = new HashMap<>();
+        balances.forEach((uuid, balance) -> {
+            if (!balance.equals(initialBalances.get(uuid))) {
+                changedBalances.put(uuid, balance);
+            }
+        });
+        batchRepository.updateBalances(changedBalances);
+        batchRepository.insertOperations(ledger);
+        changedBalances.forEach(balanceCache::onBalanceChanged);
+        log.debug("Batch of {} operations on {} wallets was completed", operations.size(), changedBalances.size());
+        return new WalletBatchResponseDto(mode, true, items);
+    }
+
+    private WalletBatchItemResultDto rollBack(WalletBatchItemResultDto item) {
+        if (item.status() != BatchItemStatus.APPLIED) {
+            return item;
+        }
+        return new WalletBatchItemResultDto(
+                item.index(), item.walletUuid(), BatchItemStatus.ROLLED_BACK, null, "Batch was rolled back");
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.CacheConfig;
+import org.example.dto.WalletBalanceResponseDto;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of wallet balances, a no-op unless wallet.balance-cache.enabled=true.
+ *
+ * <p>Writers put the committed balance after commit. Versions are taken while the wallet row
+ * is locked, so they follow the commit order of that wallet and a late put of an older
+ * balance never overwrites a newer one. Balances loaded by readers carry no version and are
+ * only put when there is no entry, any writer replaces them.
+ */
+@Slf4j
+@Component
+public class WalletBalanceCache {
+    private static final long LOADED_VERSION = -1;
+
+    private final Cache<UUID, VersionedBalance> cache;
+    private final AtomicLong versions = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public WalletBalanceCache(Optional<CacheManager> cacheManager) {
+        this.cache = cacheManager
+                .map(manager -> manager.getCache(CacheConfig.BALANCES_CACHE))
+                .filter(CaffeineCache.class::isInstance)
+                .map(springCache ->
+                        (Cache<UUID, VersionedBalance>) (Cache<?, ?>) ((CaffeineCache) springCache).getNativeCache())
+                .orElse(null);
+    }
+
+    public WalletBalanceResponseDto get(UUID uuid, Supplier<WalletBalanceResponseDto> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        VersionedBalance cached = cache.getIfPresent(uuid);
+        if (cached != null) {
+            return cached.balance();
+        }
+        WalletBalanceResponseDto balance = loader.get();
+        cache.asMap().putIfAbsent(uuid, new VersionedBalance(balance, LOADED_VERSION));
+        return balance;
+    }
+
+    /**
+     * Must be called inside the transaction that changed the balance, while the row is locked.
+     */
+    public void onBalanceChanged(UUID uuid, long balance) {
+        if (cache == null) {
+            return;
+        }
+        VersionedBalance changed =
+                new VersionedBalance(new WalletBalanceResponseDto(balance), versions.incrementAndGet());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(uuid, changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(uuid, changed);
+            }
+        });
+    }
+
+    private void put(UUID uuid, VersionedBalance changed) {
+        cache.asMap().merge(uuid, changed, (current, next) -> next.version() > current.version() ? next : current);
+    }
+
+    private record VersionedBalance(WalletBalanceResponseDto balance, long version) {}
+}
@@ -0,0 +1,9 @@
+package org.example.service.export;
+
+import java.util.UUID;
+
+/**
+ * Balance is the wallets row, total adds the slots of a striped wallet, reserved is held by open holds.
+ * All in kopecks.
+ */
+public record WalletExportRow(UUID uuid, long balance, int stripes, long total, long reserved) {}
@@ -0,0 +1,61 @@
+package org.example.service.export;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.WalletExportJobConfig;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the export on wallet.export.cron, every run writes to its own directory under wallet.export.dir.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.export", name = "enabled", havingValue = "true")
+public class WalletExportScheduler {
+    private static final DateTimeFormatter RUN_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final JobLauncher jobLauncher;
+    private final Job walletExportJob;
+    private final Path exportDir;
+
+    public WalletExportScheduler(
+            JobLauncher jobLauncher, Job walletExportJob, @Value("${wallet.export.dir:data/export}") Path exportDir) {
+        this.jobLauncher = jobLauncher;
+        this.walletExportJob = walletExportJob;
+        this.exportDir = exportDir;
+    }
+
+    @Scheduled(cron = "${wallet.export.cron:0 0 3 * * *}")
+    public void scheduledExport() {
+        try {
+            export();
+        } catch (Exception e) {
+            log.error("Wallet export failed to start", e);
+        }
+    }
+
+    public JobExecution export()
+            throws JobExecutionAlreadyRunningException, JobRestartException, JobInstanceAlreadyCompleteException,
+                    JobParametersInvalidException {
+        Path outputDir = exportDir.resolve(LocalDateTime.now().format(RUN_NAME)).toAbsolutePath();
+        log.info("Starting {} into {}", WalletExportJobConfig.JOB_NAME, outputDir);
+        return jobLauncher.run(
+                walletExportJob,
+                new JobParametersBuilder()
+                        .addString(WalletExportJobConfig.OUTPUT_DIR, outputDir.toString())
+                        .toJobParameters());
+    }
+}
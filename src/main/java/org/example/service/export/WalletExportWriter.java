@@ -0,0 +1,114 @@
+package org.example.service.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.example.util.Money;
+import org.example.util.WalletServiceValidator;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+
+/**
+ * Writes one partition of the export as gzipped CSV and counts it for the reconciliation report.
+ * Rows with a balance outside the chck_wallets_balance bounds also go to a breaches file.
+ * Nothing but the counters is kept between chunks.
+ */
+@Slf4j
+public class WalletExportWriter implements ItemStreamWriter<WalletExportRow> {
+    public static final String WALLETS = "wallets";
+    public static final String TOTAL_BALANCE = "totalBalance";
+    public static final String TOTAL_RESERVED = "totalReserved";
+    public static final String BREACHES = "breaches";
+
+    private static final String HEADER = "wallet_uuid,balance,stripes,total,reserved\n";
+
+    private final Path exportFile;
+    private final Path breachesFile;
+    private Writer export;
+    private Writer breaches;
+    private long wallets;
+    private long totalBalance;
+    private long totalReserved;
+    private long breachCount;
+
+    public WalletExportWriter(Path directory, int partition) {
+        this.exportFile = directory.resolve("wallets-" + partition + ".csv.gz");
+        this.breachesFile = directory.resolve("breaches-" + partition + ".csv");
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) {
+        try {
+            Files.createDirectories(exportFile.getParent());
+            export = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(exportFile), 64 * 1024), StandardCharsets.UTF_8));
+            export.write(HEADER);
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to open " + exportFile, e);
+        }
+    }
+
+    @Override
+    public void write(Chunk<? extends WalletExportRow> chunk) throws IOException {
+        for (WalletExportRow row : chunk) {
+            String line = toCsv(row);
+            export.write(line);
+            wallets++;
+            totalBalance = Math.addExact(totalBalance, row.total());
+            totalReserved = Math.addExact(totalReserved, row.reserved());
+            if (row.balance() < 0 || row.balance() > WalletServiceValidator.MAX_BALANCE) {
+                breachCount++;
+                breaches().write(line);
+            }
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) {
+        executionContext.putLong(WALLETS, wallets);
+        executionContext.putLong(TOTAL_BALANCE, totalBalance);
+        executionContext.putLong(TOTAL_RESERVED, totalReserved);
+        executionContext.putLong(BREACHES, breachCount);
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (export != null) {
+                export.close();
+            }
+            if (breaches != null) {
+                breaches.close();
+            }
+        } catch (IOException e) {
+            throw new ItemStreamException("Failed to close " + exportFile, e);
+        }
+        log.debug("Exported {} wallets to {}, {} breaches", wallets, exportFile, breachCount);
+    }
+
+    private Writer breaches() {
+        if (breaches == null) {
+            try {
+                breaches = Files.newBufferedWriter(breachesFile, StandardCharsets.UTF_8);
+                breaches.write(HEADER);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open " + breachesFile, e);
+            }
+        }
+        return breaches;
+    }
+
+    private static String toCsv(WalletExportRow row) {
+        return row.uuid() + "," + Money.format(row.balance()) + "," + row.stripes() + "," + Money.format(row.total())
+                + "," + Money.format(row.reserved()) + "\n";
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.service.export;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+/**
+ * Splits the uuid space into contiguous ranges of equal width by the high 64 bits. Random uuids
+ * are uniform, so the ranges get about the same number of wallets. Bounds are inclusive and
+ * compare the way Postgres orders uuid, as unsigned bytes. Every shard gets all the ranges,
+ * partitions are numbered across shards.
+ */
+public class WalletRangePartitioner implements Partitioner {
+    public static final String PARTITION = "partition";
+    public static final String SHARD = "shard";
+    public static final String MIN_UUID = "minUuid";
+    public static final String MAX_UUID = "maxUuid";
+
+    private final int shards;
+
+    public WalletRangePartitioner() {
+        this(1);
+    }
+
+    public WalletRangePartitioner(int shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        // 2^64 / gridSize rounded up, unsigned
+        long width = Long.divideUnsigned(-1L, gridSize) + 1;
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            for (int i = 0; i < gridSize; i++) {
+                int partition = shard * gridSize + i;
+                long low = i * width;
+                long high = i == gridSize - 1 ? -1L : (i + 1) * width - 1;
+                ExecutionContext context = new ExecutionContext();
+                context.putInt(PARTITION, partition);
+                context.putInt(SHARD, shard);
+                context.putString(MIN_UUID, new UUID(low, 0L).toString());
+                context.putString(MAX_UUID, new UUID(high, -1L).toString());
+                partitions.put(PARTITION + partition, context);
+            }
+        }
+        return partitions;
+    }
+}
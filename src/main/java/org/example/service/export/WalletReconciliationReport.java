@@ -0,0 +1,15 @@
+package org.example.service.export;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.example.util.MoneySerializer;
+
+/**
+ * Sums over all partitions of one export run, money of open holds is in totalReserved only. Breaches are rows outside the chck_wallets_balance bounds.
+ */
+public record WalletReconciliationReport(
+        String directory,
+        int partitions,
+        long wallets,
+        @JsonSerialize(using = MoneySerializer.class) long totalBalance,
+        @JsonSerialize(using = MoneySerializer.class) long totalReserved,
+        long breaches) {}
@@ -0,0 +1,63 @@
+package org.example.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Path;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+/**
+ * Sums the counters of the partition steps into reconciliation.json next to the export.
+ * The step exits with BREACHES_FOUND when any row is out of bounds.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class WalletReconciliationTasklet implements Tasklet {
+    public static final ExitStatus BREACHES_FOUND = new ExitStatus("BREACHES_FOUND");
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final String workerStepName;
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        JobExecution jobExecution =
+                chunkContext.getStepContext().getStepExecution().getJobExecution();
+        int partitions = 0;
+        long wallets = 0;
+        long totalBalance = 0;
+        long totalReserved = 0;
+        long breaches = 0;
+        for (StepExecution stepExecution : jobExecution.getStepExecutions()) {
+            if (!stepExecution.getStepName().startsWith(workerStepName + ":")) {
+                continue;
+            }
+            ExecutionContext context = stepExecution.getExecutionContext();
+            partitions++;
+            wallets += context.getLong(WalletExportWriter.WALLETS, 0L);
+            totalBalance = Math.addExact(totalBalance, context.getLong(WalletExportWriter.TOTAL_BALANCE, 0L));
+            totalReserved = Math.addExact(totalReserved, context.getLong(WalletExportWriter.TOTAL_RESERVED, 0L));
+            breaches += context.getLong(WalletExportWriter.BREACHES, 0L);
+        }
+
+        WalletReconciliationReport report = new WalletReconciliationReport(
+                directory.toString(), partitions, wallets, totalBalance, totalReserved, breaches);
+        objectMapper
+                .writerWithDefaultPrettyPrinter()
+                .writeValue(directory.resolve("reconciliation.json").toFile(), report);
+        if (breaches > 0) {
+            log.warn("Wallet export found {} rows out of balance bounds: {}", breaches, report);
+            contribution.setExitStatus(BREACHES_FOUND);
+        } else {
+            log.info("Wallet export completed: {}", report);
+        }
+        return RepeatStatus.FINISHED;
+    }
+}
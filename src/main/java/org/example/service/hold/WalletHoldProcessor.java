@@ -0,0 +1,136 @@
+package org.example.service.hold;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletHoldDto;
+import org.example.exception.WalletHoldConflictException;
+import org.example.exception.WalletHoldNotFoundException;
+import org.example.metrics.WalletMetrics;
+import org.example.model.HoldStatus;
+import org.example.repository.WalletBatchRepository;
+import org.example.repository.WalletHoldRepository;
+import org.example.repository.WalletHoldRepository.ExpiredHold;
+import org.example.repository.WalletSlotRepository;
+import org.example.repository.WalletWriteRepository;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.striping.WalletStripes;
+import org.example.util.Money;
+import org.example.util.WalletServiceValidator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletHoldProcessor {
+    private final WalletHoldRepository holdRepository;
+    private final WalletWriteRepository repository;
+    private final WalletSlotRepository slotRepository;
+    private final WalletBatchRepository batchRepository;
+    private final WalletServiceValidator validator;
+    private final WalletBalanceCache balanceCache;
+    private final WalletStripes walletStripes;
+    private final WalletMetrics metrics;
+
+    /**
+     * Single round trip like a guarded withdraw. Slots of a striped wallet are folded into the row
+     * only when the row has not enough money.
+     */
+    @Transactional
+    public WalletHoldDto hold(UUID holdId, UUID uuid, long amount, Instant expiresAt) {
+        Optional<WalletHoldDto> hold = metrics.timeLock(
+                WalletMetrics.GUARDED_UPDATE, uuid, () -> holdRepository.hold(holdId, uuid, amount, expiresAt));
+        if (hold.isEmpty() && walletStripes.refresh(uuid) > 1) {
+            metrics.timeLock(WalletMetrics.FIND_BY_UUID_WITH_LOCK, uuid, () -> repository.findByUuidWithLock(uuid));
+            slotRepository.foldSlots(List.of(uuid));
+            hold = holdRepository.hold(holdId, uuid, amount, expiresAt);
+        }
+        if (hold.isEmpty()) {
+            if (!repository.existsById(uuid)) {
+                throw validator.walletNotFound(uuid);
+            }
+            throw validator.notEnoughMoney(uuid, amount);
+        }
+        onBalanceChanged(hold.get());
+        log.debug("Hold {} of {} on wallet uuid: {} was opened", hold.get().holdId(), amount, uuid);
+        return hold.get();
+    }
+
+    /**
+     * @param amount null captures the whole hold
+     */
+    @Transactional
+    public WalletHoldDto capture(UUID holdId, Long amount) {
+        WalletHoldDto hold = holdRepository
+                .capture(holdId, amount)
+                .orElseThrow(() -> notCaptured(holdId, amount == null ? 0 : amount));
+        onBalanceChanged(hold);
+        log.debug("Hold {} captured {}", holdId, hold.captured());
+        return hold;
+    }
+
+    @Transactional
+    public WalletHoldDto release(UUID holdId) {
+        WalletHoldDto hold = holdRepository.release(holdId).orElseThrow(() -> notCaptured(holdId, 0));
+        onBalanceChanged(hold);
+        log.debug("Hold {} released", holdId);
+        return hold;
+    }
+
+    /**
+     * Expires one batch of holds. Wallets are locked in uuid order after the holds,
+     * like transfers and batches lock them.
+     *
+     * @return number of expired holds
+     */
+    @Transactional
+    public int expireBatch(int batchSize) {
+        List<ExpiredHold> holds = holdRepository.lockExpired(batchSize);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+        TreeSet<UUID> wallets = new TreeSet<>();
+        holds.forEach(hold -> wallets.add(hold.walletUuid()));
+        batchRepository.lockWallets(wallets);
+        Map<UUID, Long> balances = holdRepository.expire(holds);
+        balances.forEach((uuid, balance) -> {
+            if (walletStripes.get(uuid) == 1) {
+                balanceCache.onBalanceChanged(uuid, balance);
+            }
+        });
+        return holds.size();
+    }
+
+    private void onBalanceChanged(WalletHoldDto hold) {
+        // Balances of striped wallets are not cached, see WalletServiceImpl#getBalance
+        if (walletStripes.get(hold.walletUuid()) == 1) {
+            balanceCache.onBalanceChanged(hold.walletUuid(), hold.balance());
+        }
+    }
+
+    /**
+     * Looked up only after the guarded statement changed nothing, to tell why.
+     */
+    private RuntimeException notCaptured(UUID holdId, long amount) {
+        WalletHoldDto hold = holdRepository.findById(holdId).orElse(null);
+        if (hold == null) {
+            metrics.rejection("hold_not_found");
+            return new WalletHoldNotFoundException("Hold with id: " + holdId + " was not found");
+        }
+        metrics.rejection("hold_conflict");
+        if (hold.status() != HoldStatus.OPEN) {
+            return new WalletHoldConflictException("Hold with id: " + holdId + " is already " + hold.status());
+        }
+        if (hold.amount() < amount) {
+            return new WalletHoldConflictException("Capture of " + Money.format(amount) + " exceeds hold with id: "
+                    + holdId + " of " + Money.format(hold.amount()));
+        }
+        return new WalletHoldConflictException("Hold with id: " + holdId + " expired at " + hold.expiresAt());
+    }
+}
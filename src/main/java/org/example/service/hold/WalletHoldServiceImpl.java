@@ -0,0 +1,123 @@
+package org.example.service.hold;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.example.dto.WalletHoldDto;
+import org.example.dto.WalletHoldRequestDto;
+import org.example.exception.WalletHoldNotFoundException;
+import org.example.metrics.WalletMetrics;
+import org.example.model.OperationType;
+import org.example.repository.WalletHoldRepository;
+import org.example.service.WalletHoldService;
+import org.example.service.admission.WalletAdmission;
+import org.example.service.sharding.WalletShards;
+import org.example.service.wallet.WalletOperationRetry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Not transactional itself, every retry of a lock failure runs a new transaction. Holds expire
+ * by {@link WalletHoldSweeper}, a capture after the expiry time is rejected even before the sweep.
+ *
+ * <p>A hold lives on the shard of its wallet, its id is picked to hash to the same shard.
+ */
+@Service
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "postgres", matchIfMissing = true)
+public class WalletHoldServiceImpl implements WalletHoldService {
+    private final WalletHoldProcessor processor;
+    private final WalletHoldRepository holdRepository;
+    private final WalletOperationRetry retry;
+    private final WalletAdmission admission;
+    private final WalletShards shards;
+    private final WalletMetrics metrics;
+    private final Duration defaultTtl;
+
+    public WalletHoldServiceImpl(
+            WalletHoldProcessor processor,
+            WalletHoldRepository holdRepository,
+            WalletOperationRetry retry,
+            WalletAdmission admission,
+            WalletShards shards,
+            WalletMetrics metrics,
+            @Value("${wallet.holds.default-ttl:7d}") Duration defaultTtl) {
+        this.processor = processor;
+        this.holdRepository = holdRepository;
+        this.retry = retry;
+        this.admission = admission;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.defaultTtl = defaultTtl;
+    }
+
+    @Override
+    public WalletHoldDto hold(WalletHoldRequestDto dto) {
+        UUID uuid = dto.getWalletUuid();
+        Duration ttl = dto.getTtlSeconds() == null ? defaultTtl : Duration.ofSeconds(dto.getTtlSeconds());
+        Instant expiresAt = Instant.now().plus(ttl);
+        UUID holdId = shards.newId(uuid);
+        return record(
+                OperationType.HOLD,
+                () -> shards.onShard(
+                        uuid,
+                        () -> retry.execute(
+                                uuid,
+                                () -> admission.execute(
+                                        uuid, () -> processor.hold(holdId, uuid, dto.getAmount(), expiresAt)))));
+    }
+
+    @Override
+    public WalletHoldDto capture(UUID holdId, long amount) {
+        Long captured = amount == 0 ? null : amount;
+        return record(
+                OperationType.CAPTURE,
+                () -> onHoldShard(holdId, () -> retry.execute(holdId, () -> processor.capture(holdId, captured))));
+    }
+
+    @Override
+    public WalletHoldDto release(UUID holdId) {
+        return record(
+                OperationType.RELEASE,
+                () -> onHoldShard(holdId, () -> retry.execute(holdId, () -> processor.release(holdId))));
+    }
+
+    @Override
+    public WalletHoldDto getHold(UUID holdId) {
+        return onHoldShard(holdId, () -> holdRepository
+                .findById(holdId)
+                .orElseThrow(() -> new WalletHoldNotFoundException("Hold with id: " + holdId + " was not found")));
+    }
+
+    /**
+     * Holds of a wallet moved by {@link org.example.service.sharding.WalletShardMigrator} keep their ids,
+     * such a hold is looked up on every shard.
+     */
+    private WalletHoldDto onHoldShard(UUID holdId, Supplier<WalletHoldDto> operation) {
+        try {
+            return shards.onShard(shards.shardOf(holdId), operation);
+        } catch (WalletHoldNotFoundException e) {
+            if (shards.count() == 1) {
+                throw e;
+            }
+            UUID walletUuid = shards.findOnAnyShard(0, () -> holdRepository.findById(holdId))
+                    .map(WalletHoldDto::walletUuid)
+                    .orElseThrow(() -> e);
+            return shards.onShard(walletUuid, operation);
+        }
+    }
+
+    private WalletHoldDto record(OperationType operationType, Supplier<WalletHoldDto> operation) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.recordOperation(operationType, error, System.nanoTime() - start);
+        }
+    }
+}
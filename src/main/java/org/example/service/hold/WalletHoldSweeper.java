@@ -0,0 +1,71 @@
+package org.example.service.hold;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.metrics.WalletMetrics;
+import org.example.service.sharding.WalletShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases expired holds every wallet.holds.sweeper.interval. Each batch is one transaction that reads
+ * the oldest expired holds from the partial index on expires_at, so the cost depends on the number of
+ * expired holds only, not on all open or closed ones. Locked holds are skipped, several instances
+ * can sweep at once. Shards are swept one after another.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.holds.sweeper", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "postgres", matchIfMissing = true)
+public class WalletHoldSweeper {
+    private final WalletHoldProcessor processor;
+    private final WalletShards shards;
+    private final WalletMetrics metrics;
+    private final int batchSize;
+
+    public WalletHoldSweeper(
+            WalletHoldProcessor processor,
+            WalletShards shards,
+            WalletMetrics metrics,
+            @Value("${wallet.holds.sweeper.batch-size:1000}") int batchSize) {
+        this.processor = processor;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.holds.sweeper.interval:1s}")
+    public void scheduledSweep() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Hold expiry sweep failed", e);
+        }
+    }
+
+    /**
+     * @return number of expired holds
+     */
+    public int sweep() {
+        int total = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            total += shards.onShard(shard, this::sweepShard);
+        }
+        if (total > 0) {
+            log.debug("Expired {} holds", total);
+        }
+        return total;
+    }
+
+    private int sweepShard() {
+        int total = 0;
+        int expired;
+        do {
+            expired = processor.expireBatch(batchSize);
+            metrics.holdsExpired(expired);
+            total += expired;
+        } while (expired == batchSize);
+        return total;
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.service.idempotency;
+
+import java.time.Duration;
+import java.time.Instant;
+import lombok.extern.slf4j.Slf4j;
+import org.example.metrics.WalletMetrics;
+import org.example.repository.WalletBatchRepository;
+import org.example.service.sharding.WalletShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deletes Idempotency-Keys older than wallet.idempotency.retention every wallet.idempotency.purge.interval,
+ * oldest first through the index on created_at, one transaction per batch. A request retried with a purged
+ * key is applied again, so the retention must be longer than any client retries.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(
+        prefix = "wallet.idempotency.purge",
+        name = "enabled",
+        havingValue = "true",
+        matchIfMissing = true)
+public class IdempotencyKeyPurger {
+    private final WalletBatchRepository batchRepository;
+    private final WalletShards shards;
+    private final WalletMetrics metrics;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final int batchSize;
+
+    public IdempotencyKeyPurger(
+            WalletBatchRepository batchRepository,
+            WalletShards shards,
+            WalletMetrics metrics,
+            TransactionTemplate transactionTemplate,
+            @Value("${wallet.idempotency.retention:7d}") Duration retention,
+            @Value("${wallet.idempotency.purge.batch-size:1000}") int batchSize) {
+        this.batchRepository = batchRepository;
+        this.shards = shards;
+        this.metrics = metrics;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.idempotency.purge.interval:1h}")
+    public void scheduledPurge() {
+        try {
+            purge();
+        } catch (Exception e) {
+            log.error("Idempotency-Key purge failed", e);
+        }
+    }
+
+    /**
+     * @return number of deleted keys
+     */
+    public int purge() {
+        Instant createdBefore = Instant.now().minus(retention);
+        int total = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            total += shards.onShard(shard, () -> purgeShard(createdBefore));
+        }
+        if (total > 0) {
+            log.info("Purged {} Idempotency-Keys recorded before {}", total, createdBefore);
+        }
+        return total;
+    }
+
+    private int purgeShard(Instant createdBefore) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(
+                    status -> batchRepository.deleteIdempotencyKeysBefore(createdBefore, batchSize));
+            metrics.idempotencyKeysPurged(deleted);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+}
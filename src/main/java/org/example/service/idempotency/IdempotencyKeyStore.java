@@ -0,0 +1,143 @@
+package org.example.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.InvalidIdempotencyKeyException;
+import org.example.model.IdempotencyKey;
+import org.example.repository.IdempotencyKeyRepository;
+import org.example.repository.WalletBatchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Idempotency keys are recorded in the operation transaction. Recorded keys are also kept
+ * in a bounded, expiring in-memory cache, so a retried request is usually answered
+ * without a transaction and without touching the wallet row.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyStore {
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyKeyRepository repository;
+    private final WalletBatchRepository batchRepository;
+    private final Cache<String, IdempotencyKey> cache;
+
+    public IdempotencyKeyStore(
+            IdempotencyKeyRepository repository,
+            WalletBatchRepository batchRepository,
+            @Value("${wallet.idempotency.cache.max-size:100000}") long maxSize,
+            @Value("${wallet.idempotency.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.repository = repository;
+        this.batchRepository = batchRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public void checkKey(String key) {
+        if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+            throw new InvalidIdempotencyKeyException(
+                    String.format("Idempotency-Key must be not blank and maximum %d characters", MAX_KEY_LENGTH));
+        }
+    }
+
+    /**
+     * @return stored response from memory, or null when the key is not cached
+     */
+    public WalletBalanceResponseDto findCached(WalletRequestPostDto dto) {
+        IdempotencyKey stored = cache.getIfPresent(dto.getIdempotencyKey());
+        return stored == null ? null : replay(stored, dto);
+    }
+
+    /**
+     * @return stored response from the database, or null when the key was never recorded
+     */
+    public WalletBalanceResponseDto findStored(WalletRequestPostDto dto) {
+        return repository
+                .findById(dto.getIdempotencyKey())
+                .map(stored -> {
+                    cache.put(stored.getIdempotencyKey(), stored);
+                    return replay(stored, dto);
+                })
+                .orElse(null);
+    }
+
+    public Map<String, IdempotencyKey> findStored(Collection<String> keys) {
+        Map<String, IdempotencyKey> stored = new HashMap<>();
+        if (!keys.isEmpty()) {
+            repository.findAllById(keys).forEach(key -> stored.put(key.getIdempotencyKey(), key));
+        }
+        return stored;
+    }
+
+    /**
+     * Records the key in the current transaction.
+     *
+     * @return false when the key was recorded concurrently
+     */
+    public boolean record(WalletRequestPostDto dto, long balance) {
+        return repository.insertIfAbsent(
+                        dto.getIdempotencyKey(),
+                        dto.getWalletUuid(),
+                        dto.getOperationType().name(),
+                        dto.getAmount(),
+                        balance)
+                == 1;
+    }
+
+    /**
+     * Records the keys in the current transaction.
+     *
+     * @return keys recorded concurrently by another transaction, they are committed
+     */
+    public Set<String> recordAll(List<IdempotencyKey> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        return batchRepository.insertIdempotencyKeys(keys);
+    }
+
+    /**
+     * Takes back keys recorded in the current transaction, for a batch that is computed again.
+     */
+    public void forgetAll(Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            batchRepository.deleteIdempotencyKeys(keys);
+        }
+    }
+
+    /**
+     * Caches the response once the operation transaction is committed.
+     */
+    public void remember(WalletRequestPostDto dto, long balance) {
+        cache.put(dto.getIdempotencyKey(), toKey(dto, balance));
+    }
+
+    public IdempotencyKey toKey(WalletRequestPostDto dto, long balance) {
+        return new IdempotencyKey(
+                dto.getIdempotencyKey(), dto.getWalletUuid(), dto.getOperationType(), dto.getAmount(), balance, null);
+    }
+
+    public WalletBalanceResponseDto replay(IdempotencyKey stored, WalletRequestPostDto dto) {
+        if (!stored.getWalletUuid().equals(dto.getWalletUuid())
+                || stored.getOperationType() != dto.getOperationType()
+                || stored.getAmount() != dto.getAmount()) {
+            throw new IdempotencyKeyConflictException(String.format(
+                    "Idempotency-Key: %s was already used with another request", stored.getIdempotencyKey()));
+        }
+        log.debug("Replaying response for Idempotency-Key: {}", stored.getIdempotencyKey());
+        return new WalletBalanceResponseDto(stored.getBalance());
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.service.memory;
+
+import java.util.UUID;
+import org.example.dto.WalletBatchRequestDto;
+import org.example.dto.WalletBatchResponseDto;
+import org.example.dto.WalletHoldDto;
+import org.example.dto.WalletHoldRequestDto;
+import org.example.dto.WalletOperationPageDto;
+import org.example.dto.WalletTransferRequestDto;
+import org.example.dto.WalletTransferResponseDto;
+import org.example.exception.WalletEngineUnsupportedException;
+import org.example.service.WalletBatchService;
+import org.example.service.WalletHoldService;
+import org.example.service.WalletOperationService;
+import org.example.service.WalletTransferService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Transfers, batches, holds and history with wallet.engine: memory. They would run on Postgres, which the
+ * engine does not write back to, so they are rejected instead of answering from stale balances.
+ * Async operations are applied on Postgres as well and cannot be enabled with the engine.
+ */
+@Service
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "memory")
+public class InMemoryUnsupportedService
+        implements WalletTransferService, WalletBatchService, WalletHoldService, WalletOperationService {
+
+    public InMemoryUnsupportedService(@Value("${wallet.async.enabled:false}") boolean asyncEnabled) {
+        if (asyncEnabled) {
+            throw new IllegalStateException("wallet.async cannot be enabled together with wallet.engine=memory");
+        }
+    }
+
+    @Override
+    public WalletTransferResponseDto transfer(WalletTransferRequestDto dto) {
+        throw unsupported("Transfers are");
+    }
+
+    @Override
+    public WalletBatchResponseDto processBatch(WalletBatchRequestDto dto) {
+        throw unsupported("Batches are");
+    }
+
+    @Override
+    public WalletHoldDto hold(WalletHoldRequestDto dto) {
+        throw unsupported("Holds are");
+    }
+
+    @Override
+    public WalletHoldDto capture(UUID holdId, long amount) {
+        throw unsupported("Holds are");
+    }
+
+    @Override
+    public WalletHoldDto release(UUID holdId) {
+        throw unsupported("Holds are");
+    }
+
+    @Override
+    public WalletHoldDto getHold(UUID holdId) {
+        throw unsupported("Holds are");
+    }
+
+    @Override
+    public WalletOperationPageDto getOperations(UUID uuid, Long cursor, int limit) {
+        throw unsupported("Operation history is");
+    }
+
+    private static WalletEngineUnsupportedException unsupported(String subject) {
+        return new WalletEngineUnsupportedException(subject + " not supported with wallet.engine=memory");
+    }
+}
@@ -0,0 +1,207 @@
+package org.example.service.memory;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceItemDto;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.WalletNoExistException;
+import org.example.metrics.WalletMetrics;
+import org.example.model.IdempotencyKey;
+import org.example.service.WalletService;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.util.WalletServiceValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Wallet operations on balances held in memory with wallet.engine: memory. Wallets are spread over
+ * shards by uuid hash, each shard is owned by one writer thread, so an operation takes no lock and
+ * no DB connection. Durability comes from the journal of every shard, written with one fsync per
+ * batch, and periodic snapshots; a restart loads the last snapshot and replays the journal after it.
+ *
+ * <p>Every start imports the wallets and Idempotency-Keys from Postgres the engine does not have yet, so a
+ * wallet created in Postgres is served after the next restart. Transfers, holds, batches and history are
+ * rejected, see {@link InMemoryUnsupportedService}, the export still reads Postgres and does not see
+ * balances changed here.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "memory")
+public class InMemoryWalletService implements WalletService {
+    private final List<WalletEngineShard> shards;
+    private final ExecutorService snapshotWriter;
+    private final IdempotencyKeyStore idempotencyKeyStore;
+    private final WalletMetrics metrics;
+
+    public InMemoryWalletService(
+            WalletServiceValidator validator,
+            IdempotencyKeyStore idempotencyKeyStore,
+            WalletMetrics metrics,
+            WalletEngineBootstrap bootstrap,
+            @Value("${wallet.memory.dir:data/engine}") String directory,
+            @Value("${wallet.memory.shards:4}") int shardCount,
+            @Value("${wallet.memory.ring-size:65536}") int ringSize,
+            @Value("${wallet.memory.max-batch-size:1024}") int maxBatchSize,
+            @Value("${wallet.memory.offer-timeout:5s}") Duration offerTimeout,
+            @Value("${wallet.memory.snapshot-every:1000000}") long snapshotEvery,
+            @Value("${wallet.memory.fsync:true}") boolean fsync) {
+        this.idempotencyKeyStore = idempotencyKeyStore;
+        this.metrics = metrics;
+        this.snapshotWriter = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("wallet-engine-snapshot").daemon().factory());
+        Map<String, IdempotencyKey> keys = new ConcurrentHashMap<>();
+        Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+        List<WalletEngineShard> created = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            created.add(new WalletEngineShard(
+                    i,
+                    ringSize,
+                    maxBatchSize,
+                    offerTimeout,
+                    snapshotEvery,
+                    fsync,
+                    validator,
+                    idempotencyKeyStore,
+                    keys,
+                    pendingKeys,
+                    snapshotWriter));
+        }
+        this.shards = List.copyOf(created);
+        try {
+            WalletEngineStore.open(Path.of(directory), shards, this::shardOf, bootstrap);
+            for (WalletEngineShard shard : shards) {
+                shard.start();
+            }
+        } catch (IOException e) {
+            snapshotWriter.shutdownNow();
+            throw new UncheckedIOException("Failed to open wallet engine in " + directory, e);
+        }
+    }
+
+    @Override
+    public WalletBalanceResponseDto processWalletOperation(WalletRequestPostDto dto) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            idempotencyKeyStore.checkKey(dto.getIdempotencyKey());
+            CompletableFuture<WalletBalanceResponseDto> result = new CompletableFuture<>();
+            shards.get(shardOf(dto.getWalletUuid())).submit(new WalletEngineShard.Apply(dto, result));
+            return join(result);
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.recordOperation(dto.getOperationType(), error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Balances are read on the writer thread of the shard, after every acknowledged operation.
+     * There is no replica, readYourWrites has nothing to choose.
+     */
+    @Override
+    public WalletBalanceResponseDto getBalance(UUID uuid, boolean readYourWrites) {
+        Long balance = join(read(shardOf(uuid), List.of(uuid)))[0];
+        if (balance == null) {
+            throw new WalletNoExistException("Wallet with uuid: " + uuid + " was not found");
+        }
+        return new WalletBalanceResponseDto(balance);
+    }
+
+    /**
+     * One read per shard, all shards at once, balances are handed over in the given order.
+     */
+    @Override
+    public void streamBalances(Collection<UUID> uuids, Consumer<WalletBalanceItemDto> consumer) {
+        Map<Integer, List<UUID>> byShard = new LinkedHashMap<>();
+        for (UUID uuid : uuids) {
+            byShard.computeIfAbsent(shardOf(uuid), shard -> new ArrayList<>()).add(uuid);
+        }
+        Map<Integer, CompletableFuture<Long[]>> reads = new HashMap<>(byShard.size());
+        byShard.forEach((shard, shardUuids) -> reads.put(shard, read(shard, shardUuids)));
+        Map<UUID, Long> balances = new HashMap<>(uuids.size());
+        byShard.forEach((shard, shardUuids) -> {
+            Long[] shardBalances = join(reads.get(shard));
+            for (int i = 0; i < shardBalances.length; i++) {
+                balances.put(shardUuids.get(i), shardBalances[i]);
+            }
+        });
+        for (UUID uuid : uuids) {
+            Long balance = balances.get(uuid);
+            consumer.accept(new WalletBalanceItemDto(uuid, balance != null, balance));
+        }
+    }
+
+    /**
+     * Stripes spread row locks in Postgres, a wallet in memory has none to spread. Only the balance is answered.
+     */
+    @Override
+    public WalletBalanceResponseDto setStripes(UUID uuid, int stripes) {
+        return getBalance(uuid);
+    }
+
+    /**
+     * Writes the journals of all shards out, snapshots already handed over are finished.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        List<CompletableFuture<Void>> stopped = new ArrayList<>(shards.size());
+        for (WalletEngineShard shard : shards) {
+            CompletableFuture<Void> result = new CompletableFuture<>();
+            try {
+                shard.submit(new WalletEngineShard.Stop(result));
+                stopped.add(result);
+            } catch (IllegalStateException e) {
+                log.debug("Wallet engine shard already stopped", e);
+            }
+        }
+        stopped.forEach(CompletableFuture::join);
+        snapshotWriter.shutdown();
+        if (!snapshotWriter.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Wallet engine snapshot still being written on shutdown, the journal covers it");
+        }
+    }
+
+    int shardOf(UUID uuid) {
+        long hash = WalletBalanceMap.hash(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+        return (int) ((hash >>> 32) % shards.size());
+    }
+
+    private CompletableFuture<Long[]> read(int shard, List<UUID> uuids) {
+        CompletableFuture<Long[]> result = new CompletableFuture<>();
+        shards.get(shard).submit(new WalletEngineShard.Read(uuids, result));
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.service.memory;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+import org.example.service.sharding.WalletShards;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Imports wallets with their total balance and the recorded Idempotency-Keys from every shard, through
+ * a cursor so a large table is not held in memory twice. Runs on every start, the whole table is read
+ * even when only a few wallets are new.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "memory")
+public class PostgresWalletEngineBootstrap implements WalletEngineBootstrap {
+    private static final int FETCH_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final WalletShards shards;
+
+    public PostgresWalletEngineBootstrap(DataSource dataSource, WalletShards shards) {
+        this.dataSource = dataSource;
+        this.shards = shards;
+    }
+
+    @Override
+    public void load(WalletBalanceLoader wallets, Consumer<IdempotencyKey> keys) {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(shards.shardDataSource(shard, dataSource));
+            jdbcTemplate.setFetchSize(FETCH_SIZE);
+            jdbcTemplate.query(
+                    """
+                    SELECT uuid, balance + CASE WHEN stripes > 1 THEN
+                        (SELECT COALESCE(SUM(s.balance), 0)::BIGINT FROM wallet_balance_slots s WHERE s.wallet_uuid = w.uuid)
+                    ELSE 0 END AS total
+                    FROM wallets w
+                    """,
+                    rs -> {
+                        wallets.accept(rs.getObject("uuid", UUID.class), rs.getLong("total"));
+                    });
+            jdbcTemplate.query(
+                    "SELECT idempotency_key, wallet_uuid, operation_type, amount, balance FROM idempotency_keys",
+                    rs -> {
+                        keys.accept(new IdempotencyKey(
+                                rs.getString("idempotency_key"),
+                                rs.getObject("wallet_uuid", UUID.class),
+                                OperationType.valueOf(rs.getString("operation_type")),
+                                rs.getLong("amount"),
+                                rs.getLong("balance"),
+                                null));
+                    });
+            log.info("Wallet engine imported shard {} of {} from Postgres", shard, shards.count());
+        }
+    }
+}
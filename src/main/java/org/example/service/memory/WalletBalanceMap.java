@@ -0,0 +1,157 @@
+package org.example.service.memory;
+
+import java.util.UUID;
+
+/**
+ * Open addressing map from a wallet uuid to its balance on plain long arrays, no boxing and no entry
+ * objects. Not thread safe, it is only touched by the writer thread of its shard.
+ *
+ * <p>A slot with both uuid halves 0 is empty, the nil uuid itself is kept in an extra slot past the table.
+ */
+final class WalletBalanceMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] msbs;
+    private long[] lsbs;
+    private long[] balances;
+    private int mask;
+    private int size;
+    private boolean hasNil;
+
+    WalletBalanceMap() {
+        this(MIN_CAPACITY);
+    }
+
+    private WalletBalanceMap(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * Mixes both halves, random and hand-made uuids alike. Shards take the high bits, tables the low ones.
+     */
+    static long hash(long msb, long lsb) {
+        long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    int size() {
+        return size + (hasNil ? 1 : 0);
+    }
+
+    /**
+     * @return slot of the wallet, -1 when it is not in the map
+     */
+    int indexOf(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            return hasNil ? mask + 1 : -1;
+        }
+        int i = (int) hash(msb, lsb) & mask;
+        while (true) {
+            long m = msbs[i];
+            long l = lsbs[i];
+            if (m == msb && l == lsb) {
+                return i;
+            }
+            if (m == 0 && l == 0) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    long balanceAt(int index) {
+        return balances[index];
+    }
+
+    void setBalanceAt(int index, long balance) {
+        balances[index] = balance;
+    }
+
+    void put(UUID uuid, long balance) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) {
+            hasNil = true;
+            balances[mask + 1] = balance;
+            return;
+        }
+        int index = indexOf(uuid);
+        if (index >= 0) {
+            balances[index] = balance;
+            return;
+        }
+        // Load factor 0.5 keeps probe sequences short
+        if ((size + 1) * 2 > mask + 1) {
+            resize((mask + 1) * 2);
+        }
+        insert(msb, lsb, balance);
+    }
+
+    void forEach(WalletBalanceConsumer consumer) {
+        for (int i = 0; i <= mask; i++) {
+            if (msbs[i] != 0 || lsbs[i] != 0) {
+                consumer.accept(msbs[i], lsbs[i], balances[i]);
+            }
+        }
+        if (hasNil) {
+            consumer.accept(0, 0, balances[mask + 1]);
+        }
+    }
+
+    /**
+     * Copy for a snapshot written by another thread.
+     */
+    WalletBalanceMap copy() {
+        WalletBalanceMap copy = new WalletBalanceMap(MIN_CAPACITY);
+        copy.msbs = msbs.clone();
+        copy.lsbs = lsbs.clone();
+        copy.balances = balances.clone();
+        copy.mask = mask;
+        copy.size = size;
+        copy.hasNil = hasNil;
+        return copy;
+    }
+
+    private void insert(long msb, long lsb, long balance) {
+        int i = (int) hash(msb, lsb) & mask;
+        while (msbs[i] != 0 || lsbs[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        msbs[i] = msb;
+        lsbs[i] = lsb;
+        balances[i] = balance;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldMsbs = msbs;
+        long[] oldLsbs = lsbs;
+        long[] oldBalances = balances;
+        int oldMask = mask;
+        allocate(capacity);
+        balances[mask + 1] = oldBalances[oldMask + 1];
+        for (int i = 0; i <= oldMask; i++) {
+            if (oldMsbs[i] != 0 || oldLsbs[i] != 0) {
+                insert(oldMsbs[i], oldLsbs[i], oldBalances[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        msbs = new long[capacity];
+        lsbs = new long[capacity];
+        balances = new long[capacity + 1];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    @FunctionalInterface
+    interface WalletBalanceConsumer {
+        void accept(long msb, long lsb, long balance);
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.service.memory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded many producers, one consumer ring of commands, in the way of the LMAX Disruptor multi-producer
+ * sequencer: a producer claims a sequence with a compare-and-set and publishes into its slot, the
+ * consumer takes published slots in sequence order. No locks on either side.
+ *
+ * <p>A sequence is claimed only once its slot is free, so a producer never waits after claiming. One that
+ * finds the ring full parks briefly until the consumer frees slots, or gives up without leaving a gap.
+ * The consumer spins a little when the ring is empty, then parks until a producer wakes it up.
+ */
+final class WalletCommandRing {
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int SPINS = 200;
+    private static final long PARK_NANOS = 1_000_000;
+
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    /**
+     * Slots before this sequence are free again, written by the consumer only.
+     */
+    private volatile long consumed;
+
+    private volatile boolean parked;
+    private volatile Thread consumer;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    WalletCommandRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * @param giveUp checked while the ring is full
+     * @return false when the command was not published because giveUp said so
+     */
+    boolean offer(Object command, BooleanSupplier giveUp) {
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                if (giveUp.getAsBoolean()) {
+                    return false;
+                }
+                LockSupport.parkNanos(1_000);
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        SLOTS.setVolatile(slots, (int) sequence & mask, command);
+        if (parked) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * Moves up to max published commands to the batch in sequence order, consumer thread only.
+     *
+     * @return number of commands taken
+     */
+    int drainTo(List<Object> batch, int max) {
+        long next = consumed;
+        int count = 0;
+        while (count < max) {
+            int index = (int) next & mask;
+            Object command = SLOTS.getAcquire(slots, index);
+            if (command == null) {
+                break;
+            }
+            SLOTS.setRelease(slots, index, null);
+            batch.add(command);
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            consumed = next;
+        }
+        return count;
+    }
+
+    /**
+     * Waits until the next command is published or a while has passed, consumer thread only.
+     */
+    void await() {
+        consumer = Thread.currentThread();
+        int index = (int) consumed & mask;
+        for (int i = 0; i < SPINS; i++) {
+            if (SLOTS.getAcquire(slots, index) != null) {
+                return;
+            }
+            Thread.onSpinWait();
+        }
+        parked = true;
+        // Both sides write, then read the other's flag with volatile access, so a wake up is not lost
+        if (SLOTS.getVolatile(slots, index) == null) {
+            LockSupport.parkNanos(this, PARK_NANOS);
+        }
+        parked = false;
+    }
+}
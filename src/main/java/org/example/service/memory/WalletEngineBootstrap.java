@@ -0,0 +1,19 @@
+package org.example.service.memory;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.example.model.IdempotencyKey;
+
+/**
+ * Source of the wallets of the in-memory engine, read on every start. The first start takes all of them,
+ * later starts only the wallets and keys the engine does not have yet.
+ */
+@FunctionalInterface
+public interface WalletEngineBootstrap {
+    void load(WalletBalanceLoader wallets, Consumer<IdempotencyKey> keys);
+
+    @FunctionalInterface
+    interface WalletBalanceLoader {
+        void accept(UUID walletUuid, long balance);
+    }
+}
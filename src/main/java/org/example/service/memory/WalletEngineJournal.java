@@ -0,0 +1,202 @@
+package org.example.service.memory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.example.model.OperationType;
+
+/**
+ * Append-only journal of the operations applied by one engine shard, in segment files
+ * journal-&lt;first sequence&gt;.log. A new segment is started for every snapshot, the ones before it
+ * are deleted when the snapshot is on disk.
+ *
+ * <p>Records are length prefixed with a CRC: sequence, wallet uuid, operation type, amount and the
+ * Idempotency-Key. The writer thread appends to a buffer and {@link #flush} writes the whole batch
+ * with one fsync. Only operations that changed a balance are journaled, rejections are not.
+ */
+@Slf4j
+final class WalletEngineJournal implements Closeable {
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    /**
+     * length, crc.
+     */
+    private static final int HEADER_SIZE = 4 + 4;
+    /**
+     * sequence, wallet uuid, operation type, amount, key length.
+     */
+    private static final int FIXED_SIZE = 8 + 16 + 1 + 8 + 2;
+
+    private final Path directory;
+    private final boolean fsync;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private FileChannel channel;
+
+    WalletEngineJournal(Path directory, long firstSequence, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.channel = create(firstSequence);
+    }
+
+    void append(long sequence, UUID walletUuid, OperationType operationType, long amount, String idempotencyKey) {
+        byte[] key = idempotencyKey == null ? new byte[0] : idempotencyKey.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_SIZE + key.length;
+        if (buffer.remaining() < HEADER_SIZE + length) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, HEADER_SIZE + length));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        int start = buffer.position();
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.putLong(sequence);
+        buffer.putLong(walletUuid.getMostSignificantBits());
+        buffer.putLong(walletUuid.getLeastSignificantBits());
+        buffer.put((byte) operationType.ordinal());
+        buffer.putLong(amount);
+        buffer.putShort((short) key.length);
+        buffer.put(key);
+        buffer.putInt(start + 4, crc(buffer.slice(start + HEADER_SIZE, length)));
+    }
+
+    /**
+     * Writes the appended records, they are durable when this returns with fsync on.
+     */
+    void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Continues in a new segment, records up to firstSequence - 1 stay in the old ones.
+     */
+    void roll(long firstSequence) throws IOException {
+        flush();
+        channel.force(false);
+        channel.close();
+        channel = create(firstSequence);
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * Deletes the segments that only hold records covered by a snapshot, called after the snapshot is on disk.
+     */
+    static void deleteBefore(Path directory, long firstSequence) throws IOException {
+        for (Path segment : segments(directory)) {
+            if (firstSequence(segment) < firstSequence) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * Reads records after the given sequence in order. A torn or corrupted record may only be the last one
+     * of the last segment, it was never acknowledged. Anywhere else it is an error.
+     *
+     * @return last sequence read
+     */
+    static long replay(Path directory, long afterSequence, RecordConsumer consumer) throws IOException {
+        List<Path> segments = segments(directory);
+        long last = afterSequence;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while (data.remaining() >= HEADER_SIZE) {
+                int length = data.getInt(data.position());
+                int crc = data.getInt(data.position() + 4);
+                if (length < FIXED_SIZE
+                        || length > data.remaining() - HEADER_SIZE
+                        || crc != crc(data.slice(data.position() + HEADER_SIZE, length))) {
+                    break;
+                }
+                data.position(data.position() + HEADER_SIZE);
+                long sequence = data.getLong();
+                UUID walletUuid = new UUID(data.getLong(), data.getLong());
+                OperationType operationType = OperationType.values()[data.get()];
+                long amount = data.getLong();
+                byte[] key = new byte[data.getShort()];
+                data.get(key);
+                if (sequence <= afterSequence) {
+                    continue;
+                }
+                if (sequence != last + 1) {
+                    throw new IOException("Journal " + segment + " has sequence " + sequence + " after " + last);
+                }
+                consumer.accept(
+                        walletUuid,
+                        operationType,
+                        amount,
+                        key.length == 0 ? null : new String(key, StandardCharsets.UTF_8));
+                last = sequence;
+            }
+            if (data.hasRemaining()) {
+                if (i < segments.size() - 1) {
+                    throw new IOException("Journal segment " + segment + " is corrupted at " + data.position());
+                }
+                log.warn("Journal segment {} has a torn record at {}, it is dropped", segment, data.position());
+            }
+        }
+        return last;
+    }
+
+    private FileChannel create(long firstSequence) throws IOException {
+        Path file = directory.resolve(PREFIX + String.format("%019d", firstSequence) + SUFFIX);
+        return FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static int crc(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    @FunctionalInterface
+    interface RecordConsumer {
+        void accept(UUID walletUuid, OperationType operationType, long amount, String idempotencyKey);
+    }
+}
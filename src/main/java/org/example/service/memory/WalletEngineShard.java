@@ -0,0 +1,397 @@
+package org.example.service.memory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.WalletOperationTimeoutException;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.util.WalletServiceValidator;
+
+/**
+ * Balances of the wallets of one shard, owned by a single writer thread. Commands come through a
+ * {@link WalletCommandRing} and are taken in batches: every command of a batch is applied to the map,
+ * the journal records of the batch are written with one fsync, then all of its callers are answered.
+ * So no caller sees a balance that is not durable yet, reads included.
+ *
+ * <p>Every snapshot-every operations the writer copies its map, starts a new journal segment and hands
+ * the copy to the snapshot writer. When the journal cannot be written the shard fails every command
+ * from then on, a restart recovers the last durable state.
+ */
+@Slf4j
+final class WalletEngineShard implements Runnable {
+    private final int index;
+    private final WalletCommandRing ring;
+    private final int maxBatchSize;
+    private final long offerTimeoutNanos;
+    private final long snapshotEvery;
+    private final boolean fsync;
+    private final WalletServiceValidator validator;
+    private final IdempotencyKeyStore idempotencyKeyStore;
+    /**
+     * Durable keys of all shards, a key used with wallets of two shards is recorded once.
+     */
+    private final Map<String, IdempotencyKey> keys;
+    /**
+     * Keys of all shards recorded by a batch that is not flushed yet.
+     */
+    private final Set<String> pendingKeys;
+
+    private final List<IdempotencyKey> shardKeys = new ArrayList<>();
+    private final Map<String, IdempotencyKey> batchKeys = new HashMap<>();
+    private final WalletBalanceMap wallets = new WalletBalanceMap();
+    private final Executor snapshotWriter;
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final Thread thread;
+    private Path directory;
+    private WalletEngineJournal journal;
+    private long sequence;
+    private long snapshotSequence;
+    private volatile RuntimeException failure;
+
+    WalletEngineShard(
+            int index,
+            int ringSize,
+            int maxBatchSize,
+            Duration offerTimeout,
+            long snapshotEvery,
+            boolean fsync,
+            WalletServiceValidator validator,
+            IdempotencyKeyStore idempotencyKeyStore,
+            Map<String, IdempotencyKey> keys,
+            Set<String> pendingKeys,
+            Executor snapshotWriter) {
+        this.index = index;
+        this.ring = new WalletCommandRing(ringSize);
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.snapshotEvery = snapshotEvery;
+        this.fsync = fsync;
+        this.validator = validator;
+        this.idempotencyKeyStore = idempotencyKeyStore;
+        this.keys = keys;
+        this.pendingKeys = pendingKeys;
+        this.snapshotWriter = snapshotWriter;
+        this.thread = Thread.ofPlatform()
+                .name("wallet-engine-" + index)
+                .daemon()
+                .uncaughtExceptionHandler((thread, e) -> {
+                    failure = new IllegalStateException("Wallet engine shard " + index + " stopped unexpectedly", e);
+                    log.error("Wallet engine shard {} fails all operations until restart", index, e);
+                    failQueued();
+                })
+                .unstarted(this);
+    }
+
+    sealed interface Command permits Apply, Read, Stop {}
+
+    record Apply(WalletRequestPostDto dto, CompletableFuture<WalletBalanceResponseDto> result) implements Command {}
+
+    /**
+     * Balances in the given order, null for a wallet that does not exist.
+     */
+    record Read(List<UUID> uuids, CompletableFuture<Long[]> result) implements Command {}
+
+    record Stop(CompletableFuture<Void> result) implements Command {}
+
+    void load(UUID uuid, long balance) {
+        wallets.put(uuid, balance);
+    }
+
+    /**
+     * Loads a wallet of the bootstrap unless the shard has it already, its balance here is the newer one.
+     *
+     * @return true when the wallet was loaded
+     */
+    boolean loadIfAbsent(UUID uuid, long balance) {
+        if (wallets.indexOf(uuid) >= 0) {
+            return false;
+        }
+        wallets.put(uuid, balance);
+        return true;
+    }
+
+    void loadKey(IdempotencyKey key) {
+        if (keys.putIfAbsent(key.getIdempotencyKey(), key) == null) {
+            shardKeys.add(key);
+        }
+    }
+
+    /**
+     * Applies a journal record of the previous run, it was checked when it was first applied.
+     */
+    void replay(UUID uuid, OperationType operationType, long amount, String idempotencyKey) {
+        int slot = wallets.indexOf(uuid);
+        if (slot < 0) {
+            throw new IllegalStateException("Journal has an operation of unknown wallet " + uuid);
+        }
+        long balance = operationType.apply(wallets.balanceAt(slot), amount);
+        wallets.setBalanceAt(slot, balance);
+        if (idempotencyKey != null) {
+            loadKey(new IdempotencyKey(idempotencyKey, uuid, operationType, amount, balance, null));
+        }
+    }
+
+    int size() {
+        return wallets.size();
+    }
+
+    /**
+     * Writes the loaded state as the first snapshot of a new generation, before the shard is started.
+     */
+    void writeSnapshot(Path directory) throws IOException {
+        this.directory = directory;
+        WalletEngineSnapshot.write(directory, 0, wallets, shardKeys);
+    }
+
+    void start() throws IOException {
+        journal = new WalletEngineJournal(directory, 1, fsync);
+        thread.start();
+    }
+
+    /**
+     * Waits up to offer-timeout while the ring is full. A shard that fails or whose writer thread ends
+     * meanwhile is not waited for, its failure is thrown.
+     */
+    void submit(Command command) {
+        RuntimeException failed = failure;
+        // A failed shard still takes Stop while it runs, its journal is closed on shutdown
+        boolean stop = command instanceof Stop;
+        if (failed != null && (!stop || !thread.isAlive())) {
+            throw failed;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        if (ring.offer(
+                command, () -> (!stop && failure != null) || !thread.isAlive() || System.nanoTime() - deadline >= 0)) {
+            return;
+        }
+        failed = failure;
+        if (failed != null) {
+            throw failed;
+        }
+        if (!thread.isAlive()) {
+            throw new IllegalStateException("Wallet engine shard " + index + " is not running");
+        }
+        throw new WalletOperationTimeoutException("Wallet engine shard " + index + " stayed full for "
+                + Duration.ofNanos(offerTimeoutNanos).toMillis() + " ms, it was not applied");
+    }
+
+    @Override
+    public void run() {
+        List<Object> batch = new ArrayList<>(maxBatchSize);
+        Object[] outcomes = new Object[maxBatchSize];
+        Stop stop = null;
+        while (stop == null) {
+            if (ring.drainTo(batch, maxBatchSize) == 0) {
+                ring.await();
+                continue;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Object command = batch.get(i);
+                if (command instanceof Stop stopCommand) {
+                    stop = stopCommand;
+                }
+                try {
+                    outcomes[i] = failure != null ? failure : process(command);
+                } catch (RuntimeException e) {
+                    outcomes[i] = e;
+                }
+            }
+            if (failure == null) {
+                try {
+                    journal.flush();
+                } catch (IOException | RuntimeException e) {
+                    fail(e);
+                    Arrays.fill(outcomes, 0, batch.size(), failure);
+                }
+            }
+            publishKeys();
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), outcomes[i]);
+            }
+            batch.clear();
+            Arrays.fill(outcomes, null);
+            if (failure == null && stop == null && sequence - snapshotSequence >= snapshotEvery) {
+                snapshot();
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.error("Failed to close journal of wallet engine shard {}", index, e);
+        }
+        log.info("Wallet engine shard {} stopped after journal sequence {}", index, sequence);
+        if (failure == null) {
+            failure = new IllegalStateException("Wallet engine shard " + index + " is stopped");
+        }
+        failQueued();
+        stop.result().complete(null);
+    }
+
+    /**
+     * Answers the commands left in the ring with the failure, on the writer thread once it ends.
+     */
+    private void failQueued() {
+        List<Object> batch = new ArrayList<>(maxBatchSize);
+        while (ring.drainTo(batch, maxBatchSize) > 0) {
+            for (Object command : batch) {
+                if (command instanceof Stop stop) {
+                    stop.result().complete(null);
+                } else {
+                    complete(command, failure);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private Object process(Object command) {
+        return switch (command) {
+            case Apply apply -> apply(apply.dto());
+            case Read read -> read(read.uuids());
+            case Stop ignored -> null;
+            default -> throw new IllegalArgumentException("Unknown command " + command);
+        };
+    }
+
+    /**
+     * Same checks in the same order as the Postgres path: a recorded Idempotency-Key is replayed
+     * first, then the wallet must exist and the balance must allow the operation.
+     *
+     * <p>A new key is reserved in pendingKeys and kept with the batch, other shards see it only once the
+     * batch is flushed. The same request always comes to the shard of its wallet, so another shard that
+     * finds the key reserved has a request with another wallet and answers the conflict.
+     */
+    private WalletBalanceResponseDto apply(WalletRequestPostDto dto) {
+        String idempotencyKey = dto.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            IdempotencyKey stored = batchKeys.get(idempotencyKey);
+            if (stored == null) {
+                stored = keys.get(idempotencyKey);
+            }
+            if (stored != null) {
+                return idempotencyKeyStore.replay(stored, dto);
+            }
+        }
+        UUID uuid = dto.getWalletUuid();
+        int slot = wallets.indexOf(uuid);
+        if (slot < 0) {
+            throw validator.walletNotFound(uuid);
+        }
+        long balance = wallets.balanceAt(slot);
+        // Holds stay on Postgres, nothing is reserved in the engine
+        RuntimeException rejection = validator.checkRunningBalance(uuid, balance, 0, dto);
+        if (rejection != null) {
+            throw rejection;
+        }
+        long newBalance = dto.getOperationType().apply(balance, dto.getAmount());
+        if (idempotencyKey != null) {
+            if (!pendingKeys.add(idempotencyKey)) {
+                throw new IdempotencyKeyConflictException(
+                        String.format("Idempotency-Key: %s was already used with another request", idempotencyKey));
+            }
+            // Flushed by another shard between the lookup and the reservation
+            IdempotencyKey concurrent = keys.get(idempotencyKey);
+            if (concurrent != null) {
+                pendingKeys.remove(idempotencyKey);
+                return idempotencyKeyStore.replay(concurrent, dto);
+            }
+            batchKeys.put(idempotencyKey, idempotencyKeyStore.toKey(dto, newBalance));
+        }
+        wallets.setBalanceAt(slot, newBalance);
+        journal.append(++sequence, uuid, dto.getOperationType(), dto.getAmount(), idempotencyKey);
+        return new WalletBalanceResponseDto(newBalance);
+    }
+
+    /**
+     * Makes the keys of the batch visible to all shards once it is durable. Keys of a batch that failed
+     * to flush are dropped, the shard fails every command from then on.
+     */
+    private void publishKeys() {
+        batchKeys.forEach((key, recorded) -> {
+            if (failure == null) {
+                keys.put(key, recorded);
+                shardKeys.add(recorded);
+            }
+            pendingKeys.remove(key);
+        });
+        batchKeys.clear();
+    }
+
+    private Long[] read(List<UUID> uuids) {
+        Long[] balances = new Long[uuids.size()];
+        for (int i = 0; i < balances.length; i++) {
+            int slot = wallets.indexOf(uuids.get(i));
+            balances[i] = slot < 0 ? null : wallets.balanceAt(slot);
+        }
+        return balances;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void complete(Object command, Object outcome) {
+        CompletableFuture<Object> result =
+                switch (command) {
+                    case Apply apply -> (CompletableFuture<Object>) (CompletableFuture<?>) apply.result();
+                    case Read read -> (CompletableFuture<Object>) (CompletableFuture<?>) read.result();
+                    default -> null;
+                };
+        if (result == null) {
+            return;
+        }
+        if (outcome instanceof RuntimeException e) {
+            result.completeExceptionally(e);
+        } else {
+            result.complete(outcome);
+        }
+    }
+
+    private void snapshot() {
+        if (!snapshotting.compareAndSet(false, true)) {
+            return;
+        }
+        long snapshot = sequence;
+        WalletBalanceMap walletsCopy = wallets.copy();
+        List<IdempotencyKey> keysCopy = List.copyOf(shardKeys);
+        try {
+            journal.roll(snapshot + 1);
+        } catch (IOException e) {
+            snapshotting.set(false);
+            fail(e);
+            return;
+        }
+        snapshotSequence = snapshot;
+        snapshotWriter.execute(() -> {
+            try {
+                WalletEngineSnapshot.write(directory, snapshot, walletsCopy, keysCopy);
+                WalletEngineSnapshot.deleteBefore(directory, snapshot);
+                WalletEngineJournal.deleteBefore(directory, snapshot + 1);
+                log.debug("Wallet engine shard {} snapshot at journal sequence {}", index, snapshot);
+            } catch (IOException e) {
+                // The journal since the previous snapshot is kept, nothing is lost
+                log.error("Failed to write snapshot {} of wallet engine shard {}", snapshot, index, e);
+            } finally {
+                snapshotting.set(false);
+            }
+        });
+    }
+
+    private void fail(Exception e) {
+        failure = new IllegalStateException("Wallet engine shard " + index + " stopped, journal write failed", e);
+        log.error("Wallet engine shard {} fails all operations until restart", index, e);
+    }
+}
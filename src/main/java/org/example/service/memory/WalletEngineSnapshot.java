@@ -0,0 +1,175 @@
+package org.example.service.memory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+
+/**
+ * Snapshot of one engine shard in snapshot-&lt;sequence&gt;.bin: balances and Idempotency-Keys after
+ * the operation with that journal sequence, with a CRC of the whole file at the end. It is written
+ * to a temporary file and renamed, so a snapshot file is always complete.
+ */
+final class WalletEngineSnapshot {
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x57534E31;
+
+    private WalletEngineSnapshot() {}
+
+    static void write(Path directory, long sequence, WalletBalanceMap wallets, Collection<IdempotencyKey> keys)
+            throws IOException {
+        Path file = file(directory, sequence);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream out = Files.newOutputStream(temporary);
+                DataOutputStream data =
+                        new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(out, 1 << 16), crc))) {
+            data.writeInt(MAGIC);
+            data.writeLong(sequence);
+            data.writeInt(wallets.size());
+            IOException[] failure = new IOException[1];
+            wallets.forEach((msb, lsb, balance) -> {
+                try {
+                    data.writeLong(msb);
+                    data.writeLong(lsb);
+                    data.writeLong(balance);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            data.writeInt(keys.size());
+            for (IdempotencyKey key : keys) {
+                data.writeUTF(key.getIdempotencyKey());
+                data.writeLong(key.getWalletUuid().getMostSignificantBits());
+                data.writeLong(key.getWalletUuid().getLeastSignificantBits());
+                data.writeByte(key.getOperationType().ordinal());
+                data.writeLong(key.getAmount());
+                data.writeLong(key.getBalance());
+            }
+            data.flush();
+            // The CRC itself is not part of what it covers
+            new DataOutputStream(out).writeInt((int) crc.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        WalletEngineStore.fsyncDirectory(directory);
+    }
+
+    /**
+     * Loads the latest snapshot of the directory.
+     *
+     * @return its sequence, -1 when there is none
+     */
+    static long readLatest(
+            Path directory, WalletBalanceMap.WalletBalanceConsumer wallets, Consumer<IdempotencyKey> keys)
+            throws IOException {
+        List<Path> snapshots = snapshots(directory);
+        if (snapshots.isEmpty()) {
+            return -1;
+        }
+        Path file = snapshots.getLast();
+        verify(file);
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (data.readInt() != MAGIC) {
+                throw new IOException("Snapshot " + file + " is not a wallet engine snapshot");
+            }
+            long sequence = data.readLong();
+            int walletCount = data.readInt();
+            for (int i = 0; i < walletCount; i++) {
+                wallets.accept(data.readLong(), data.readLong(), data.readLong());
+            }
+            int keyCount = data.readInt();
+            for (int i = 0; i < keyCount; i++) {
+                keys.accept(new IdempotencyKey(
+                        data.readUTF(),
+                        new UUID(data.readLong(), data.readLong()),
+                        OperationType.values()[data.readByte()],
+                        data.readLong(),
+                        data.readLong(),
+                        null));
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Deletes snapshots older than the given one.
+     */
+    static void deleteBefore(Path directory, long sequence) throws IOException {
+        for (Path snapshot : snapshots(directory)) {
+            if (sequence(snapshot) < sequence) {
+                Files.deleteIfExists(snapshot);
+            }
+        }
+    }
+
+    private static void verify(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = channel.size() - 4;
+            if (end < 4) {
+                throw new IOException("Snapshot " + file + " is truncated");
+            }
+            CRC32C crc = new CRC32C();
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+            long position = 0;
+            while (position < end) {
+                chunk.clear().limit((int) Math.min(chunk.capacity(), end - position));
+                position += channel.read(chunk, position);
+                crc.update(chunk.flip());
+            }
+            ByteBuffer stored = ByteBuffer.allocate(4);
+            while (stored.hasRemaining()) {
+                channel.read(stored, end + stored.position());
+            }
+            if (stored.getInt(0) != (int) crc.getValue()) {
+                throw new IOException("Snapshot " + file + " is corrupted");
+            }
+        }
+    }
+
+    private static Path file(Path directory, long sequence) {
+        return directory.resolve(PREFIX + String.format("%019d", sequence) + SUFFIX);
+    }
+
+    private static List<Path> snapshots(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .forEach(files::add);
+        }
+        return files;
+    }
+
+    private static long sequence(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
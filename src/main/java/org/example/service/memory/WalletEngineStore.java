@@ -0,0 +1,150 @@
+package org.example.service.memory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Directory of the engine: gen-&lt;n&gt;/shard-&lt;i&gt;/ with the snapshots and journal segments of every
+ * shard, and a COMPLETE file once all first snapshots of a generation are on disk.
+ *
+ * <p>Every start loads the last complete generation, routes its wallets to the shards of this run, so the
+ * shard count may change between runs, and writes the result as the next generation. Only then the older
+ * ones are deleted, a crash in between starts from the older one again.
+ */
+@Slf4j
+final class WalletEngineStore {
+    private static final String GENERATION_PREFIX = "gen-";
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String COMPLETE = "COMPLETE";
+
+    private WalletEngineStore() {}
+
+    /**
+     * Fills the shards from the last complete generation, adds the wallets and keys of the bootstrap they do
+     * not have yet, e.g. wallets created in Postgres since the last start, and writes a new generation with
+     * their first snapshots.
+     *
+     * @param shardOf shard of a wallet in this run
+     */
+    static void open(
+            Path root, List<WalletEngineShard> shards, ToIntFunction<UUID> shardOf, WalletEngineBootstrap bootstrap)
+            throws IOException {
+        Files.createDirectories(root);
+        List<Path> generations = generations(root);
+        long next = 1;
+        Path recovered = null;
+        for (Path generation : generations) {
+            next = Math.max(next, generation(generation) + 1);
+            if (Files.exists(generation.resolve(COMPLETE))) {
+                recovered = generation;
+            }
+        }
+        if (recovered != null) {
+            recover(recovered, shards, shardOf);
+        } else {
+            log.info("Wallet engine has no complete generation in {}, importing from the bootstrap", root);
+        }
+        AtomicLong imported = new AtomicLong();
+        bootstrap.load(
+                (uuid, balance) -> {
+                    if (shards.get(shardOf.applyAsInt(uuid)).loadIfAbsent(uuid, balance)) {
+                        imported.incrementAndGet();
+                    }
+                },
+                key -> shards.get(shardOf.applyAsInt(key.getWalletUuid())).loadKey(key));
+        log.info("Wallet engine imported {} wallets it did not have from the bootstrap", imported.get());
+
+        Path generation = root.resolve(GENERATION_PREFIX + String.format("%019d", next));
+        for (int i = 0; i < shards.size(); i++) {
+            Path directory = generation.resolve(SHARD_PREFIX + i);
+            Files.createDirectories(directory);
+            shards.get(i).writeSnapshot(directory);
+        }
+        Path complete = generation.resolve(COMPLETE);
+        Files.writeString(complete, "shards=" + shards.size() + "\n", StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(complete, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        fsyncDirectory(generation);
+        fsyncDirectory(root);
+        for (Path old : generations) {
+            delete(old);
+        }
+        log.info(
+                "Wallet engine generation {} holds {} wallets in {} shards",
+                next,
+                shards.stream().mapToInt(WalletEngineShard::size).sum(),
+                shards.size());
+    }
+
+    /**
+     * Makes a created or renamed file in the directory durable.
+     */
+    static void fsyncDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private static void recover(Path generation, List<WalletEngineShard> shards, ToIntFunction<UUID> shardOf)
+            throws IOException {
+        List<Path> directories = new ArrayList<>();
+        try (Stream<Path> list = Files.list(generation)) {
+            list.filter(Files::isDirectory)
+                    .filter(directory -> directory.getFileName().toString().startsWith(SHARD_PREFIX))
+                    .sorted()
+                    .forEach(directories::add);
+        }
+        for (Path directory : directories) {
+            long snapshot = WalletEngineSnapshot.readLatest(
+                    directory,
+                    (msb, lsb, balance) -> {
+                        UUID uuid = new UUID(msb, lsb);
+                        shards.get(shardOf.applyAsInt(uuid)).load(uuid, balance);
+                    },
+                    key -> shards.get(shardOf.applyAsInt(key.getWalletUuid())).loadKey(key));
+            if (snapshot < 0) {
+                throw new IOException("Wallet engine directory " + directory + " has no snapshot");
+            }
+            long last = WalletEngineJournal.replay(
+                    directory, snapshot, (uuid, operationType, amount, key) -> shards.get(shardOf.applyAsInt(uuid))
+                            .replay(uuid, operationType, amount, key));
+            log.info("Wallet engine recovered {} from snapshot {} and journal up to {}", directory, snapshot, last);
+        }
+    }
+
+    private static List<Path> generations(Path root) throws IOException {
+        List<Path> generations = new ArrayList<>();
+        try (Stream<Path> list = Files.list(root)) {
+            list.filter(Files::isDirectory)
+                    .filter(directory -> directory.getFileName().toString().startsWith(GENERATION_PREFIX))
+                    .sorted()
+                    .forEach(generations::add);
+        }
+        return generations;
+    }
+
+    private static long generation(Path generation) {
+        return Long.parseLong(generation.getFileName().toString().substring(GENERATION_PREFIX.length()));
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
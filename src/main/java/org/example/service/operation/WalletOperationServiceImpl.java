@@ -0,0 +1,75 @@
+package org.example.service.operation;
+
+import java.util.List;
+import java.util.UUID;
+import org.example.dto.WalletOperationDto;
+import org.example.dto.WalletOperationPageDto;
+import org.example.mapper.WalletMapper;
+import org.example.model.WalletOperation;
+import org.example.repository.WalletOperationRepository;
+import org.example.repository.WalletWriteRepository;
+import org.example.service.WalletOperationService;
+import org.example.service.sharding.WalletShards;
+import org.example.util.WalletServiceValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "postgres", matchIfMissing = true)
+public class WalletOperationServiceImpl implements WalletOperationService {
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final WalletOperationRepository operationRepository;
+    private final WalletWriteRepository walletRepository;
+    private final WalletServiceValidator validator;
+    private final WalletMapper mapper;
+    private final WalletShards shards;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public WalletOperationServiceImpl(
+            WalletOperationRepository operationRepository,
+            WalletWriteRepository walletRepository,
+            WalletServiceValidator validator,
+            WalletMapper mapper,
+            WalletShards shards,
+            PlatformTransactionManager transactionManager) {
+        this.operationRepository = operationRepository;
+        this.walletRepository = walletRepository;
+        this.validator = validator;
+        this.mapper = mapper;
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Newest operations first. The cursor is the id of the last operation of the previous page.
+     * Ids come from the sequence of the shard, they change when the wallet is moved to another shard.
+     */
+    @Override
+    public WalletOperationPageDto getOperations(UUID uuid, Long cursor, int limit) {
+        return shards.onShard(uuid, () -> readOnlyTransaction.execute(status -> findOperations(uuid, cursor, limit)));
+    }
+
+    private WalletOperationPageDto findOperations(UUID uuid, Long cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        // One extra row tells whether there is a next page
+        Limit fetchLimit = Limit.of(pageSize + 1);
+        List<WalletOperation> operations = cursor == null
+                ? operationRepository.findLatest(uuid, fetchLimit)
+                : operationRepository.findBefore(uuid, cursor, fetchLimit);
+
+        if (operations.isEmpty() && cursor == null && !walletRepository.existsById(uuid)) {
+            throw validator.walletNotFound(uuid);
+        }
+
+        boolean hasNext = operations.size() > pageSize;
+        List<WalletOperationDto> page =
+                operations.stream().limit(pageSize).map(mapper::toOperationDto).toList();
+        Long nextCursor = hasNext ? page.get(page.size() - 1).id() : null;
+        return new WalletOperationPageDto(page, nextCursor);
+    }
+}
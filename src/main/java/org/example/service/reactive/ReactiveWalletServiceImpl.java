@@ -0,0 +1,81 @@
+package org.example.service.reactive;
+
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.model.OperationType;
+import org.example.repository.WalletSql;
+import org.example.service.ReactiveWalletService;
+import org.example.util.WalletServiceValidator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC variant of {@link org.example.service.wallet.WalletServiceImpl} for the "reactive" profile.
+ * Same guarded UPDATE ... RETURNING and ledger row, same not found and not enough money errors.
+ */
+@Slf4j
+@Service
+@Profile("reactive")
+public class ReactiveWalletServiceImpl implements ReactiveWalletService {
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final WalletServiceValidator validator;
+
+    public ReactiveWalletServiceImpl(
+            DatabaseClient databaseClient,
+            ReactiveTransactionManager transactionManager,
+            WalletServiceValidator validator) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.validator = validator;
+    }
+
+    @Override
+    public Mono<WalletBalanceResponseDto> processWalletOperation(WalletRequestPostDto dto) {
+        UUID uuid = dto.getWalletUuid();
+        long amount = dto.getAmount();
+        String sql = dto.getOperationType() == OperationType.DEPOSIT ? WalletSql.DEPOSIT : WalletSql.WITHDRAW;
+
+        return databaseClient
+                .sql(sql)
+                .bind("amount", amount)
+                .bind("uuid", uuid)
+                .map(row -> row.get("balance", Long.class))
+                .one()
+                .switchIfEmpty(Mono.defer(() -> rejection(uuid, dto.getOperationType(), amount)))
+                .map(WalletBalanceResponseDto::new)
+                .doOnNext(balance ->
+                        log.debug("Operation {} for wallet uuid: {} was completed", dto.getOperationType(), uuid))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<WalletBalanceResponseDto> getBalance(UUID uuid) {
+        return databaseClient
+                .sql(WalletSql.FIND_TOTAL_BALANCE)
+                .bind("uuid", uuid)
+                .map(row -> new WalletBalanceResponseDto(row.get("balance", Long.class)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> validator.walletNotFound(uuid)));
+    }
+
+    /**
+     * Nothing was updated, one more query tells a missing wallet from a too small balance
+     * or a deposit over the max balance.
+     */
+    private Mono<Long> rejection(UUID uuid, OperationType operationType, long amount) {
+        return databaseClient
+                .sql("SELECT EXISTS(SELECT 1 FROM wallets WHERE uuid = :uuid) AS found")
+                .bind("uuid", uuid)
+                .map(row -> Boolean.TRUE.equals(row.get("found", Boolean.class)))
+                .one()
+                .flatMap(found -> Mono.error(
+                        found ? validator.rejection(uuid, operationType, amount) : validator.walletNotFound(uuid)));
+    }
+}
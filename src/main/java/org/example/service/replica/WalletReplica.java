@@ -0,0 +1,94 @@
+package org.example.service.replica;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.example.metrics.WalletMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Picks the pool of read-only transactions, a no-op unless wallet.replica.enabled=true. Read-only work
+ * goes to the streaming replica and may miss the writes of its replay lag. A read made with
+ * {@link #read read-your-writes} goes to the replica only while the lag is within
+ * wallet.replica.read-your-writes-max-lag, the primary answers it otherwise. So a client that reads
+ * later than that after its own write sees the write.
+ *
+ * <p>The lag is measured by {@link WalletReplicaLagProbe}. Until it is known, or when the replica does not
+ * answer, all reads go to the primary.
+ */
+@Component
+public class WalletReplica {
+    private static final ThreadLocal<Boolean> READ_YOUR_WRITES = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final long maxLagMillis;
+    private final WalletMetrics metrics;
+    private volatile double lagMillis = Double.NaN;
+
+    public WalletReplica(
+            WalletMetrics metrics,
+            @Value("${wallet.replica.enabled:false}") boolean enabled,
+            @Value("${wallet.replica.read-your-writes-max-lag:200ms}") Duration maxLag) {
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxLagMillis = maxLag.toMillis();
+        if (enabled) {
+            metrics.replicaLag(this);
+        }
+    }
+
+    /**
+     * Runs the read with the consistency asked for by the request.
+     */
+    public <T> T read(boolean readYourWrites, Supplier<T> read) {
+        if (!enabled || !readYourWrites) {
+            return read.get();
+        }
+        Boolean previous = READ_YOUR_WRITES.get();
+        READ_YOUR_WRITES.set(true);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                READ_YOUR_WRITES.remove();
+            } else {
+                READ_YOUR_WRITES.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Called when a read-only transaction takes its connection.
+     *
+     * @return true for the replica, false for the primary
+     */
+    public boolean routeToReplica() {
+        double lag = lagMillis;
+        boolean readYourWrites = READ_YOUR_WRITES.get() != null;
+        String mode = readYourWrites ? "read_your_writes" : "replica";
+        if (Double.isNaN(lag)) {
+            metrics.replicaRouting(mode, "primary", "unavailable");
+            return false;
+        }
+        if (readYourWrites && lag > maxLagMillis) {
+            metrics.replicaRouting(mode, "primary", "lag");
+            return false;
+        }
+        metrics.replicaRouting(mode, "replica", "ok");
+        return true;
+    }
+
+    /**
+     * @param lagMillis replay lag, NaN when it could not be measured
+     */
+    public void lag(double lagMillis) {
+        this.lagMillis = lagMillis;
+    }
+
+    /**
+     * Replay lag in ms, NaN while unknown.
+     */
+    public double getLagMillis() {
+        return lagMillis;
+    }
+}
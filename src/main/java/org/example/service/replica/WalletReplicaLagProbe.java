@@ -0,0 +1,87 @@
+package org.example.service.replica;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.example.config.WalletReplicaDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Measures the replay lag of the replica every wallet.replica.lag-probe-interval. A replica that replayed
+ * everything it received has no lag, even when the last commit on the primary was long ago. A replica
+ * that is not in recovery, e.g. the primary itself in a local setup, has no lag either.
+ *
+ * <p>A replica in recovery counts only while its WAL receiver is streaming and has heard from the primary
+ * within wallet.replica.max-receiver-silence, the primary sends keepalives at half of wal_sender_timeout.
+ * A detached replica replays all it received and looks caught up, so its lag is unknown and reads go to
+ * the primary. The view is read by the replica user, it needs pg_read_all_stats to see the status.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.replica", name = "enabled", havingValue = "true")
+public class WalletReplicaLagProbe {
+    private static final String LAG_SQL =
+            """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN NOT EXISTS (
+                    SELECT 1 FROM pg_stat_wal_receiver
+                    WHERE status = 'streaming' AND last_msg_receipt_time > now() - make_interval(secs => ?)
+                ) THEN NULL
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000
+            END
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WalletReplica replica;
+    private final double maxReceiverSilenceSeconds;
+    private boolean failing;
+
+    public WalletReplicaLagProbe(
+            DataSource dataSource,
+            WalletReplica replica,
+            @Value("${wallet.replica.max-receiver-silence:1m}") Duration maxReceiverSilence)
+            throws SQLException {
+        this.jdbcTemplate = new JdbcTemplate(
+                dataSource.unwrap(WalletReplicaDataSource.class).getReplica());
+        this.jdbcTemplate.setQueryTimeout(1);
+        this.replica = replica;
+        this.maxReceiverSilenceSeconds = maxReceiverSilence.toMillis() / 1000.0;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.replica.lag-probe-interval:500ms}")
+    public void probe() {
+        Double lag;
+        try {
+            lag = jdbcTemplate.queryForObject(LAG_SQL, Double.class, maxReceiverSilenceSeconds);
+        } catch (Exception e) {
+            fail("Replica lag probe failed, reads go to the primary: {}", e.getMessage());
+            return;
+        }
+        if (lag == null) {
+            fail(
+                    "Replica has no streaming WAL receiver heard from within {} s, reads go to the primary",
+                    maxReceiverSilenceSeconds);
+            return;
+        }
+        replica.lag(Math.max(lag, 0));
+        if (failing) {
+            log.info("Replica answers again, lag {} ms", lag);
+            failing = false;
+        }
+    }
+
+    private void fail(String message, Object argument) {
+        replica.lag(Double.NaN);
+        if (!failing) {
+            log.warn(message, argument);
+            failing = true;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.example.service.sharding;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves every wallet that is not on its owner shard, with its slots, ledger, holds, idempotency keys
+ * and async outcomes. Needed after shards are added to wallet.sharding.shards, and once after sharding
+ * is turned on, for the wallets that were created before.
+ *
+ * <p>Runs on start with wallet.sharding.migrate=true, before the port is opened. Other instances must be
+ * stopped meanwhile, they would route by the new shard list to wallets that are not moved yet.
+ *
+ * <p>Wallets are moved in pages: the page is locked on the source, copied to the owner shard in one
+ * transaction there, then deleted from the source. A wallet that is already on the owner shard is not
+ * copied again, so a run that stopped halfway is finished by the next one. Ledger rows get new ids
+ * from the sequence of the owner shard, in the same order.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.sharding", name = "migrate", havingValue = "true")
+public class WalletShardMigrator implements SmartInitializingSingleton {
+    /**
+     * Rows that belong to a wallet, copied after the wallets row and deleted before it.
+     */
+    private static final List<Table> TABLES = List.of(
+            new Table("wallet_balance_slots", "wallet_uuid, slot, balance", "wallet_uuid, slot"),
+            new Table("wallet_operations", "wallet_uuid, operation_type, amount, balance, created_at", "id"),
+            new Table(
+                    "wallet_holds",
+                    "id, wallet_uuid, amount, captured, status, expires_at, created_at, closed_at",
+                    "id"),
+            new Table(
+                    "idempotency_keys",
+                    "idempotency_key, wallet_uuid, operation_type, amount, balance, created_at",
+                    "idempotency_key"),
+            new Table(
+                    "async_operations",
+                    "operation_id, wallet_uuid, operation_type, amount, status, balance, reason, created_at",
+                    "operation_id"));
+
+    private final WalletShards shards;
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final List<TransactionTemplate> transactionTemplates = new ArrayList<>();
+    private final int pageSize;
+
+    public WalletShardMigrator(
+            WalletShards shards,
+            DataSource dataSource,
+            @Value("${wallet.sharding.migrate-page-size:500}") int pageSize) {
+        this.shards = shards;
+        this.pageSize = pageSize;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            DataSource shardDataSource = shards.shardDataSource(shard, dataSource);
+            jdbcTemplates.add(new JdbcTemplate(shardDataSource));
+            transactionTemplates.add(new TransactionTemplate(new DataSourceTransactionManager(shardDataSource)));
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long start = System.nanoTime();
+        long moved = 0;
+        for (int shard = 0; shard < shards.count(); shard++) {
+            moved += migrate(shard);
+        }
+        log.info(
+                "Moved {} wallets to their owner shards of {} in {} ms",
+                moved,
+                shards.count(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return number of wallets moved away from the shard
+     */
+    public long migrate(int shard) {
+        long moved = 0;
+        // Random uuids are never nil
+        UUID after = new UUID(0L, 0L);
+        while (true) {
+            List<UUID> page = page(shard, after);
+            if (page.isEmpty()) {
+                break;
+            }
+            after = page.getLast();
+            for (Map.Entry<Integer, List<UUID>> owner :
+                    shards.groupByShard(page).entrySet()) {
+                if (owner.getKey() != shard) {
+                    move(shard, owner.getKey(), owner.getValue());
+                    moved += owner.getValue().size();
+                }
+            }
+        }
+        log.info("Moved {} wallets away from shard {}", moved, shard);
+        return moved;
+    }
+
+    private List<UUID> page(int shard, UUID after) {
+        return transactionTemplates.get(shard).execute(status -> jdbcTemplates
+                .get(shard)
+                .queryForList(
+                        "SELECT uuid FROM wallets WHERE uuid > ? ORDER BY uuid LIMIT ?", UUID.class, after, pageSize));
+    }
+
+    private void move(int from, int to, List<UUID> uuids) {
+        JdbcTemplate source = jdbcTemplates.get(from);
+        JdbcTemplate target = jdbcTemplates.get(to);
+        transactionTemplates.get(from).executeWithoutResult(sourceStatus -> {
+            List<Object[]> wallets = read(
+                    source,
+                    "SELECT uuid, balance, stripes, reserved FROM wallets WHERE uuid = ANY(?) FOR UPDATE",
+                    uuids);
+            transactionTemplates.get(to).executeWithoutResult(targetStatus -> {
+                Set<UUID> inserted = new HashSet<>();
+                for (Object[] wallet : wallets) {
+                    inserted.addAll(target.queryForList(
+                            """
+                            INSERT INTO wallets (uuid, balance, stripes, reserved) VALUES (?, ?, ?, ?)
+                            ON CONFLICT (uuid) DO NOTHING RETURNING uuid
+                            """,
+                            UUID.class,
+                            wallet));
+                }
+                if (inserted.size() < wallets.size()) {
+                    log.warn("{} wallets are already on shard {}, copied before", wallets.size() - inserted.size(), to);
+                }
+                for (Table table : TABLES) {
+                    List<Object[]> rows = read(
+                            source,
+                            "SELECT " + table.columns() + " FROM " + table.name()
+                                    + " WHERE wallet_uuid = ANY(?) ORDER BY " + table.orderBy(),
+                            inserted);
+                    target.batchUpdate(
+                            "INSERT INTO " + table.name() + " (" + table.columns() + ") VALUES ("
+                                    + "?, ".repeat(table.columns().split(",").length - 1) + "?)",
+                            rows);
+                }
+            });
+            for (Table table : TABLES.reversed()) {
+                delete(source, "DELETE FROM " + table.name() + " WHERE wallet_uuid = ANY(?)", uuids);
+            }
+            delete(source, "DELETE FROM wallets WHERE uuid = ANY(?)", uuids);
+        });
+        log.debug("Moved {} wallets from shard {} to shard {}", uuids.size(), from, to);
+    }
+
+    private static List<Object[]> read(JdbcTemplate jdbcTemplate, String sql, Collection<UUID> uuids) {
+        return jdbcTemplate.query(sql, ps -> ps.setArray(1, uuidArray(ps.getConnection(), uuids)), (rs, rowNum) -> {
+            Object[] row = new Object[rs.getMetaData().getColumnCount()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        });
+    }
+
+    private static void delete(JdbcTemplate jdbcTemplate, String sql, Collection<UUID> uuids) {
+        jdbcTemplate.update(sql, ps -> ps.setArray(1, uuidArray(ps.getConnection(), uuids)));
+    }
+
+    private static Array uuidArray(Connection connection, Collection<UUID> uuids) throws SQLException {
+        return connection.createArrayOf("uuid", uuids.toArray());
+    }
+
+    private record Table(String name, String columns, String orderBy) {}
+}
@@ -0,0 +1,173 @@
+package org.example.service.sharding;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import javax.sql.DataSource;
+import org.example.config.ShardingConfig;
+import org.example.exception.WalletCrossShardException;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Owner shard of every wallet, by a jump consistent hash of the uuid. Growing from N to N+1 shards
+ * moves only 1/(N+1) of the wallets, all of them to the new shard, see {@link WalletShardMigrator}.
+ *
+ * <p>The shard is picked per thread with {@link #onShard}, before the transaction takes a connection
+ * from the routing data source. Without a shard the connection comes from shard 0, which also keeps
+ * sessions and batch metadata. With wallet.sharding.enabled=false there is one shard and nothing is routed.
+ */
+@Component
+public class WalletShards {
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+
+    public WalletShards(Environment environment) {
+        boolean enabled = environment.getProperty("wallet.sharding.enabled", Boolean.class, false);
+        this.count = enabled ? ShardingConfig.bindShards(environment).size() : 1;
+    }
+
+    /**
+     * Shard the current thread is routed to, null for shard 0.
+     */
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int shardOf(UUID uuid) {
+        return count == 1 ? 0 : jumpHash(uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits(), count);
+    }
+
+    /**
+     * Runs the operation with every connection taken from the shard of the wallet.
+     */
+    public <T> T onShard(UUID uuid, Supplier<T> operation) {
+        return onShard(shardOf(uuid), operation);
+    }
+
+    /**
+     * @throws IllegalStateException when a transaction on another shard is already running, it cannot span shards
+     */
+    public <T> T onShard(int shard, Supplier<T> operation) {
+        if (count == 1) {
+            return operation.get();
+        }
+        Integer previous = CURRENT.get();
+        int previousShard = previous == null ? 0 : previous;
+        if (previousShard != shard && TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException(
+                    "Transaction on shard " + previousShard + " cannot continue on shard " + shard);
+        }
+        CURRENT.set(shard);
+        try {
+            return operation.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Wallets by shard, in the given order within a shard.
+     */
+    public Map<Integer, List<UUID>> groupByShard(Collection<UUID> uuids) {
+        Map<Integer, List<UUID>> shards = new LinkedHashMap<>();
+        uuids.forEach(uuid -> shards.computeIfAbsent(shardOf(uuid), shard -> new ArrayList<>())
+                .add(uuid));
+        return shards;
+    }
+
+    /**
+     * Shard shared by all the wallets of one transaction.
+     *
+     * @throws WalletCrossShardException when the wallets are on different shards
+     */
+    public int sameShard(Collection<UUID> uuids) {
+        Map<Integer, List<UUID>> shards = groupByShard(uuids);
+        if (shards.size() > 1) {
+            throw new WalletCrossShardException("Wallets " + uuids + " are on different shards");
+        }
+        return shards.isEmpty() ? 0 : shards.keySet().iterator().next();
+    }
+
+    /**
+     * Asks the shards one by one, the given one first, for rows that are not keyed by a wallet.
+     */
+    public <T> Optional<T> findOnAnyShard(int first, Supplier<Optional<T>> lookup) {
+        for (int i = 0; i < count; i++) {
+            Optional<T> found = onShard((first + i) % count, lookup);
+            if (found.isPresent()) {
+                return found;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Random id on the same shard as the wallet, so a row keyed by it is found without asking every shard.
+     */
+    public UUID newId(UUID walletUuid) {
+        int shard = shardOf(walletUuid);
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (shardOf(id) != shard);
+        return id;
+    }
+
+    /**
+     * Data source of one shard on top of the routing one, for a cursor or a transaction manager of its own.
+     */
+    public DataSource shardDataSource(int shard, DataSource dataSource) {
+        if (count == 1) {
+            return dataSource;
+        }
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Integer previous = CURRENT.get();
+                CURRENT.set(shard);
+                try {
+                    return super.getConnection();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    private static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm".
+     */
+    private static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
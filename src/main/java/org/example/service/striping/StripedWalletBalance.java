@@ -0,0 +1,85 @@
+package org.example.service.striping;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.metrics.WalletMetrics;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletSlotRepository;
+import org.example.repository.WalletWriteRepository;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.util.WalletServiceValidator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Operations on wallets whose balance is split across several slot rows, so concurrent deposits
+ * do not queue on one row lock. Deposits go to a random slot, withdraws take from any slot with
+ * enough money and fold all slots into the wallets row when none has.
+ *
+ * <p>Deposits and withdraws join the caller's transaction. Both return the wallet total as seen
+ * by the statement, empty when the operation was not applied. Deposits check the max balance
+ * against the wallet total, so the row stays within it when the slots are folded.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StripedWalletBalance {
+    private final WalletWriteRepository repository;
+    private final WalletSlotRepository slotRepository;
+    private final WalletServiceValidator validator;
+    private final WalletBalanceCache balanceCache;
+    private final WalletStripes walletStripes;
+    private final WalletMetrics metrics;
+
+    public Optional<Long> deposit(UUID uuid, int stripes, long amount) {
+        int slot = ThreadLocalRandom.current().nextInt(stripes);
+        if (slot > 0) {
+            Optional<Long> balance = slotRepository.depositToSlot(uuid, slot, amount);
+            if (balance.isPresent()) {
+                return balance;
+            }
+            // Slot 0 rejects the deposit too when it is over the max balance
+            log.debug("Slot {} of wallet uuid: {} was not updated, depositing to slot 0", slot, uuid);
+        }
+        return repository.depositBalanceReturning(amount, uuid);
+    }
+
+    public Optional<Long> withdraw(UUID uuid, long amount) {
+        Optional<Long> balance = slotRepository.withdrawFromSlot(uuid, amount);
+        if (balance.isEmpty()) {
+            balance = repository.withdrawBalanceReturning(amount, uuid);
+        }
+        if (balance.isEmpty() && lock(uuid).isPresent()) {
+            log.debug("No slot of wallet uuid: {} has {}, folding slots", uuid, amount);
+            slotRepository.foldSlots(List.of(uuid));
+            balance = repository.withdrawBalanceReturning(amount, uuid);
+        }
+        return balance;
+    }
+
+    /**
+     * Folds the balance into the wallets row and recreates empty slots, stripes=1 turns
+     * the wallet back into a single row wallet.
+     */
+    @Transactional
+    public WalletBalanceResponseDto resize(UUID uuid, int stripes) {
+        LockedWallet wallet = lock(uuid).orElseThrow(() -> validator.walletNotFound(uuid));
+        long balance =
+                wallet.balance() + slotRepository.foldSlots(List.of(uuid)).getOrDefault(uuid, 0L);
+        slotRepository.resetSlots(uuid, stripes);
+        walletStripes.refresh(uuid);
+        // Striped operations do not update the cache, the entry may be stale by now
+        balanceCache.onBalanceChanged(uuid, balance);
+        log.debug("Wallet uuid: {} now has {} stripes", uuid, stripes);
+        return new WalletBalanceResponseDto(balance);
+    }
+
+    private Optional<LockedWallet> lock(UUID uuid) {
+        return metrics.timeLock(WalletMetrics.FIND_BY_UUID_WITH_LOCK, uuid, () -> repository.findByUuidWithLock(uuid));
+    }
+}
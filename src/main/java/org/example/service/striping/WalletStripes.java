@@ -0,0 +1,50 @@
+package org.example.service.striping;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.UUID;
+import org.example.repository.WalletSlotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stripe counts of wallets, cached in memory. When wallet.striping.enabled=false every wallet
+ * is treated as a single row wallet without a lookup.
+ *
+ * <p>A stale count is safe: a deposit to a slot that no longer exists falls back to the wallets
+ * row, and a rejected withdraw looks the count up again with {@link #refresh}.
+ */
+@Component
+public class WalletStripes {
+    private final WalletSlotRepository slotRepository;
+    private final boolean enabled;
+    private final Cache<UUID, Integer> cache;
+
+    public WalletStripes(
+            WalletSlotRepository slotRepository,
+            @Value("${wallet.striping.enabled:false}") boolean enabled,
+            @Value("${wallet.striping.cache.max-size:100000}") long maxSize,
+            @Value("${wallet.striping.cache.expire-after-write:10s}") Duration expireAfterWrite) {
+        this.slotRepository = slotRepository;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    public int get(UUID uuid) {
+        return enabled ? cache.get(uuid, this::load) : 1;
+    }
+
+    public int refresh(UUID uuid) {
+        int stripes = load(uuid);
+        cache.put(uuid, stripes);
+        return stripes;
+    }
+
+    private int load(UUID uuid) {
+        return slotRepository.findStripes(uuid).orElse(1);
+    }
+}
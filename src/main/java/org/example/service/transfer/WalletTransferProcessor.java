@@ -0,0 +1,74 @@
+package org.example.service.transfer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletTransferRequestDto;
+import org.example.dto.WalletTransferResponseDto;
+import org.example.metrics.WalletMetrics;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletSlotRepository;
+import org.example.repository.WalletTransferRepository;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.util.WalletServiceValidator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletTransferProcessor {
+    private final WalletTransferRepository transferRepository;
+    private final WalletSlotRepository slotRepository;
+    private final WalletServiceValidator validator;
+    private final WalletBalanceCache balanceCache;
+    private final WalletMetrics metrics;
+
+    /**
+     * Debits one wallet and credits the other in one transaction, with the same rejections as
+     * withdraw and deposit. Slots of a striped source are folded only when its row has not enough money,
+     * a striped target is credited on its wallets row.
+     */
+    @Transactional
+    public WalletTransferResponseDto apply(WalletTransferRequestDto dto) {
+        UUID from = dto.getFromWalletUuid();
+        UUID to = dto.getToWalletUuid();
+        long amount = dto.getAmount();
+
+        Map<UUID, LockedWallet> wallets =
+                metrics.timeLock(WalletMetrics.TRANSFER_LOCK, from, () -> transferRepository.lockWallets(from, to));
+        LockedWallet source = wallets.get(from);
+        if (source == null) {
+            throw validator.walletNotFound(from);
+        }
+        LockedWallet target = wallets.get(to);
+        if (target == null) {
+            throw validator.walletNotFound(to);
+        }
+
+        long available = source.balance();
+        if (available < amount && source.stripes() > 1) {
+            available += slotRepository.foldSlots(List.of(from)).getOrDefault(from, 0L);
+        }
+        if (available < amount) {
+            throw validator.notEnoughMoney(from, amount);
+        }
+        // All are within [0, MAX_BALANCE], the sum cannot overflow
+        if (target.balance() + target.reserved() + amount > WalletServiceValidator.MAX_BALANCE) {
+            throw validator.balanceLimitExceeded(to, amount);
+        }
+
+        Map<UUID, Long> balances = transferRepository.transfer(from, to, amount);
+        // Balances of striped wallets are not cached, see WalletServiceImpl#getBalance
+        if (source.stripes() == 1) {
+            balanceCache.onBalanceChanged(from, balances.get(from));
+        }
+        if (target.stripes() == 1) {
+            balanceCache.onBalanceChanged(to, balances.get(to));
+        }
+        log.debug("Transfer of {} from wallet uuid: {} to wallet uuid: {} was completed", amount, from, to);
+        return new WalletTransferResponseDto(from, balances.get(from), to, balances.get(to));
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.service.transfer;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletTransferRequestDto;
+import org.example.dto.WalletTransferResponseDto;
+import org.example.metrics.WalletMetrics;
+import org.example.service.WalletTransferService;
+import org.example.service.admission.WalletAdmission;
+import org.example.service.sharding.WalletShards;
+import org.example.service.wallet.WalletOperationRetry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Not transactional itself, every retry of a lock failure runs a new transaction. Both wallets
+ * must be on one shard, the transfer is a single local transaction.
+ */
+@Service
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class WalletTransferServiceImpl implements WalletTransferService {
+    private final WalletTransferProcessor processor;
+    private final WalletOperationRetry retry;
+    private final WalletAdmission admission;
+    private final WalletShards shards;
+    private final WalletMetrics metrics;
+
+    @Override
+    public WalletTransferResponseDto transfer(WalletTransferRequestDto dto) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            int shard = shards.sameShard(List.of(dto.getFromWalletUuid(), dto.getToWalletUuid()));
+            // Limited by the source wallet, payouts from one hot wallet are the usual pile-up
+            return shards.onShard(
+                    shard,
+                    () -> retry.execute(
+                            dto.getFromWalletUuid(),
+                            () -> admission.execute(dto.getFromWalletUuid(), () -> processor.apply(dto))));
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.recordOperation("TRANSFER", error, System.nanoTime() - start);
+        }
+    }
+}
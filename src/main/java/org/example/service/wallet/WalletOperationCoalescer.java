@@ -0,0 +1,202 @@
+package org.example.service.wallet;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.WalletOperationTimeoutException;
+import org.example.service.sharding.WalletShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Group commit for hot wallets. Concurrent operations on the same wallet are queued per UUID
+ * and applied by a worker as one transaction, see {@link WalletOperationProcessor#applyBatch}.
+ * Callers wait for their own result and never hold a DB connection while waiting, at most
+ * wallet.coalescing.timeout.
+ *
+ * <p>A wallet has at most one lane and one drain at a time. A drained lane is retired under its lock,
+ * a submitter that finds it retired takes the next lane from the map instead.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "wallet.coalescing", name = "enabled", havingValue = "true")
+public class WalletOperationCoalescer {
+    private final WalletOperationProcessor processor;
+    private final WalletShards shards;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final long timeoutNanos;
+    private final ScheduledExecutorService executor;
+    private final ConcurrentMap<UUID, Lane> lanes = new ConcurrentHashMap<>();
+
+    public WalletOperationCoalescer(
+            WalletOperationProcessor processor,
+            WalletShards shards,
+            @Value("${wallet.coalescing.window-ms:0}") long windowMs,
+            @Value("${wallet.coalescing.max-batch-size:256}") int maxBatchSize,
+            @Value("${wallet.coalescing.workers:8}") int workers,
+            @Value("${wallet.coalescing.timeout:5s}") Duration timeout,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.processor = processor;
+        this.shards = shards;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutNanos = timeout.toNanos();
+        this.executor = Executors.newScheduledThreadPool(workers, threadFactory(virtualThreads));
+    }
+
+    public WalletBalanceResponseDto submit(WalletRequestPostDto dto) {
+        UUID uuid = dto.getWalletUuid();
+        PendingOperation pending = new PendingOperation(dto, new CompletableFuture<>());
+        Lane lane;
+        do {
+            lane = lanes.computeIfAbsent(uuid, key -> new Lane());
+        } while (!lane.offer(pending));
+        schedule(uuid, lane);
+        try {
+            return pending.result().get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Still queued means never taken by a batch, so it is never applied
+            boolean dropped = lane.queue.remove(pending);
+            throw new WalletOperationTimeoutException("Operation on wallet with UUID: " + uuid + " timed out after "
+                    + Duration.ofNanos(timeoutNanos).toMillis() + " ms, "
+                    + (dropped ? "it was not applied" : "it may still be applied"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for wallet operation", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory threadFactory(boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("wallet-coalescer-", 1).factory();
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "wallet-coalescer-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void schedule(UUID uuid, Lane lane) {
+        if (lane.scheduled.compareAndSet(false, true)) {
+            executor.schedule(() -> drain(uuid, lane), windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain(UUID uuid, Lane lane) {
+        List<PendingOperation> batch = new ArrayList<>();
+        PendingOperation next;
+        while (batch.size() < maxBatchSize && (next = lane.queue.poll()) != null) {
+            batch.add(next);
+        }
+        try {
+            if (!batch.isEmpty()) {
+                apply(uuid, batch);
+            }
+        } finally {
+            lane.scheduled.set(false);
+            if (lane.retireIfEmpty()) {
+                lanes.remove(uuid, lane);
+            } else {
+                schedule(uuid, lane);
+            }
+        }
+    }
+
+    private void apply(UUID uuid, List<PendingOperation> batch) {
+        List<WalletOperationResult> results;
+        try {
+            results = shards.onShard(
+                    uuid,
+                    () -> processor.applyBatch(
+                            uuid, batch.stream().map(PendingOperation::dto).toList()));
+        } catch (RuntimeException e) {
+            log.debug("Batch of {} operations for wallet uuid: {} failed", batch.size(), uuid, e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            WalletOperationResult result = results.get(i);
+            if (result.isApplied()) {
+                batch.get(i).result().complete(result.balance());
+            } else {
+                batch.get(i).result().completeExceptionally(result.error());
+            }
+        }
+    }
+
+    private record PendingOperation(WalletRequestPostDto dto, CompletableFuture<WalletBalanceResponseDto> result) {}
+
+    private static final class Lane {
+        private final Queue<PendingOperation> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        /**
+         * Not synchronized, a virtual thread waiting here is not pinned to its carrier.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private boolean retired;
+
+        /**
+         * @return false when the lane was retired, the caller takes a new one
+         */
+        boolean offer(PendingOperation pending) {
+            lock.lock();
+            try {
+                if (retired) {
+                    return false;
+                }
+                queue.add(pending);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true when the lane was empty and takes no more operations
+         */
+        boolean retireIfEmpty() {
+            lock.lock();
+            try {
+                retired = queue.isEmpty();
+                return retired;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
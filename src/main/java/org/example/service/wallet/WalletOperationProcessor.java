@@ -0,0 +1,189 @@
+package org.example.service.wallet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.DuplicateOperationException;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletBalanceLimitException;
+import org.example.metrics.WalletMetrics;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+import org.example.model.WalletOperation;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletBatchRepository;
+import org.example.repository.WalletSlotRepository;
+import org.example.repository.WalletWriteRepository;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.service.striping.StripedWalletBalance;
+import org.example.service.striping.WalletStripes;
+import org.example.util.WalletServiceValidator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletOperationProcessor {
+    private final WalletWriteRepository repository;
+    private final WalletServiceValidator validator;
+    private final WalletBatchRepository batchRepository;
+    private final IdempotencyKeyStore idempotencyKeyStore;
+    private final WalletBalanceCache balanceCache;
+    private final WalletSlotRepository slotRepository;
+    private final WalletStripes walletStripes;
+    private final StripedWalletBalance stripedBalance;
+    private final WalletMetrics metrics;
+
+    @Transactional
+    public WalletBalanceResponseDto apply(WalletRequestPostDto dto) {
+        UUID uuid = dto.getWalletUuid();
+        long amount = dto.getAmount();
+        String idempotencyKey = dto.getIdempotencyKey();
+
+        if (idempotencyKey != null) {
+            WalletBalanceResponseDto stored = idempotencyKeyStore.findStored(dto);
+            if (stored != null) {
+                return stored;
+            }
+        }
+
+        log.debug("Starting process with wallet uuid: {}", uuid);
+        int stripes = walletStripes.get(uuid);
+        Optional<Long> newBalance;
+        if (dto.getOperationType() == OperationType.DEPOSIT) {
+            log.debug("Operation type - DEPOSIT, starting deposit");
+            newBalance = stripes > 1
+                    ? stripedBalance.deposit(uuid, stripes, amount)
+                    : metrics.timeLock(
+                            WalletMetrics.GUARDED_UPDATE, uuid, () -> repository.depositBalanceReturning(amount, uuid));
+        } else {
+            log.debug("Operation type - WITHDRAW, starting withdraw");
+            newBalance = stripes > 1
+                    ? stripedBalance.withdraw(uuid, amount)
+                    : metrics.timeLock(
+                            WalletMetrics.GUARDED_UPDATE,
+                            uuid,
+                            () -> repository.withdrawBalanceReturning(amount, uuid));
+            if (newBalance.isEmpty() && stripes == 1) {
+                // The stripe count may be stale and the money may be in slots
+                stripes = walletStripes.refresh(uuid);
+                if (stripes > 1) {
+                    newBalance = stripedBalance.withdraw(uuid, amount);
+                }
+            }
+        }
+        long balance;
+        try {
+            balance = validator.checkOperationApplied(newBalance, uuid, dto.getOperationType(), amount, repository);
+        } catch (NotEnoughMoneyException | WalletBalanceLimitException e) {
+            // The UPDATE waited for the row lock, a concurrent retry with the same key is committed by now
+            if (idempotencyKey != null && idempotencyKeyStore.findStored(dto) != null) {
+                throw new DuplicateOperationException(idempotencyKey);
+            }
+            throw e;
+        }
+        if (idempotencyKey != null && !idempotencyKeyStore.record(dto, balance)) {
+            throw new DuplicateOperationException(idempotencyKey);
+        }
+        if (stripes == 1) {
+            balanceCache.onBalanceChanged(uuid, balance);
+        }
+        log.debug("Operation {} for wallet uuid: {} was completed", dto.getOperationType(), uuid);
+        return new WalletBalanceResponseDto(balance);
+    }
+
+    /**
+     * Applies operations on one wallet in the given order under a single row lock and writes
+     * the net change with one UPDATE, ledger rows and idempotency keys with JDBC batches.
+     * A withdraw that would overdraw the running balance is rejected alone,
+     * the rest of the batch is still applied. Slots of a striped wallet are folded into the row first.
+     *
+     * <p>A key may be recorded meanwhile with an operation on another wallet, the row lock does not
+     * cover that. Such keys are skipped on insert, the batch is then computed again with them replayed.
+     */
+    @Transactional
+    public List<WalletOperationResult> applyBatch(UUID uuid, List<WalletRequestPostDto> operations) {
+        LockedWallet wallet = metrics.timeLock(
+                        WalletMetrics.FIND_BY_UUID_WITH_LOCK, uuid, () -> repository.findByUuidWithLock(uuid))
+                .orElseThrow(() -> validator.walletNotFound(uuid));
+        long initialBalance = wallet.balance();
+        if (wallet.stripes() > 1) {
+            initialBalance += slotRepository.foldSlots(List.of(uuid)).getOrDefault(uuid, 0L);
+        }
+
+        // Operations on this wallet are serialized by the row lock, so keys of earlier ones are visible
+        Map<String, IdempotencyKey> storedKeys = idempotencyKeyStore.findStored(operations.stream()
+                .map(WalletRequestPostDto::getIdempotencyKey)
+                .filter(Objects::nonNull)
+                .toList());
+
+        while (true) {
+            Map<String, IdempotencyKey> recordedKeys = new HashMap<>(storedKeys);
+            long balance = initialBalance;
+            List<WalletOperationResult> results = new ArrayList<>(operations.size());
+            List<WalletOperation> ledger = new ArrayList<>(operations.size());
+            List<IdempotencyKey> newKeys = new ArrayList<>();
+            for (WalletRequestPostDto operation : operations) {
+                String idempotencyKey = operation.getIdempotencyKey();
+                if (idempotencyKey != null && recordedKeys.containsKey(idempotencyKey)) {
+                    results.add(replay(recordedKeys.get(idempotencyKey), operation));
+                    continue;
+                }
+                RuntimeException rejection = validator.checkRunningBalance(uuid, balance, wallet.reserved(), operation);
+                if (rejection != null) {
+                    results.add(WalletOperationResult.rejected(rejection));
+                    continue;
+                }
+                balance = operation.getOperationType().apply(balance, operation.getAmount());
+                results.add(WalletOperationResult.applied(new WalletBalanceResponseDto(balance)));
+                ledger.add(new WalletOperation(
+                        null, uuid, operation.getOperationType(), operation.getAmount(), balance, null));
+                if (idempotencyKey != null) {
+                    IdempotencyKey key = idempotencyKeyStore.toKey(operation, balance);
+                    recordedKeys.put(idempotencyKey, key);
+                    newKeys.add(key);
+                }
+            }
+
+            Set<String> concurrentKeys = idempotencyKeyStore.recordAll(newKeys);
+            if (!concurrentKeys.isEmpty()) {
+                log.debug("Idempotency-Keys {} recorded concurrently, computing the batch again", concurrentKeys);
+                idempotencyKeyStore.forgetAll(newKeys.stream()
+                        .map(IdempotencyKey::getIdempotencyKey)
+                        .filter(key -> !concurrentKeys.contains(key))
+                        .toList());
+                storedKeys.putAll(idempotencyKeyStore.findStored(concurrentKeys));
+                continue;
+            }
+            if (balance != initialBalance) {
+                repository.updateBalance(balance, uuid);
+                balanceCache.onBalanceChanged(uuid, balance);
+            }
+            if (!ledger.isEmpty()) {
+                batchRepository.insertOperations(ledger);
+            }
+            log.debug("Batch of {} operations for wallet uuid: {} was completed", operations.size(), uuid);
+            return results;
+        }
+    }
+
+    private WalletOperationResult replay(IdempotencyKey stored, WalletRequestPostDto operation) {
+        try {
+            return WalletOperationResult.applied(idempotencyKeyStore.replay(stored, operation));
+        } catch (IdempotencyKeyConflictException e) {
+            return WalletOperationResult.rejected(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.service.wallet;
+
+import org.example.dto.WalletBalanceResponseDto;
+
+/**
+ * Outcome of a single operation inside a batch: either the balance after it, or the
+ * business error it was rejected with. Rejected operations do not fail the batch.
+ */
+public record WalletOperationResult(WalletBalanceResponseDto balance, RuntimeException error) {
+    public static WalletOperationResult applied(WalletBalanceResponseDto balance) {
+        return new WalletOperationResult(balance, null);
+    }
+
+    public static WalletOperationResult rejected(RuntimeException error) {
+        return new WalletOperationResult(null, error);
+    }
+
+    public boolean isApplied() {
+        return error == null;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.service.wallet;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.example.exception.WalletOperationLockException;
+import org.example.metrics.WalletMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retries an operation that failed on the wallet row lock. Every attempt must run its own
+ * transaction, the caller sleeps between attempts without holding a DB connection.
+ *
+ * <p>Backoff is exponential with full jitter: a random delay up to retry.delay * retry.multiplier^n,
+ * capped by retry.max-delay. Retries stop after retry.max_attempts attempts or when the next
+ * attempt would start after retry.deadline since the first one, the operation is then answered with 429.
+ */
+@Slf4j
+@Component
+public class WalletOperationRetry {
+    private final WalletMetrics metrics;
+    private final int maxAttempts;
+    private final long delayNanos;
+    private final double multiplier;
+    private final long maxDelayNanos;
+    private final long deadlineNanos;
+
+    public WalletOperationRetry(
+            WalletMetrics metrics,
+            @Value("${retry.max_attempts:5}") int maxAttempts,
+            @Value("${retry.delay:20}") long delayMs,
+            @Value("${retry.multiplier:2}") double multiplier,
+            @Value("${retry.max-delay:500}") long maxDelayMs,
+            @Value("${retry.deadline:3000}") long deadlineMs) {
+        this.metrics = metrics;
+        this.maxAttempts = maxAttempts;
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+        this.multiplier = multiplier;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+    }
+
+    public <T> T execute(UUID uuid, Supplier<T> attempt) {
+        long start = System.nanoTime();
+        for (int attempts = 1; ; attempts++) {
+            try {
+                T result = attempt.get();
+                metrics.attempts(attempts);
+                return result;
+            } catch (PessimisticLockingFailureException e) {
+                long backoff = backoff(attempts);
+                if (attempts >= maxAttempts) {
+                    throw giveUp(uuid, attempts, "attempts", e);
+                }
+                if (System.nanoTime() + backoff - start >= deadlineNanos) {
+                    throw giveUp(uuid, attempts, "deadline", e);
+                }
+                log.debug("Attempt {} for wallet uuid: {} failed on the row lock, retrying", attempts, uuid);
+                metrics.retry(backoff);
+                sleep(uuid, attempts, backoff, e);
+            }
+        }
+    }
+
+    private long backoff(int attempts) {
+        double ceiling = Math.min(maxDelayNanos, delayNanos * Math.pow(multiplier, attempts - 1));
+        return (long) (ThreadLocalRandom.current().nextDouble() * ceiling);
+    }
+
+    private void sleep(UUID uuid, int attempts, long backoff, PessimisticLockingFailureException e) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw giveUp(uuid, attempts, "interrupted", e);
+        }
+    }
+
+    private WalletOperationLockException giveUp(
+            UUID uuid, int attempts, String reason, PessimisticLockingFailureException e) {
+        String errorMessage = String.format(
+                """
+                        Failed to process wallet operation for wallet with uuid: %s after %d attempts
+                        Reason: %s. Please try again later.
+                        """,
+                uuid, attempts, e.getMessage());
+        log.error(errorMessage, e);
+        metrics.attempts(attempts);
+        metrics.recovery(reason);
+        return new WalletOperationLockException(errorMessage);
+    }
+}
@@ -1,98 +1,206 @@
 package org.example.service.wallet;
 
-import com.fasterxml.jackson.databind.exc.InvalidFormatException;
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import lombok.extern.slf4j.Slf4j;
+import org.example.dto.WalletBalanceItemDto;
 import org.example.dto.WalletBalanceResponseDto;
 import org.example.dto.WalletRequestPostDto;
-import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.DuplicateOperationException;
 import org.example.exception.WalletNoExistException;
-import org.example.exception.WalletOperationLockException;
-import org.example.mapper.WalletMapper;
-import org.example.model.OperationType;
-import org.example.repository.WalletRepository;
+import org.example.metrics.WalletMetrics;
+import org.example.repository.WalletBalanceRepository;
+import org.example.repository.WalletWriteRepository;
 import org.example.service.WalletService;
-import org.example.util.WalletServiceValidator;
-import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.PessimisticLockingFailureException;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.example.service.admission.WalletAdmission;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.service.replica.WalletReplica;
+import org.example.service.sharding.WalletShards;
+import org.example.service.striping.StripedWalletBalance;
+import org.example.service.striping.WalletStripes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "wallet", name = "engine", havingValue = "postgres", matchIfMissing = true)
 public class WalletServiceImpl implements WalletService {
-    private final WalletRepository repository;
-    private final WalletServiceValidator validator;
-    private final WalletMapper mapper;
+    private final WalletWriteRepository repository;
+    private final WalletBalanceRepository balanceRepository;
+    private final WalletOperationProcessor processor;
+    private final Optional<WalletOperationCoalescer> coalescer;
+    private final WalletOperationRetry retry;
+    private final IdempotencyKeyStore idempotencyKeyStore;
+    private final WalletBalanceCache balanceCache;
+    private final WalletStripes walletStripes;
+    private final StripedWalletBalance stripedBalance;
+    private final WalletAdmission admission;
+    private final WalletShards shards;
+    private final WalletReplica replica;
+    private final WalletMetrics metrics;
+    private final TransactionTemplate readOnlyTransaction;
 
-    @Transactional
-    @Override
-    public void processWalletOperation(WalletRequestPostDto dto) {
-        processWalletOperationForProxy(dto);
+    public WalletServiceImpl(
+            WalletWriteRepository repository,
+            WalletBalanceRepository balanceRepository,
+            WalletOperationProcessor processor,
+            Optional<WalletOperationCoalescer> coalescer,
+            WalletOperationRetry retry,
+            IdempotencyKeyStore idempotencyKeyStore,
+            WalletBalanceCache balanceCache,
+            WalletStripes walletStripes,
+            StripedWalletBalance stripedBalance,
+            WalletAdmission admission,
+            WalletShards shards,
+            WalletReplica replica,
+            WalletMetrics metrics,
+            PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.balanceRepository = balanceRepository;
+        this.processor = processor;
+        this.coalescer = coalescer;
+        this.retry = retry;
+        this.idempotencyKeyStore = idempotencyKeyStore;
+        this.balanceCache = balanceCache;
+        this.walletStripes = walletStripes;
+        this.stripedBalance = stripedBalance;
+        this.admission = admission;
+        this.shards = shards;
+        this.replica = replica;
+        this.metrics = metrics;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public WalletBalanceResponseDto getBalance(UUID uuid) {
-        return mapper.toOutputDto(repository
-                .findByUuid(uuid)
-                .orElseThrow(
-                        () -> new WalletNoExistException(String.format("Wallet with uuid: %s was not found", uuid))));
+    public WalletBalanceResponseDto processWalletOperation(WalletRequestPostDto dto) {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return shards.onShard(dto.getWalletUuid(), () -> process(dto));
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metrics.recordOperation(dto.getOperationType(), error, System.nanoTime() - start);
+        }
     }
 
-    @Retryable(
-            retryFor = {PessimisticLockingFailureException.class},
-            notRecoverable = {
-                NotEnoughMoneyException.class,
-                WalletNoExistException.class,
-                WalletOperationLockException.class,
-                MethodArgumentNotValidException.class,
-                IllegalArgumentException.class,
-                InvalidFormatException.class
-            },
-            maxAttemptsExpression = "${retry.max_attempts}",
-            backoff = @Backoff(delayExpression = "${retry.delay}", multiplierExpression = "${retry.multiplier}"))
-    public void processWalletOperationForProxy(WalletRequestPostDto dto) {
-        UUID uuid = dto.getWalletUuid();
-        BigDecimal amount = dto.getAmount();
+    private WalletBalanceResponseDto process(WalletRequestPostDto dto) {
+        String idempotencyKey = dto.getIdempotencyKey();
+        if (idempotencyKey != null) {
+            idempotencyKeyStore.checkKey(idempotencyKey);
+            WalletBalanceResponseDto cached = idempotencyKeyStore.findCached(dto);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        WalletBalanceResponseDto response;
+        try {
+            // Striped wallets spread the contention over slot rows instead of queueing on the wallet row
+            boolean coalesced = coalescer.isPresent() && walletStripes.get(dto.getWalletUuid()) == 1;
+            response = retry.execute(
+                    dto.getWalletUuid(),
+                    () -> admission.execute(
+                            dto.getWalletUuid(),
+                            () -> coalesced ? coalescer.get().submit(dto) : processor.apply(dto)));
+        } catch (DuplicateOperationException e) {
+            log.debug("Concurrent duplicate for Idempotency-Key: {}, replaying stored response", idempotencyKey);
+            return idempotencyKeyStore.findStored(dto);
+        }
+        if (idempotencyKey != null) {
+            idempotencyKeyStore.remember(dto, response.balance());
+        }
+        return response;
+    }
 
-        validator.checkWalletExists(uuid, repository);
-        log.debug("Starting process with wallet uuid: {}", uuid);
-        if (dto.getOperationType() == OperationType.DEPOSIT) {
-            log.debug("Operation type - DEPOSIT, starting deposit");
-            repository.depositBalance(amount, uuid);
-            log.debug("Deposit for wallet uuid:{} was completed", uuid);
-        } else {
-            validator.checkWalletBalanceAndLock(uuid, repository, amount, dto.getOperationType());
-            try {
-                log.debug("Operation type - WITHDRAW, starting withdraw");
-                repository.withdrawBalance(amount, uuid);
-                log.debug("Withdraw for wallet uuid: {} was completed", uuid);
-            } catch (DataIntegrityViolationException e) {
-                String errorMessage = "Wallet with uuid: %s have not enough money, you must have minimum %s rubles"
-                        .formatted(uuid, amount);
-                log.error(errorMessage, e);
-                throw new NotEnoughMoneyException(errorMessage);
+    /**
+     * Not transactional itself, a cache hit does not take a connection. A miss is read in a read-only
+     * transaction, from the replica when there is one.
+     * Balances of striped wallets are not cached, they change without the wallet row lock.
+     */
+    @Override
+    public WalletBalanceResponseDto getBalance(UUID uuid, boolean readYourWrites) {
+        return shards.onShard(
+                uuid,
+                () -> replica.read(readYourWrites, () -> {
+                    if (walletStripes.get(uuid) > 1) {
+                        return loadBalance(uuid);
+                    }
+                    return balanceCache.get(uuid, () -> loadBalance(uuid));
+                }));
+    }
+
+    /**
+     * One statement per shard, past the balance cache. On one shard rows are read from a cursor
+     * and handed over one by one, so the response can be written while they come. Several shards
+     * are read at once and the balances are handed over in the given order when all have answered.
+     */
+    @Override
+    public void streamBalances(Collection<UUID> uuids, Consumer<WalletBalanceItemDto> consumer) {
+        Map<Integer, List<UUID>> byShard = shards.groupByShard(uuids);
+        if (byShard.size() <= 1) {
+            int shard = byShard.isEmpty() ? 0 : byShard.keySet().iterator().next();
+            readOnShard(shard, () -> balanceRepository.streamTotalBalances(uuids, consumer));
+            return;
+        }
+        Map<UUID, WalletBalanceItemDto> items = new ConcurrentHashMap<>(uuids.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> reads = new ArrayList<>(byShard.size());
+            byShard.forEach((shard, shardUuids) -> reads.add(executor.submit(() -> readOnShard(
+                    shard,
+                    () -> balanceRepository.streamTotalBalances(
+                            shardUuids, item -> items.put(item.walletUuid(), item))))));
+            for (Future<?> read : reads) {
+                read.get();
             }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading balances", e);
         }
+        uuids.forEach(uuid -> consumer.accept(items.get(uuid)));
+    }
+
+    @Override
+    public WalletBalanceResponseDto setStripes(UUID uuid, int stripes) {
+        return shards.onShard(uuid, () -> stripedBalance.resize(uuid, stripes));
+    }
+
+    /**
+     * The cursor needs a transaction.
+     */
+    private void readOnShard(int shard, Runnable read) {
+        shards.onShard(
+                shard,
+                () -> readOnlyTransaction.execute(status -> {
+                    read.run();
+                    return null;
+                }));
     }
 
-    @Recover
-    public void recoverProcessWalletOperation(PessimisticLockingFailureException e, WalletRequestPostDto dto) {
-        String errorMessage = String.format(
-                """
-                        Failed to process wallet operation for wallet with uuid: %s after all retries
-                        Reason: %s. Please try again later.
-                        """,
-                dto.getWalletUuid(), e.getMessage());
-        log.error(errorMessage, e);
-        throw new WalletOperationLockException(errorMessage);
+    private WalletBalanceResponseDto loadBalance(UUID uuid) {
+        return readOnlyTransaction.execute(status -> repository
+                .findTotalBalance(uuid)
+                .map(WalletBalanceResponseDto::new)
+                .orElseThrow(() -> new WalletNoExistException("Wallet with uuid: " + uuid + " was not found")));
     }
 }
@@ -0,0 +1,42 @@
+package org.example.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets through at most {@code permitsPerSecond} log records per wall clock second and counts the rest.
+ */
+public class LogRateLimiter {
+    private final int permitsPerSecond;
+    private final LongSupplier currentTimeMillis;
+    private final AtomicLong second = new AtomicLong();
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogRateLimiter(int permitsPerSecond) {
+        this(permitsPerSecond, System::currentTimeMillis);
+    }
+
+    public LogRateLimiter(int permitsPerSecond, LongSupplier currentTimeMillis) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    /**
+     * @return -1 when the record must be dropped, otherwise the number of records dropped
+     * since the last one let through
+     */
+    public long tryAcquire() {
+        long now = currentTimeMillis.getAsLong() / 1000;
+        long current = second.get();
+        if (now != current && second.compareAndSet(current, now)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() > permitsPerSecond) {
+            suppressed.incrementAndGet();
+            return -1;
+        }
+        return suppressed.getAndSet(0);
+    }
+}
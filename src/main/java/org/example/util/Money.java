@@ -0,0 +1,113 @@
+package org.example.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts are kept as a long count of kopecks. Parsing and formatting go straight
+ * between the decimal text and the long, without BigDecimal on the request path.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+
+    private static final long ONE = 100;
+
+    private Money() {}
+
+    /**
+     * @throws NumberFormatException when the text is not a plain decimal or has more than 2 fractions
+     * @throws ArithmeticException on long overflow
+     */
+    public static long parse(String text) {
+        return parse(text.toCharArray(), 0, text.length());
+    }
+
+    /**
+     * Same as {@link #parse(String)} over a slice of a parser buffer, nothing is allocated.
+     */
+    public static long parse(char[] text, int offset, int length) {
+        int i = offset;
+        int to = offset + length;
+        boolean negative = false;
+        if (i < to && (text[i] == '-' || text[i] == '+')) {
+            negative = text[i] == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        for (; i < to && text[i] != '.'; i++, digits++) {
+            units = Math.addExact(Math.multiplyExact(units, 10), digit(text, i));
+        }
+        long fraction = 0;
+        int fractions = 0;
+        if (i < to) {
+            for (i++; i < to; i++, fractions++) {
+                if (fractions == SCALE) {
+                    if (digit(text, i) != 0) {
+                        throw new NumberFormatException(
+                                "More than " + SCALE + " fractions: " + text(text, offset, length));
+                    }
+                    continue;
+                }
+                fraction = fraction * 10 + digit(text, i);
+            }
+        }
+        if (digits + fractions == 0) {
+            throw new NumberFormatException("Not a decimal: " + text(text, offset, length));
+        }
+        for (int f = Math.min(fractions, SCALE); f < SCALE; f++) {
+            fraction *= 10;
+        }
+        long minor = Math.addExact(Math.multiplyExact(units, ONE), fraction);
+        return negative ? -minor : minor;
+    }
+
+    private static int digit(char[] text, int i) {
+        char c = text[i];
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Not a decimal character: " + c);
+        }
+        return c - '0';
+    }
+
+    private static String text(char[] text, int offset, int length) {
+        return new String(text, offset, length);
+    }
+
+    /**
+     * @throws ArithmeticException on long overflow
+     */
+    public static long ofUnits(long units) {
+        return Math.multiplyExact(units, ONE);
+    }
+
+    /**
+     * For values that are already BigDecimal, like exponent notation in JSON.
+     *
+     * @throws ArithmeticException when the value has more than 2 fractions or does not fit a long
+     */
+    public static long of(BigDecimal value) {
+        return value.movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Always with 2 fractions, like 1000.50.
+     */
+    public static String format(long minor) {
+        long abs = Math.abs(minor);
+        long units = abs / ONE;
+        int fraction = (int) (abs % ONE);
+        StringBuilder text = new StringBuilder(24);
+        if (minor < 0) {
+            text.append('-');
+        }
+        return text.append(units)
+                .append('.')
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10))
+                .toString();
+    }
+}
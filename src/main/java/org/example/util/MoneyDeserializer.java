@@ -0,0 +1,80 @@
+package org.example.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import java.io.IOException;
+
+/**
+ * Reads a JSON amount like 100.50 into kopecks straight from the parser buffer.
+ * Numbers written with more than 2 fractions, even 1.000, or out of the long range are rejected
+ * as invalid format, null stays null and is left to the bean validation of the amount.
+ */
+public class MoneyDeserializer extends StdScalarDeserializer<Long> {
+    static final String SCALE_MESSAGE = "Amount maximum must have 7 integers and 2 fractions, like 999.00";
+
+    public MoneyDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (fractions(p, token) > Money.SCALE) {
+            throw ctxt.weirdStringException(p.getText(), Long.class, SCALE_MESSAGE);
+        }
+        try {
+            if (token == JsonToken.VALUE_NUMBER_INT) {
+                return Money.ofUnits(p.getLongValue());
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return containsExponent(p)
+                        ? Money.of(p.getDecimalValue())
+                        : Money.parse(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                return Money.parse(p.getText().trim());
+            }
+        } catch (NumberFormatException | ArithmeticException | IOException e) {
+            throw ctxt.weirdStringException(
+                    p.getText(), Long.class, "Amount must have maximum 2 fractions and fit the allowed range");
+        }
+        return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+    }
+
+    /**
+     * Fractions as written, like the scale of a BigDecimal, so trailing zeros count too.
+     */
+    private static int fractions(JsonParser p, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return containsExponent(p)
+                    ? p.getDecimalValue().scale()
+                    : fractions(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = p.getText().trim();
+            return fractions(text.toCharArray(), 0, text.length());
+        }
+        return 0;
+    }
+
+    private static int fractions(char[] text, int offset, int length) {
+        for (int i = offset, to = offset + length; i < to; i++) {
+            if (text[i] == '.') {
+                return to - i - 1;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean containsExponent(JsonParser p) throws IOException {
+        char[] text = p.getTextCharacters();
+        for (int i = p.getTextOffset(), to = i + p.getTextLength(); i < to; i++) {
+            if (text[i] == 'e' || text[i] == 'E') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
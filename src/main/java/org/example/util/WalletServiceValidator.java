@@ -1,42 +1,96 @@
 package org.example.util;
 
-import java.math.BigDecimal;
+import java.util.Optional;
 import java.util.UUID;
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
+import org.example.dto.WalletRequestPostDto;
 import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletBalanceLimitException;
 import org.example.exception.WalletNoExistException;
+import org.example.metrics.WalletMetrics;
 import org.example.model.OperationType;
-import org.example.model.Wallet;
-import org.example.repository.WalletRepository;
+import org.example.repository.WalletWriteRepository;
 import org.springframework.stereotype.Component;
 
-@Slf4j
 @Component
+@RequiredArgsConstructor
 public class WalletServiceValidator {
-    public void checkWalletExists(UUID uuid, WalletRepository repository) {
-        repository
-                .findByUuidWithLock(uuid)
-                .orElseThrow(
-                        () -> new WalletNoExistException(String.format("Wallet with UUID: %s was not found", uuid)));
+    /**
+     * Upper bound of chck_wallets_balance, in kopecks.
+     */
+    public static final long MAX_BALANCE = 100_000_000_000L;
+
+    private final WalletMetrics metrics;
+
+    /**
+     * Checks the result of a guarded UPDATE ... RETURNING. The wallet is looked up again
+     * only when nothing was updated, to tell a missing wallet from a too small balance
+     * or a deposit over the max balance.
+     */
+    public long checkOperationApplied(
+            Optional<Long> newBalance,
+            UUID uuid,
+            OperationType operationType,
+            long amount,
+            WalletWriteRepository repository) {
+        if (newBalance.isPresent()) {
+            return newBalance.get();
+        }
+        if (!repository.existsById(uuid)) {
+            throw walletNotFound(uuid);
+        }
+        throw rejection(uuid, operationType, amount);
+    }
+
+    /**
+     * Rejection of a guarded statement that updated nothing on an existing wallet.
+     */
+    public RuntimeException rejection(UUID uuid, OperationType operationType, long amount) {
+        return operationType == OperationType.DEPOSIT
+                ? balanceLimitExceeded(uuid, amount)
+                : notEnoughMoney(uuid, amount);
+    }
+
+    /**
+     * Checks an operation against a balance that is already locked and known in memory. Only the balance
+     * can be withdrawn, a deposit must keep balance and reserved within MAX_BALANCE like chck_wallets_reserved.
+     *
+     * @return the rejection, or null when the operation can be applied
+     */
+    public RuntimeException checkRunningBalance(
+            UUID uuid, long balance, long reserved, WalletRequestPostDto operation) {
+        return checkRunningBalance(uuid, balance, reserved, operation.getOperationType(), operation.getAmount());
     }
 
-    public void checkWalletBalanceAndLock(
-            UUID uuid, WalletRepository repository, BigDecimal amount, OperationType operationType) {
-        Wallet wallet = repository
-                .findByUuidWithLock(uuid)
-                .orElseThrow(
-                        () -> new WalletNoExistException(String.format("Wallet with UUID: %s was not found", uuid)));
-
-        if (operationType == OperationType.WITHDRAW) {
-            if (wallet.getBalance().compareTo(amount) < 0) {
-                String errorMessage = String.format(
-                        """
-                                Wallet with UUID: %s has not enough money to process, minimal balance must be: %s
-                                """,
-                        uuid, amount);
-                log.error(errorMessage);
-                throw new NotEnoughMoneyException(errorMessage);
-            }
+    public RuntimeException checkRunningBalance(
+            UUID uuid, long balance, long reserved, OperationType operationType, long amount) {
+        if (operationType == OperationType.WITHDRAW && balance < amount) {
+            return notEnoughMoney(uuid, amount);
         }
+        // All are within [0, MAX_BALANCE], the sum cannot overflow
+        if (operationType == OperationType.DEPOSIT && balance + reserved + amount > MAX_BALANCE) {
+            return balanceLimitExceeded(uuid, amount);
+        }
+        return null;
+    }
+
+    /**
+     * Rejections are expected outcomes, they are counted here and logged sampled by the error handler.
+     */
+    public WalletNoExistException walletNotFound(UUID uuid) {
+        metrics.rejection("not_found");
+        return new WalletNoExistException("Wallet with UUID: " + uuid + " was not found");
+    }
+
+    public NotEnoughMoneyException notEnoughMoney(UUID uuid, long amount) {
+        metrics.rejection("not_enough_money");
+        return new NotEnoughMoneyException("Wallet with UUID: " + uuid
+                + " has not enough money to process, minimal balance must be: " + Money.format(amount) + "\n");
+    }
+
+    public WalletBalanceLimitException balanceLimitExceeded(UUID uuid, long amount) {
+        metrics.rejection("limit_exceeded");
+        return new WalletBalanceLimitException("Deposit of " + Money.format(amount) + " to wallet with UUID: " + uuid
+                + " would exceed max balance " + Money.format(MAX_BALANCE));
     }
 }
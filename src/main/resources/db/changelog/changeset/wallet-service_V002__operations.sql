@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS wallet_operations (
+id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+wallet_uuid UUID NOT NULL,
+operation_type VARCHAR(16) NOT NULL,
+amount NUMERIC(10,2) NOT NULL,
+balance NUMERIC(10,2) NOT NULL,
+created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- Rows of one wallet are written under its row lock, so id order is the time order per wallet
+CREATE INDEX IF NOT EXISTS idx_wallet_operations_wallet_uuid_id
+ON wallet_operations (wallet_uuid, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_wallet_operations_created_at
+ON wallet_operations USING BRIN (created_at);
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+idempotency_key VARCHAR(128) PRIMARY KEY,
+wallet_uuid UUID NOT NULL,
+operation_type VARCHAR(16) NOT NULL,
+amount NUMERIC(10,2) NOT NULL,
+balance NUMERIC(10,2) NOT NULL,
+created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
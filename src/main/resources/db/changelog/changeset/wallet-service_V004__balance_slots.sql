@@ -0,0 +1,15 @@
+ALTER TABLE wallets
+ADD COLUMN IF NOT EXISTS stripes INTEGER NOT NULL DEFAULT 1;
+
+ALTER TABLE wallets
+ADD CONSTRAINT chck_wallets_stripes
+CHECK(stripes >= 1 AND stripes <= 64);
+
+-- Slots 1..stripes-1 of a striped wallet, the wallets row itself is slot 0
+CREATE TABLE IF NOT EXISTS wallet_balance_slots (
+wallet_uuid UUID NOT NULL REFERENCES wallets (uuid),
+slot SMALLINT NOT NULL,
+balance NUMERIC(10,2) NOT NULL DEFAULT 0.00,
+PRIMARY KEY (wallet_uuid, slot),
+CONSTRAINT chck_wallet_balance_slots_balance CHECK(balance >= 0.00)
+);
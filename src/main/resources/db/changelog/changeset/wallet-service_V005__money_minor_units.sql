@@ -0,0 +1,30 @@
+-- Money is stored as a count of kopecks, 1000.50 is 100050
+ALTER TABLE wallets DROP CONSTRAINT chck_wallets_balance;
+
+ALTER TABLE wallets
+ALTER COLUMN balance DROP DEFAULT,
+ALTER COLUMN balance TYPE BIGINT USING (balance * 100)::BIGINT,
+ALTER COLUMN balance SET DEFAULT 0;
+
+ALTER TABLE wallets
+ADD CONSTRAINT chck_wallets_balance
+CHECK(balance >= 0 AND balance <= 100000000000);
+
+ALTER TABLE wallet_balance_slots DROP CONSTRAINT chck_wallet_balance_slots_balance;
+
+ALTER TABLE wallet_balance_slots
+ALTER COLUMN balance DROP DEFAULT,
+ALTER COLUMN balance TYPE BIGINT USING (balance * 100)::BIGINT,
+ALTER COLUMN balance SET DEFAULT 0;
+
+ALTER TABLE wallet_balance_slots
+ADD CONSTRAINT chck_wallet_balance_slots_balance
+CHECK(balance >= 0);
+
+ALTER TABLE wallet_operations
+ALTER COLUMN amount TYPE BIGINT USING (amount * 100)::BIGINT,
+ALTER COLUMN balance TYPE BIGINT USING (balance * 100)::BIGINT;
+
+ALTER TABLE idempotency_keys
+ALTER COLUMN amount TYPE BIGINT USING (amount * 100)::BIGINT,
+ALTER COLUMN balance TYPE BIGINT USING (balance * 100)::BIGINT;
@@ -0,0 +1,12 @@
+-- Outcomes of operations accepted with POST /v1/wallet?mode=async, written in the transaction that applies them.
+-- A journaled operation whose id is here is not applied again on replay
+CREATE TABLE IF NOT EXISTS async_operations (
+operation_id UUID PRIMARY KEY,
+wallet_uuid UUID NOT NULL,
+operation_type VARCHAR(16) NOT NULL,
+amount BIGINT NOT NULL,
+status VARCHAR(16) NOT NULL,
+balance BIGINT,
+reason VARCHAR(512),
+created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
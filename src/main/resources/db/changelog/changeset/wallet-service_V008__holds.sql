@@ -0,0 +1,22 @@
+-- Held money is moved from balance to reserved, so balance stays the available balance
+-- and withdraws, transfers and batches need no change
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS reserved BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE wallets
+ADD CONSTRAINT chck_wallets_reserved
+CHECK(reserved >= 0 AND balance + reserved <= 100000000000);
+
+CREATE TABLE IF NOT EXISTS wallet_holds (
+id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+wallet_uuid UUID NOT NULL,
+amount BIGINT NOT NULL CHECK(amount > 0),
+captured BIGINT NOT NULL DEFAULT 0,
+status VARCHAR(16) NOT NULL,
+expires_at TIMESTAMPTZ NOT NULL,
+created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+closed_at TIMESTAMPTZ
+);
+
+-- The expiry sweeper reads the oldest expired open holds from here, closed holds leave the index
+CREATE INDEX IF NOT EXISTS idx_wallet_holds_open_expires_at
+ON wallet_holds (expires_at) WHERE status = 'OPEN';
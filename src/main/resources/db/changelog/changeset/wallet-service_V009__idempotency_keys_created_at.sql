@@ -0,0 +1,3 @@
+-- IdempotencyKeyPurger deletes the oldest keys first
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at
+ON idempotency_keys (created_at);
@@ -0,0 +1,214 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.metrics.WalletMetrics;
+import org.example.model.AsyncOperationStatus;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+import org.example.repository.AsyncOperationRepository;
+import org.example.repository.IdempotencyKeyRepository;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletBatchRepository;
+import org.example.repository.WalletSlotRepository;
+import org.example.service.async.AsyncOperationApplier;
+import org.example.service.async.JournalEntry;
+import org.example.service.async.WalletOperationJournal;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.util.WalletServiceValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncOperationApplierTest {
+    private final UUID testUuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    @Mock
+    private AsyncOperationRepository asyncRepository;
+
+    @Mock
+    private WalletBatchRepository batchRepository;
+
+    @Mock
+    private WalletSlotRepository slotRepository;
+
+    @Mock
+    private WalletBalanceCache balanceCache;
+
+    @Mock
+    private WalletMetrics metrics;
+
+    @Mock
+    private IdempotencyKeyRepository keyRepository;
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * Outcomes committed so far, as async_operations would hold them.
+     */
+    private final Set<UUID> recorded = new HashSet<>();
+
+    private AsyncOperationApplier applier;
+
+    @BeforeEach
+    void setUp() {
+        applier = new AsyncOperationApplier(
+                asyncRepository,
+                batchRepository,
+                slotRepository,
+                new WalletServiceValidator(metrics),
+                balanceCache,
+                new IdempotencyKeyStore(keyRepository, batchRepository, 100, Duration.ofMinutes(1)));
+        lenient().when(asyncRepository.findRecorded(anyCollection())).thenAnswer(invocation -> {
+            Set<UUID> found = new HashSet<>(invocation.<Collection<UUID>>getArgument(0));
+            found.retainAll(recorded);
+            return found;
+        });
+        lenient()
+                .doAnswer(invocation -> {
+                    invocation
+                            .<List<AsyncOperationStatusDto>>getArgument(0)
+                            .forEach(status -> recorded.add(status.operationId()));
+                    return null;
+                })
+                .when(asyncRepository)
+                .insertStatuses(anyList());
+        lenient().when(batchRepository.lockWallets(anyCollection())).thenAnswer(invocation -> {
+            Map<UUID, LockedWallet> wallets = new HashMap<>();
+            invocation
+                    .<Collection<UUID>>getArgument(0)
+                    .forEach(uuid -> wallets.put(uuid, new LockedWallet(10_000L, 1, 0)));
+            return wallets;
+        });
+        lenient().when(slotRepository.foldSlots(anyCollection())).thenReturn(Map.of());
+    }
+
+    @Test
+    void applySkipsRecordedOperationsOk() {
+        JournalEntry applied = entry(OperationType.DEPOSIT, 500L);
+        JournalEntry unapplied = entry(OperationType.WITHDRAW, 300L);
+        recorded.add(applied.operationId());
+
+        List<AsyncOperationStatusDto> statuses = applier.apply(List.of(applied, unapplied));
+
+        assertEquals(1, statuses.size());
+        assertEquals(unapplied.operationId(), statuses.getFirst().operationId());
+        assertEquals(9_700L, statuses.getFirst().balance());
+        verify(batchRepository, times(1)).updateBalances(Map.of(testUuid, 9_700L));
+        verify(batchRepository, times(1)).insertOperations(argThat(ledger -> ledger.size() == 1));
+    }
+
+    @Test
+    void applyAllRecordedTouchesNoWalletOk() {
+        JournalEntry applied = entry(OperationType.DEPOSIT, 500L);
+        recorded.add(applied.operationId());
+
+        assertTrue(applier.apply(List.of(applied)).isEmpty());
+        verifyNoInteractions(batchRepository, slotRepository, balanceCache);
+        verify(asyncRepository, never()).insertStatuses(any());
+    }
+
+    @Test
+    void applyReplayAfterCrashAppliesOnceOk() throws IOException {
+        List<JournalEntry> accepted = new ArrayList<>();
+        try (WalletOperationJournal journal = WalletOperationJournal.open(directory, 1 << 20, new ArrayList<>())) {
+            accepted.add(journal.append(UUID.randomUUID(), testUuid, OperationType.DEPOSIT, 500L, null));
+            accepted.add(journal.append(UUID.randomUUID(), testUuid, OperationType.DEPOSIT, 700L, null));
+            // Committed, then a crash before the journal is released
+            applier.apply(accepted);
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        WalletOperationJournal.open(directory, 1 << 20, recovered).close();
+
+        assertEquals(2, recovered.size());
+        assertTrue(applier.apply(recovered).isEmpty());
+        verify(batchRepository, times(1)).updateBalances(any());
+        verify(batchRepository, times(1)).insertOperations(any());
+        verify(asyncRepository, times(1)).insertStatuses(any());
+    }
+
+    @Test
+    void applyRecordsIdempotencyKeyOk() {
+        applier.apply(List.of(entry(OperationType.DEPOSIT, 500L, "key")));
+
+        verify(batchRepository)
+                .insertIdempotencyKeys(argThat(keys -> keys.size() == 1
+                        && keys.getFirst().getIdempotencyKey().equals("key")
+                        && keys.getFirst().getBalance() == 10_500L));
+    }
+
+    @Test
+    void applyKeyRecordedSynchronouslyReplaysOk() {
+        when(keyRepository.findAllById(any()))
+                .thenReturn(List.of(new IdempotencyKey("key", testUuid, OperationType.DEPOSIT, 500L, 10_500L, null)));
+
+        List<AsyncOperationStatusDto> statuses = applier.apply(List.of(entry(OperationType.DEPOSIT, 500L, "key")));
+
+        assertEquals(AsyncOperationStatus.APPLIED, statuses.getFirst().status());
+        assertEquals(10_500L, statuses.getFirst().balance());
+        verify(batchRepository).updateBalances(Map.of());
+        verify(batchRepository).insertOperations(List.of());
+    }
+
+    @Test
+    void applyKeyRecordedWithOtherRequestNegative() {
+        when(keyRepository.findAllById(any()))
+                .thenReturn(List.of(new IdempotencyKey("key", testUuid, OperationType.WITHDRAW, 500L, 9_500L, null)));
+
+        List<AsyncOperationStatusDto> statuses = applier.apply(List.of(entry(OperationType.DEPOSIT, 500L, "key")));
+
+        assertEquals(AsyncOperationStatus.REJECTED, statuses.getFirst().status());
+        verify(batchRepository).updateBalances(Map.of());
+    }
+
+    @Test
+    void failRecordsFailedOk() {
+        JournalEntry entry = entry(OperationType.DEPOSIT, 500L);
+
+        assertTrue(applier.fail(entry, "Not applied after 10 attempts: " + "x".repeat(1000)));
+
+        verify(asyncRepository)
+                .insertStatuses(argThat(statuses -> statuses.size() == 1
+                        && statuses.getFirst().status() == AsyncOperationStatus.FAILED
+                        && statuses.getFirst().reason().length() == 512));
+        assertTrue(applier.apply(List.of(entry)).isEmpty());
+    }
+
+    @Test
+    void failAlreadyRecordedNegative() {
+        JournalEntry entry = entry(OperationType.DEPOSIT, 500L);
+        recorded.add(entry.operationId());
+
+        assertFalse(applier.fail(entry, "Not applied"));
+        verify(asyncRepository, never()).insertStatuses(any());
+    }
+
+    private JournalEntry entry(OperationType operationType, long amount) {
+        return entry(operationType, amount, null);
+    }
+
+    private JournalEntry entry(OperationType operationType, long amount, String idempotencyKey) {
+        return new JournalEntry(UUID.randomUUID(), testUuid, operationType, amount, idempotencyKey, null);
+    }
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.example.dto.WalletRequestPostDto;
+import org.example.metrics.WalletMetrics;
+import org.example.model.OperationType;
+import org.example.service.async.AsyncOperationApplier;
+import org.example.service.async.AsyncOperationPipeline;
+import org.example.service.async.JournalEntry;
+import org.example.service.sharding.WalletShards;
+import org.example.service.wallet.WalletOperationRetry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.env.MockEnvironment;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncOperationPipelineTest {
+    private final UUID testUuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    @Mock
+    private AsyncOperationApplier applier;
+
+    @Mock
+    private WalletOperationRetry retry;
+
+    @Mock
+    private WalletMetrics metrics;
+
+    @TempDir
+    private Path directory;
+
+    private AsyncOperationPipeline pipeline;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(retry.execute(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        pipeline = new AsyncOperationPipeline(
+                applier, retry, new WalletShards(new MockEnvironment()), metrics, directory, 1 << 20, 1, 1000, 3, 1);
+    }
+
+    @AfterEach
+    void shutdown() throws IOException, InterruptedException {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void submitPoisonedOperationFailedOthersAppliedOk() throws InterruptedException {
+        UUID poisoned = UUID.randomUUID();
+        UUID healthy = UUID.randomUUID();
+        when(applier.apply(anyList())).thenAnswer(invocation -> {
+            List<JournalEntry> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(entry -> entry.operationId().equals(poisoned))) {
+                throw new IllegalStateException("Poisoned");
+            }
+            return List.of();
+        });
+        when(applier.fail(any(), anyString())).thenReturn(true);
+
+        pipeline.submit(poisoned, deposit());
+        pipeline.submit(healthy, deposit());
+        pipeline.start();
+
+        awaitDone(poisoned, healthy);
+        verify(applier, times(1)).fail(argThat(entry -> entry.operationId().equals(poisoned)), anyString());
+        verify(applier, never()).fail(argThat(entry -> entry.operationId().equals(healthy)), anyString());
+        verify(applier)
+                .apply(argThat(batch ->
+                        batch.size() == 1 && batch.getFirst().operationId().equals(healthy)));
+        verify(metrics).asyncFailed(1);
+    }
+
+    @Test
+    void submitDatabaseDownKeepsRetryingNegative() throws InterruptedException {
+        UUID operationId = UUID.randomUUID();
+        DataAccessResourceFailureException down = new DataAccessResourceFailureException("Connection refused");
+        when(applier.apply(anyList()))
+                .thenThrow(down, down, down, down, down, down)
+                .thenReturn(List.of());
+        when(applier.fail(any(), anyString())).thenThrow(down);
+
+        pipeline.submit(operationId, deposit());
+        pipeline.start();
+
+        awaitDone(operationId);
+        verify(applier, atLeast(7)).apply(anyList());
+        verify(metrics, never()).asyncFailed(anyInt());
+    }
+
+    private void awaitDone(UUID... operationIds) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        for (UUID operationId : operationIds) {
+            while (pipeline.findPending(operationId) != null) {
+                assertTrue(System.nanoTime() < deadline, "Operation " + operationId + " still pending");
+                Thread.sleep(5);
+            }
+        }
+    }
+
+    private WalletRequestPostDto deposit() {
+        return new WalletRequestPostDto(testUuid, OperationType.DEPOSIT, 100L, null);
+    }
+}
@@ -0,0 +1,143 @@
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.UUID;
+import org.example.controller.handler.ErrorHandler;
+import org.example.controller.wallet.AsyncWalletController;
+import org.example.controller.wallet.WalletController;
+import org.example.dto.AsyncOperationStatusDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.AsyncOperationNotFoundException;
+import org.example.model.AsyncOperationStatus;
+import org.example.model.OperationType;
+import org.example.service.WalletAsyncService;
+import org.example.service.WalletBatchService;
+import org.example.service.WalletOperationService;
+import org.example.service.WalletService;
+import org.example.service.WalletTransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncWalletControllerTest {
+
+    @Mock
+    private WalletAsyncService walletAsyncService;
+
+    @Mock
+    private WalletService walletService;
+
+    @Mock
+    private WalletBatchService walletBatchService;
+
+    @Mock
+    private WalletOperationService walletOperationService;
+
+    @Mock
+    private WalletTransferService walletTransferService;
+
+    @InjectMocks
+    private AsyncWalletController asyncWalletController;
+
+    @InjectMocks
+    private WalletController walletController;
+
+    private MockMvc mockMvc;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UUID testUuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+    private final UUID operationId = UUID.fromString("323e4567-e89b-12d3-a456-426614174000");
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(walletController, asyncWalletController)
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @Test
+    void acceptWalletOperationValidRequestAccepted() throws Exception {
+        WalletRequestPostDto dto = WalletRequestPostDto.builder()
+                .walletUuid(testUuid)
+                .operationType(OperationType.DEPOSIT)
+                .amount(10050L)
+                .build();
+
+        when(walletAsyncService.accept(any(WalletRequestPostDto.class)))
+                .thenReturn(new AsyncOperationStatusDto(
+                        operationId,
+                        testUuid,
+                        OperationType.DEPOSIT,
+                        10050L,
+                        AsyncOperationStatus.ACCEPTED,
+                        null,
+                        null));
+
+        mockMvc.perform(post("/v1/wallet")
+                        .param("mode", "async")
+                        .header("Idempotency-Key", "cashback-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.operationId").value(operationId.toString()))
+                .andExpect(jsonPath("$.status").value("ACCEPTED"))
+                .andExpect(jsonPath("$.amount").value(100.50));
+
+        verify(walletAsyncService, times(1))
+                .accept(argThat(request -> "cashback-42".equals(request.getIdempotencyKey())));
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void acceptWalletOperationInvalidAmountNegative() throws Exception {
+        WalletRequestPostDto dto = WalletRequestPostDto.builder()
+                .walletUuid(testUuid)
+                .operationType(OperationType.DEPOSIT)
+                .amount(0L)
+                .build();
+
+        mockMvc.perform(post("/v1/wallet")
+                        .param("mode", "async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletAsyncService);
+    }
+
+    @Test
+    void getStatusAppliedOk() throws Exception {
+        when(walletAsyncService.getStatus(operationId))
+                .thenReturn(new AsyncOperationStatusDto(
+                        operationId,
+                        testUuid,
+                        OperationType.DEPOSIT,
+                        10050L,
+                        AsyncOperationStatus.APPLIED,
+                        110050L,
+                        null));
+
+        mockMvc.perform(get("/v1/wallet/operations/{operationId}", operationId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("APPLIED"))
+                .andExpect(jsonPath("$.balance").value(1100.50));
+    }
+
+    @Test
+    void getStatusUnknownOperationNegative() throws Exception {
+        when(walletAsyncService.getStatus(operationId))
+                .thenThrow(new AsyncOperationNotFoundException("Operation with id: " + operationId + " was not found"));
+
+        mockMvc.perform(get("/v1/wallet/operations/{operationId}", operationId)).andExpect(status().isNotFound());
+    }
+}
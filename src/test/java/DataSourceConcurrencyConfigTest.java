@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.example.config.ConcurrencyLimitedDataSource;
+import org.example.config.DataSourceConcurrencyConfig;
+import org.example.config.WalletShardRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+
+class DataSourceConcurrencyConfigTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BeanPostProcessor postProcessor =
+            DataSourceConcurrencyConfig.concurrencyLimitedDataSourcePostProcessor(
+                    new MockEnvironment().withProperty("wallet.db-concurrency.permits", "3"),
+                    new StaticListableBeanFactory(Map.of("registry", registry)).getBeanProvider(MeterRegistry.class));
+
+    @Test
+    void postProcessPoolLimitedOk() {
+        Object limited = postProcessor.postProcessAfterInitialization(mock(DataSource.class), "dataSource");
+
+        assertInstanceOf(ConcurrencyLimitedDataSource.class, limited);
+        assertEquals(3, ((ConcurrencyLimitedDataSource) limited).availablePermits());
+        assertEquals(
+                3,
+                registry.get("wallet.db.permits.available")
+                        .tag("pool", "dataSource")
+                        .gauge()
+                        .value());
+    }
+
+    @Test
+    void postProcessRoutingDataSourceKeptOk() {
+        WalletShardRoutingDataSource routing = new WalletShardRoutingDataSource();
+
+        assertSame(routing, postProcessor.postProcessAfterInitialization(routing, "dataSource"));
+    }
+}
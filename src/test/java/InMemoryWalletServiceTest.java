@@ -0,0 +1,236 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.example.dto.WalletBalanceItemDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletNoExistException;
+import org.example.metrics.WalletMetrics;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.service.memory.InMemoryWalletService;
+import org.example.service.memory.WalletEngineBootstrap;
+import org.example.util.WalletServiceValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InMemoryWalletServiceTest {
+    private static final UUID FIRST = UUID.fromString("11111111-1111-1111-1111-111111111111");
+    private static final UUID SECOND = UUID.fromString("22222222-2222-2222-2222-222222222222");
+    private static final UUID MISSING = UUID.fromString("33333333-3333-3333-3333-333333333333");
+    private static final WalletEngineBootstrap BOOTSTRAP = (wallets, keys) -> {
+        wallets.accept(FIRST, 100_000);
+        wallets.accept(SECOND, 0);
+        keys.accept(new IdempotencyKey("imported", FIRST, OperationType.DEPOSIT, 500, 100_000, null));
+    };
+    private static final WalletEngineBootstrap NO_BOOTSTRAP = (wallets, keys) -> {};
+
+    @TempDir
+    Path directory;
+
+    private final List<InMemoryWalletService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        for (InMemoryWalletService service : services) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void processWalletOperationOk() {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+
+        assertEquals(
+                100_100,
+                service.processWalletOperation(operation(FIRST, OperationType.DEPOSIT, 100, null))
+                        .balance());
+        assertEquals(
+                100_000,
+                service.processWalletOperation(operation(FIRST, OperationType.WITHDRAW, 100, null))
+                        .balance());
+        assertEquals(100_000, service.getBalance(FIRST).balance());
+    }
+
+    @Test
+    void processWalletOperationNotFoundNegative() {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+
+        WalletNoExistException e = assertThrows(
+                WalletNoExistException.class,
+                () -> service.processWalletOperation(operation(MISSING, OperationType.DEPOSIT, 100, null)));
+        assertEquals("Wallet with UUID: " + MISSING + " was not found", e.getMessage());
+        assertThrows(WalletNoExistException.class, () -> service.getBalance(MISSING));
+    }
+
+    @Test
+    void processWalletOperationNotEnoughMoneyNegative() {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+
+        NotEnoughMoneyException e = assertThrows(
+                NotEnoughMoneyException.class,
+                () -> service.processWalletOperation(operation(SECOND, OperationType.WITHDRAW, 100, null)));
+        assertEquals(
+                "Wallet with UUID: " + SECOND + " has not enough money to process, minimal balance must be: 1.00\n",
+                e.getMessage());
+        assertEquals(0, service.getBalance(SECOND).balance());
+    }
+
+    @Test
+    void processWalletOperationIdempotencyKeyReplayOk() {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+
+        assertEquals(
+                100_300,
+                service.processWalletOperation(operation(FIRST, OperationType.DEPOSIT, 300, "key"))
+                        .balance());
+        assertEquals(
+                100_300,
+                service.processWalletOperation(operation(FIRST, OperationType.DEPOSIT, 300, "key"))
+                        .balance());
+        assertEquals(
+                100_000,
+                service.processWalletOperation(operation(FIRST, OperationType.DEPOSIT, 500, "imported"))
+                        .balance());
+        assertEquals(100_300, service.getBalance(FIRST).balance());
+    }
+
+    @Test
+    void processWalletOperationIdempotencyKeyConflictNegative() {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+        service.processWalletOperation(operation(FIRST, OperationType.DEPOSIT, 300, "key"));
+
+        assertThrows(
+                IdempotencyKeyConflictException.class,
+                () -> service.processWalletOperation(operation(SECOND, OperationType.DEPOSIT, 300, "key")));
+        assertEquals(0, service.getBalance(SECOND).balance());
+    }
+
+    @Test
+    void streamBalancesInRequestOrderOk() {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+        List<WalletBalanceItemDto> items = new ArrayList<>();
+
+        service.streamBalances(List.of(SECOND, MISSING, FIRST), items::add);
+
+        assertEquals(
+                List.of(
+                        new WalletBalanceItemDto(SECOND, true, 0L),
+                        new WalletBalanceItemDto(MISSING, false, null),
+                        new WalletBalanceItemDto(FIRST, true, 100_000L)),
+                items);
+    }
+
+    @Test
+    void restartRestoresSnapshotAndJournalOk() throws InterruptedException {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 3);
+        for (int i = 0; i < 10; i++) {
+            service.processWalletOperation(operation(SECOND, OperationType.DEPOSIT, 10, "deposit-" + i));
+        }
+        stop(service);
+
+        InMemoryWalletService restarted = start(NO_BOOTSTRAP, 4, 3);
+
+        assertEquals(100, restarted.getBalance(SECOND).balance());
+        assertEquals(100_000, restarted.getBalance(FIRST).balance());
+        assertEquals(
+                30,
+                restarted
+                        .processWalletOperation(operation(SECOND, OperationType.DEPOSIT, 10, "deposit-2"))
+                        .balance());
+        assertEquals(100, restarted.getBalance(SECOND).balance());
+    }
+
+    @Test
+    void restartTornJournalTailOk() throws Exception {
+        InMemoryWalletService service = start(BOOTSTRAP, 1, 1_000_000);
+        service.processWalletOperation(operation(FIRST, OperationType.WITHDRAW, 1_000, null));
+        stop(service);
+        try (Stream<Path> files = Files.walk(directory)) {
+            Path journal = files.filter(file -> file.getFileName().toString().startsWith("journal-"))
+                    .findFirst()
+                    .orElseThrow();
+            // A record that was cut off by a crash before its fsync
+            Files.write(journal, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        InMemoryWalletService restarted = start(NO_BOOTSTRAP, 1, 1_000_000);
+
+        assertEquals(99_000, restarted.getBalance(FIRST).balance());
+    }
+
+    @Test
+    void restartWithOtherShardCountOk() throws InterruptedException {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+        service.processWalletOperation(operation(FIRST, OperationType.WITHDRAW, 1_000, "withdraw"));
+        service.processWalletOperation(operation(SECOND, OperationType.DEPOSIT, 2_000, null));
+        stop(service);
+
+        InMemoryWalletService restarted = start(NO_BOOTSTRAP, 3, 1_000_000);
+
+        assertEquals(99_000, restarted.getBalance(FIRST).balance());
+        assertEquals(2_000, restarted.getBalance(SECOND).balance());
+        assertEquals(
+                99_000,
+                restarted
+                        .processWalletOperation(operation(FIRST, OperationType.WITHDRAW, 1_000, "withdraw"))
+                        .balance());
+    }
+
+    @Test
+    void restartImportsNewWalletsOk() throws InterruptedException {
+        InMemoryWalletService service = start(BOOTSTRAP, 4, 1_000_000);
+        service.processWalletOperation(operation(FIRST, OperationType.WITHDRAW, 1_000, null));
+        stop(service);
+
+        InMemoryWalletService restarted = start(
+                (wallets, keys) -> {
+                    BOOTSTRAP.load(wallets, keys);
+                    wallets.accept(MISSING, 500);
+                },
+                4,
+                1_000_000);
+
+        assertEquals(99_000, restarted.getBalance(FIRST).balance());
+        assertEquals(500, restarted.getBalance(MISSING).balance());
+    }
+
+    private InMemoryWalletService start(WalletEngineBootstrap bootstrap, int shards, long snapshotEvery) {
+        WalletMetrics metrics = new WalletMetrics(new SimpleMeterRegistry(), Optional.empty());
+        InMemoryWalletService service = new InMemoryWalletService(
+                new WalletServiceValidator(metrics),
+                new IdempotencyKeyStore(null, null, 100, Duration.ofMinutes(1)),
+                metrics,
+                bootstrap,
+                directory.toString(),
+                shards,
+                1024,
+                64,
+                Duration.ofSeconds(5),
+                snapshotEvery,
+                true);
+        services.add(service);
+        return service;
+    }
+
+    private void stop(InMemoryWalletService service) throws InterruptedException {
+        service.shutdown();
+        services.remove(service);
+    }
+
+    private static WalletRequestPostDto operation(UUID uuid, OperationType type, long amount, String idempotencyKey) {
+        return new WalletRequestPostDto(uuid, type, amount, idempotencyKey);
+    }
+}
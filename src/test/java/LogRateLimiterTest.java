@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.example.util.LogRateLimiter;
+import org.junit.jupiter.api.Test;
+
+class LogRateLimiterTest {
+    private final AtomicLong millis = new AtomicLong(1_000_000);
+    private final LogRateLimiter limiter = new LogRateLimiter(3, millis::get);
+
+    @Test
+    void tryAcquireWithinSecondOk() {
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        millis.addAndGet(999);
+        assertEquals(0, limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquireOverLimitSuppressedNegative() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire());
+        }
+
+        assertEquals(-1, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquireNextSecondReportsSuppressedOk() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+        }
+        millis.addAndGet(1_000);
+
+        assertEquals(2, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(-1, limiter.tryAcquire());
+        millis.addAndGet(1_000);
+        assertEquals(1, limiter.tryAcquire());
+    }
+}
@@ -0,0 +1,49 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import org.example.util.Money;
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void parseOk() {
+        assertEquals(10050L, Money.parse("100.50"));
+        assertEquals(10050L, Money.parse("100.5"));
+        assertEquals(10000L, Money.parse("100"));
+        assertEquals(10000L, Money.parse("100.000"));
+        assertEquals(1L, Money.parse("0.01"));
+        assertEquals(-150L, Money.parse("-1.50"));
+    }
+
+    @Test
+    void parseTooManyFractionsNegative() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("100.123"));
+    }
+
+    @Test
+    void parseNotDecimalNegative() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e2"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("."));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+    }
+
+    @Test
+    void parseOverflowNegative() {
+        assertThrows(ArithmeticException.class, () -> Money.parse("92233720368547758.08"));
+    }
+
+    @Test
+    void ofTooManyFractionsNegative() {
+        assertEquals(10000L, Money.of(new BigDecimal("1E+2")));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001")));
+    }
+
+    @Test
+    void formatOk() {
+        assertEquals("1000.50", Money.format(100050L));
+        assertEquals("0.05", Money.format(5L));
+        assertEquals("0.00", Money.format(0L));
+        assertEquals("-1.50", Money.format(-150L));
+    }
+}
@@ -0,0 +1,124 @@
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.UUID;
+import org.example.controller.handler.ReactiveErrorHandler;
+import org.example.controller.wallet.ReactiveWalletController;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletNoExistException;
+import org.example.service.ReactiveWalletService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveWalletControllerTest {
+
+    @Mock
+    private ReactiveWalletService walletService;
+
+    @InjectMocks
+    private ReactiveWalletController walletController;
+
+    private WebTestClient webTestClient;
+    private final UUID testUuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(walletController)
+                .controllerAdvice(new ReactiveErrorHandler())
+                .build();
+    }
+
+    @Test
+    void processWalletOperationDepositValidRequestOk() {
+        when(walletService.processWalletOperation(any(WalletRequestPostDto.class)))
+                .thenReturn(Mono.just(new WalletBalanceResponseDto(10050L)));
+
+        webTestClient
+                .post()
+                .uri("/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"walletUuid\": \"" + testUuid + "\", \"operationType\": \"DEPOSIT\", \"amount\": 100.50}")
+                .exchange()
+                .expectStatus()
+                .isOk()
+                .expectBody(String.class)
+                .isEqualTo("Operation with wallet success");
+    }
+
+    @Test
+    void processWalletOperationNotEnoughMoneyNegative() {
+        when(walletService.processWalletOperation(any(WalletRequestPostDto.class)))
+                .thenReturn(Mono.error(new NotEnoughMoneyException("Not enough money")));
+
+        webTestClient
+                .post()
+                .uri("/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(
+                        "{\"walletUuid\": \"" + testUuid + "\", \"operationType\": \"WITHDRAW\", \"amount\": 1000.00}")
+                .exchange()
+                .expectStatus()
+                .isEqualTo(402)
+                .expectBody()
+                .jsonPath("$.status")
+                .isEqualTo("PAYMENT_REQUIRED");
+    }
+
+    @Test
+    void processWalletOperationInvalidAmountTooSmallNegative() {
+        webTestClient
+                .post()
+                .uri("/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"walletUuid\": \"" + testUuid + "\", \"operationType\": \"DEPOSIT\", \"amount\": 0.00}")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void processWalletOperationInvalidOperationTypeNegative() {
+        webTestClient
+                .post()
+                .uri("/v1/wallet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"walletUuid\": \"" + testUuid + "\", \"operationType\": \"INVALID\", \"amount\": 1.00}")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+
+    @Test
+    void getBalanceNonExistentWalletNegative() {
+        when(walletService.getBalance(testUuid)).thenReturn(Mono.error(new WalletNoExistException("Wallet not found")));
+
+        webTestClient
+                .get()
+                .uri("/v1/wallets/{walletUuid}", testUuid)
+                .exchange()
+                .expectStatus()
+                .isNotFound();
+    }
+
+    @Test
+    void getBalanceInvalidUuidFormatNegative() {
+        webTestClient
+                .get()
+                .uri("/v1/wallets/{walletUuid}", "invalid-uuid-format")
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+    }
+}
@@ -0,0 +1,135 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.exception.WalletOperationLockException;
+import org.example.exception.WalletOverloadedException;
+import org.example.metrics.WalletMetrics;
+import org.example.service.admission.AdaptiveConcurrencyLimit;
+import org.example.service.admission.WalletAdmission;
+import org.example.service.wallet.WalletOperationRetry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+class WalletAdmissionTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WalletMetrics metrics = new WalletMetrics(registry, Optional.empty());
+    private final UUID testUuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+    private final UUID otherUuid = UUID.fromString("223e4567-e89b-12d3-a456-426614174000");
+
+    @Test
+    void executeRejectsOverPerWalletLimitNegative() {
+        WalletAdmission admission = admission(1, 50);
+
+        String result = admission.execute(testUuid, () -> {
+            assertThrows(WalletOverloadedException.class, () -> admission.execute(testUuid, () -> "nested"));
+            return admission.execute(otherUuid, () -> "other wallet");
+        });
+
+        assertEquals("other wallet", result);
+        assertEquals(
+                1,
+                registry.get("wallet.admission.rejections")
+                        .tag("reason", "wallet")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void executeRejectsOverGlobalLimitNegative() {
+        WalletAdmission admission = admission(8, 1);
+
+        assertThrows(
+                WalletOverloadedException.class,
+                () -> admission.execute(testUuid, () -> admission.execute(otherUuid, () -> "nested")));
+        assertEquals("ok", admission.execute(otherUuid, () -> "ok"));
+    }
+
+    @Test
+    void executeDisabledPassesThroughOk() {
+        WalletAdmission admission = new WalletAdmission(metrics, false, 16, 1, 1, 1, 1);
+
+        assertEquals("nested", admission.execute(testUuid, () -> admission.execute(testUuid, () -> "nested")));
+    }
+
+    @Test
+    void limitShrinksOnQueueingAndLockTimeoutsOk() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 100);
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        limit.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+        for (int i = 0; i < 5; i++) {
+            limit.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+        }
+        assertEquals(15, limit.getLimit());
+
+        limit.release(TimeUnit.MILLISECONDS.toNanos(5), true);
+        assertEquals(14, limit.getLimit());
+        assertEquals(13, limit.getInFlight());
+    }
+
+    @Test
+    void limitGrowsWhenUsedWithoutQueueingOk() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 3);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limit.tryAcquire());
+            assertTrue(limit.tryAcquire());
+            limit.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+            limit.release(TimeUnit.MILLISECONDS.toNanos(5), false);
+        }
+        assertEquals(3, limit.getLimit());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        assertFalse(limit.tryAcquire());
+    }
+
+    @Test
+    void executeLockTimeoutCutsGlobalLimitOk() {
+        WalletAdmission admission = admission(8, 20);
+
+        assertThrows(
+                WalletOperationLockException.class,
+                () -> admission.execute(testUuid, () -> {
+                    throw new WalletOperationLockException("lock timeout");
+                }));
+
+        assertEquals(18, registry.get("wallet.admission.limit").gauge().value());
+    }
+
+    @Test
+    void executeInsideRetryReleasesBetweenAttemptsOk() {
+        WalletAdmission admission = admission(1, 20);
+        WalletOperationRetry retry = new WalletOperationRetry(metrics, 5, 1, 1, 1, 3000);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.execute(
+                testUuid,
+                () -> admission.execute(testUuid, () -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new PessimisticLockingFailureException("lock timeout");
+                    }
+                    // The failed attempt gave its permit back and cut the limit once
+                    assertEquals(
+                            1,
+                            registry.get("wallet.admission.in_flight").gauge().value());
+                    assertEquals(
+                            18, registry.get("wallet.admission.limit").gauge().value());
+                    return "ok";
+                }));
+
+        assertEquals("ok", result);
+        assertEquals(2, attempts.get());
+        assertEquals(0, registry.get("wallet.admission.in_flight").gauge().value());
+    }
+
+    private WalletAdmission admission(int perWallet, int limit) {
+        return new WalletAdmission(metrics, true, 16, perWallet, limit, 1, 400);
+    }
+}
@@ -0,0 +1,411 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+import org.example.WalletServiceApplication;
+import org.example.service.sharding.WalletShards;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Load harness for POST /v1/wallet against a real Postgres. Excluded from the test task,
+ * run with ./gradlew loadTest (needs Docker). Each mode runs every scenario at every concurrency
+ * level and prints throughput, latency percentiles and response counts, the same table is
+ * written to build/reports/load/&lt;mode&gt;.csv.
+ *
+ * <p>Options: -Pload.scenarios=UNIFORM,HOT_WALLET,WITHDRAW_HEAVY -Pload.concurrency=1,8,32,128
+ * -Pload.seconds=10 -Pload.wallets=1000
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class WalletControllerLoadTest {
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    /**
+     * Single statement guarded UPDATE per operation.
+     */
+    @Nested
+    @SpringBootTest(
+            classes = WalletServiceApplication.class,
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    class GuardedUpdate extends Harness {
+        @Test
+        void run() throws Exception {
+            runAll("guarded-update");
+        }
+    }
+
+    /**
+     * Coalesced operations, every batch takes the row lock with findByUuidWithLock.
+     */
+    @Nested
+    @SpringBootTest(
+            classes = WalletServiceApplication.class,
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "wallet.coalescing.enabled=true")
+    class RowLock extends Harness {
+        @Test
+        void run() throws Exception {
+            runAll("row-lock");
+        }
+    }
+
+    /**
+     * Same as {@link GuardedUpdate} on the plain JDBC repository.
+     */
+    @Nested
+    @SpringBootTest(
+            classes = WalletServiceApplication.class,
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "wallet.repository=jdbc")
+    class JdbcGuardedUpdate extends Harness {
+        @Test
+        void run() throws Exception {
+            runAll("jdbc-guarded-update");
+        }
+    }
+
+    /**
+     * Same as {@link RowLock} on the plain JDBC repository.
+     */
+    @Nested
+    @SpringBootTest(
+            classes = WalletServiceApplication.class,
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {"wallet.coalescing.enabled=true", "wallet.repository=jdbc"})
+    class JdbcRowLock extends Harness {
+        @Test
+        void run() throws Exception {
+            runAll("jdbc-row-lock");
+        }
+    }
+
+    /**
+     * Same as {@link GuardedUpdate} with the wallets spread over two databases of the same Postgres.
+     */
+    @Nested
+    @SpringBootTest(
+            classes = WalletServiceApplication.class,
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = "wallet.sharding.enabled=true")
+    class Sharded extends Harness {
+        private static final int SHARDS = 2;
+
+        @DynamicPropertySource
+        static void shards(DynamicPropertyRegistry registry) throws SQLException {
+            POSTGRES.start();
+            try (Connection connection = DriverManager.getConnection(
+                            POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+                    Statement statement = connection.createStatement()) {
+                for (int i = 0; i < SHARDS; i++) {
+                    statement.execute("DROP DATABASE IF EXISTS shard" + i);
+                    statement.execute("CREATE DATABASE shard" + i);
+                }
+            }
+            for (int i = 0; i < SHARDS; i++) {
+                String url = String.format(
+                        "jdbc:postgresql://%s:%d/shard%d",
+                        POSTGRES.getHost(), POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), i);
+                registry.add("wallet.sharding.shards[" + i + "].url", () -> url);
+                registry.add("wallet.sharding.shards[" + i + "].username", POSTGRES::getUsername);
+                registry.add("wallet.sharding.shards[" + i + "].password", POSTGRES::getPassword);
+            }
+        }
+
+        @Test
+        void run() throws Exception {
+            runAll("sharded");
+        }
+    }
+
+    enum Scenario {
+        /**
+         * Operations spread over all wallets, half deposits.
+         */
+        UNIFORM,
+        /**
+         * Every operation on one wallet, half deposits.
+         */
+        HOT_WALLET,
+        /**
+         * Few wallets close to zero, 80% withdraws, most of them get 402.
+         */
+        WITHDRAW_HEAVY
+    }
+
+    record Result(
+            Scenario scenario,
+            int concurrency,
+            long requests,
+            double throughput,
+            long p50,
+            long p99,
+            long p999,
+            long ok,
+            long paymentRequired,
+            long tooManyRequests,
+            long serverErrors,
+            long other) {
+        static final String HEADER = "scenario,concurrency,requests,rps,p50_us,p99_us,p999_us,200,402,429,500,other";
+
+        String toCsv() {
+            return String.format(
+                    Locale.ROOT,
+                    "%s,%d,%d,%.0f,%d,%d,%d,%d,%d,%d,%d,%d",
+                    scenario,
+                    concurrency,
+                    requests,
+                    throughput,
+                    p50,
+                    p99,
+                    p999,
+                    ok,
+                    paymentRequired,
+                    tooManyRequests,
+                    serverErrors,
+                    other);
+        }
+    }
+
+    abstract static class Harness {
+        private final HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private JdbcTemplate jdbcTemplate;
+
+        @Autowired
+        private TransactionTemplate transactionTemplate;
+
+        @Autowired
+        private WalletShards shards;
+
+        @DynamicPropertySource
+        static void postgres(DynamicPropertyRegistry registry) {
+            POSTGRES.start();
+            registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+            registry.add("spring.datasource.username", POSTGRES::getUsername);
+            registry.add("spring.datasource.password", POSTGRES::getPassword);
+            registry.add("spring.jpa.show-sql", () -> "false");
+        }
+
+        void runAll(String mode) throws Exception {
+            List<Scenario> scenarios = Arrays.stream(
+                            System.getProperty("load.scenarios", "UNIFORM,HOT_WALLET,WITHDRAW_HEAVY")
+                                    .split(","))
+                    .map(String::trim)
+                    .map(Scenario::valueOf)
+                    .toList();
+            List<Integer> concurrencyLevels = Arrays.stream(
+                            System.getProperty("load.concurrency", "1,8,32,128").split(","))
+                    .map(String::trim)
+                    .map(Integer::parseInt)
+                    .toList();
+            Duration duration = Duration.ofSeconds(Long.getLong("load.seconds", 10));
+            int wallets = Integer.getInteger("load.wallets", 1000);
+
+            List<Result> results = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                for (int concurrency : concurrencyLevels) {
+                    results.add(run(scenario, concurrency, duration, wallets));
+                }
+            }
+            report(mode, results);
+            assertEquals(0, results.stream().mapToLong(Result::serverErrors).sum(), "500 responses under load");
+        }
+
+        private Result run(Scenario scenario, int concurrency, Duration duration, int wallets) throws Exception {
+            List<UUID> uuids =
+                    switch (scenario) {
+                        case UNIFORM -> createWallets(wallets, 100_000_000L);
+                        case HOT_WALLET -> createWallets(1, 100_000_000L);
+                        case WITHDRAW_HEAVY -> createWallets(Math.max(1, wallets / 100), 1000L);
+                    };
+            int withdrawPercent = scenario == Scenario.WITHDRAW_HEAVY ? 80 : 50;
+
+            long deadline = System.nanoTime() + duration.toNanos();
+            List<Future<Worker>> futures = new ArrayList<>(concurrency);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < concurrency; i++) {
+                    futures.add(executor.submit(() -> new Worker().run(uuids, withdrawPercent, deadline)));
+                }
+            }
+
+            Worker total = new Worker();
+            for (Future<Worker> future : futures) {
+                total.merge(future.get());
+            }
+            long[] latencies = Arrays.copyOf(total.latencies, total.requests);
+            Arrays.sort(latencies);
+            return new Result(
+                    scenario,
+                    concurrency,
+                    total.requests,
+                    total.requests / (duration.toNanos() / 1e9),
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.99),
+                    percentile(latencies, 0.999),
+                    total.ok,
+                    total.paymentRequired,
+                    total.tooManyRequests,
+                    total.serverErrors,
+                    total.other);
+        }
+
+        /**
+         * Every wallet is created on its owner shard.
+         */
+        private List<UUID> createWallets(int count, long balance) {
+            List<UUID> uuids = Stream.generate(UUID::randomUUID).limit(count).toList();
+            shards.groupByShard(uuids)
+                    .forEach((shard, shardUuids) -> shards.onShard(
+                            shard,
+                            () -> transactionTemplate.execute(status -> jdbcTemplate.update(
+                                    "INSERT INTO wallets (uuid, balance) SELECT unnest(?::uuid[]), ?", ps -> {
+                                        ps.setArray(1, ps.getConnection().createArrayOf("uuid", shardUuids.toArray()));
+                                        ps.setLong(2, balance);
+                                    }))));
+            return uuids;
+        }
+
+        private void report(String mode, List<Result> results) throws IOException {
+            StringBuilder table = new StringBuilder(String.format(
+                    "%n%-15s %6s %9s %9s %9s %9s %9s %8s %8s %8s %8s %8s%n",
+                    "scenario",
+                    "conc",
+                    "requests",
+                    "rps",
+                    "p50 us",
+                    "p99 us",
+                    "p999 us",
+                    "200",
+                    "402",
+                    "429",
+                    "500",
+                    "other"));
+            StringBuilder csv = new StringBuilder(Result.HEADER).append('\n');
+            for (Result result : results) {
+                table.append(String.format(
+                        Locale.ROOT,
+                        "%-15s %6d %9d %9.0f %9d %9d %9d %8d %8d %8d %8d %8d%n",
+                        result.scenario(),
+                        result.concurrency(),
+                        result.requests(),
+                        result.throughput(),
+                        result.p50(),
+                        result.p99(),
+                        result.p999(),
+                        result.ok(),
+                        result.paymentRequired(),
+                        result.tooManyRequests(),
+                        result.serverErrors(),
+                        result.other()));
+                csv.append(result.toCsv()).append('\n');
+            }
+            System.out.println("Load results, mode " + mode + table);
+
+            Path file = Path.of("build", "reports", "load", mode + ".csv");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, csv);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        }
+
+        /**
+         * Sends requests one after another until the deadline, latencies are in microseconds.
+         */
+        private class Worker {
+            private long[] latencies = new long[1024];
+            private int requests;
+            private long ok;
+            private long paymentRequired;
+            private long tooManyRequests;
+            private long serverErrors;
+            private long other;
+
+            Worker run(List<UUID> uuids, int withdrawPercent, long deadline) throws Exception {
+                URI uri = URI.create("http://localhost:" + port + "/api/v1/wallet");
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    UUID uuid = uuids.get(random.nextInt(uuids.size()));
+                    String operationType = random.nextInt(100) < withdrawPercent ? "WITHDRAW" : "DEPOSIT";
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                                    "{\"walletUuid\": \"%s\", \"operationType\": \"%s\", \"amount\": 1.00}",
+                                    uuid, operationType)))
+                            .build();
+                    long start = System.nanoTime();
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding())
+                            .statusCode();
+                    record((System.nanoTime() - start) / 1000, status);
+                }
+                return this;
+            }
+
+            void record(long latency, int status) {
+                if (requests == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, requests * 2);
+                }
+                latencies[requests++] = latency;
+                switch (status) {
+                    case 200 -> ok++;
+                    case 402 -> paymentRequired++;
+                    case 429 -> tooManyRequests++;
+                    case 500 -> serverErrors++;
+                    default -> other++;
+                }
+            }
+
+            void merge(Worker worker) {
+                latencies = Arrays.copyOf(latencies, requests + worker.requests);
+                System.arraycopy(worker.latencies, 0, latencies, requests, worker.requests);
+                requests += worker.requests;
+                ok += worker.ok;
+                paymentRequired += worker.paymentRequired;
+                tooManyRequests += worker.tooManyRequests;
+                serverErrors += worker.serverErrors;
+                other += worker.other;
+            }
+        }
+    }
+}
@@ -1,28 +1,53 @@
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import org.example.controller.handler.ErrorHandler;
 import org.example.controller.wallet.WalletController;
+import org.example.dto.WalletBalanceItemDto;
 import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletBalancesRequestDto;
+import org.example.dto.WalletBatchItemResultDto;
+import org.example.dto.WalletBatchRequestDto;
+import org.example.dto.WalletBatchResponseDto;
+import org.example.dto.WalletOperationDto;
+import org.example.dto.WalletOperationPageDto;
 import org.example.dto.WalletRequestPostDto;
+import org.example.dto.WalletTransferRequestDto;
+import org.example.dto.WalletTransferResponseDto;
+import org.example.exception.IdempotencyKeyConflictException;
 import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletBalanceLimitException;
+import org.example.exception.WalletCrossShardException;
+import org.example.exception.WalletEngineUnsupportedException;
 import org.example.exception.WalletNoExistException;
 import org.example.exception.WalletOperationLockException;
+import org.example.model.BatchItemStatus;
+import org.example.model.BatchMode;
 import org.example.model.OperationType;
+import org.example.service.WalletBatchService;
+import org.example.service.WalletOperationService;
 import org.example.service.WalletService;
+import org.example.service.WalletTransferService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +56,15 @@ class WalletControllerTest {
     @Mock
     private WalletService walletService;
 
+    @Mock
+    private WalletBatchService walletBatchService;
+
+    @Mock
+    private WalletOperationService walletOperationService;
+
+    @Mock
+    private WalletTransferService walletTransferService;
+
     @InjectMocks
     private WalletController walletController;
 
@@ -52,10 +86,11 @@ class WalletControllerTest {
         WalletRequestPostDto dto = WalletRequestPostDto.builder()
                 .walletUuid(testUuid)
                 .operationType(OperationType.DEPOSIT)
-                .amount(new BigDecimal("100.50"))
+                .amount(10050L)
                 .build();
 
-        doNothing().when(walletService).processWalletOperation(any(WalletRequestPostDto.class));
+        when(walletService.processWalletOperation(any(WalletRequestPostDto.class)))
+                .thenReturn(new WalletBalanceResponseDto(100000L));
 
         mockMvc.perform(post("/v1/wallet")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -71,10 +106,11 @@ class WalletControllerTest {
         WalletRequestPostDto dto = WalletRequestPostDto.builder()
                 .walletUuid(testUuid)
                 .operationType(OperationType.WITHDRAW)
-                .amount(new BigDecimal("50.00"))
+                .amount(5000L)
                 .build();
 
-        doNothing().when(walletService).processWalletOperation(any(WalletRequestPostDto.class));
+        when(walletService.processWalletOperation(any(WalletRequestPostDto.class)))
+                .thenReturn(new WalletBalanceResponseDto(100000L));
 
         mockMvc.perform(post("/v1/wallet")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -88,7 +124,7 @@ class WalletControllerTest {
         WalletRequestPostDto dto = WalletRequestPostDto.builder()
                 .walletUuid(testUuid)
                 .operationType(OperationType.DEPOSIT)
-                .amount(new BigDecimal("100.00"))
+                .amount(10000L)
                 .build();
 
         doThrow(new WalletNoExistException("Wallet not found"))
@@ -106,7 +142,7 @@ class WalletControllerTest {
         WalletRequestPostDto dto = WalletRequestPostDto.builder()
                 .walletUuid(testUuid)
                 .operationType(OperationType.WITHDRAW)
-                .amount(new BigDecimal("1000.00"))
+                .amount(100000L)
                 .build();
 
         doThrow(new NotEnoughMoneyException("Not enough money"))
@@ -119,12 +155,30 @@ class WalletControllerTest {
                 .andExpect(status().isPaymentRequired());
     }
 
+    @Test
+    void processWalletOperationBalanceLimitNegative() throws Exception {
+        WalletRequestPostDto dto = WalletRequestPostDto.builder()
+                .walletUuid(testUuid)
+                .operationType(OperationType.DEPOSIT)
+                .amount(100000L)
+                .build();
+
+        doThrow(new WalletBalanceLimitException("Max balance exceeded"))
+                .when(walletService)
+                .processWalletOperation(any(WalletRequestPostDto.class));
+
+        mockMvc.perform(post("/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     void processWalletOperationWalletLockedNegative() throws Exception {
         WalletRequestPostDto dto = WalletRequestPostDto.builder()
                 .walletUuid(testUuid)
                 .operationType(OperationType.WITHDRAW)
-                .amount(new BigDecimal("100.00"))
+                .amount(10000L)
                 .build();
 
         doThrow(new WalletOperationLockException("Wallet locked"))
@@ -191,20 +245,42 @@ class WalletControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void processWalletOperationHoldOperationTypeNegative() throws Exception {
+        String jsonHoldOperation = "{\"walletUuid\": \"123e4567-e89b-12d3-a456-426614174000\","
+                + " \"operationType\": \"HOLD\", \"amount\": 100.00}";
+
+        mockMvc.perform(post("/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonHoldOperation))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletService);
+    }
+
     @Test
     void getBalanceValidUuidOk() throws Exception {
-        WalletBalanceResponseDto responseDto = new WalletBalanceResponseDto(new BigDecimal("1000.50"));
+        WalletBalanceResponseDto responseDto = new WalletBalanceResponseDto(100050L);
 
-        when(walletService.getBalance(testUuid)).thenReturn(responseDto);
+        when(walletService.getBalance(testUuid, false)).thenReturn(responseDto);
 
         mockMvc.perform(get("/v1/wallets/{walletUuid}", testUuid))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.balance").value(1000.50));
     }
 
+    @Test
+    void getBalanceReadYourWritesOk() throws Exception {
+        when(walletService.getBalance(testUuid, true)).thenReturn(new WalletBalanceResponseDto(100050L));
+
+        mockMvc.perform(get("/v1/wallets/{walletUuid}", testUuid).param("readYourWrites", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1000.50));
+    }
+
     @Test
     void getBalanceNonExistentWalletNegative() throws Exception {
-        when(walletService.getBalance(testUuid)).thenThrow(new WalletNoExistException("Wallet not found"));
+        when(walletService.getBalance(testUuid, false)).thenThrow(new WalletNoExistException("Wallet not found"));
 
         mockMvc.perform(get("/v1/wallets/{walletUuid}", testUuid)).andExpect(status().isNotFound());
     }
@@ -214,6 +290,27 @@ class WalletControllerTest {
         mockMvc.perform(get("/v1/wallets/{walletUuid}", "invalid-uuid-format")).andExpect(status().isBadRequest());
     }
 
+    @Test
+    void setStripesValidRequestOk() throws Exception {
+        when(walletService.setStripes(testUuid, 8)).thenReturn(new WalletBalanceResponseDto(1000L));
+
+        mockMvc.perform(put("/v1/wallets/{walletUuid}/stripes", testUuid)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stripes\": 8}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(10.00));
+    }
+
+    @Test
+    void setStripesTooManyNegative() throws Exception {
+        mockMvc.perform(put("/v1/wallets/{walletUuid}/stripes", testUuid)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"stripes\": 65}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletService);
+    }
+
     @Test
     void processWalletOperationAmountWithManyDecimalsNegative() throws Exception {
         String jsonManyDecimals = "{\"walletUuid\": \"123e4567-e89b-12d3-a456-426614174000\","
@@ -236,6 +333,33 @@ class WalletControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void processWalletOperationMissingAmountNegative() throws Exception {
+        String jsonMissingAmount =
+                "{\"walletUuid\": \"123e4567-e89b-12d3-a456-426614174000\", \"operationType\": \"DEPOSIT\"}";
+
+        mockMvc.perform(post("/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonMissingAmount))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Amount must be not null")));
+
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void processWalletOperationAmountWithTrailingZeroDecimalsNegative() throws Exception {
+        String jsonTrailingZeros = "{\"walletUuid\": \"123e4567-e89b-12d3-a456-426614174000\","
+                + " \"operationType\": \"DEPOSIT\", \"amount\": 1.000}";
+
+        mockMvc.perform(post("/v1/wallet")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonTrailingZeros))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletService);
+    }
+
     @Test
     void processWalletOperationNullOperationTypeNegative() throws Exception {
         String jsonNullOperation = "{\"walletUuid\": \"123e4567-e89b-12d3-a456-426614174000\","
@@ -246,4 +370,279 @@ class WalletControllerTest {
                         .content(jsonNullOperation))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void transferValidRequestOk() throws Exception {
+        UUID targetUuid = UUID.fromString("223e4567-e89b-12d3-a456-426614174000");
+        WalletTransferRequestDto dto = WalletTransferRequestDto.builder()
+                .fromWalletUuid(testUuid)
+                .toWalletUuid(targetUuid)
+                .amount(1050L)
+                .build();
+
+        when(walletTransferService.transfer(any(WalletTransferRequestDto.class)))
+                .thenReturn(new WalletTransferResponseDto(testUuid, 8950L, targetUuid, 11050L));
+
+        mockMvc.perform(post("/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromBalance").value(89.50))
+                .andExpect(jsonPath("$.toBalance").value(110.50));
+
+        verify(walletTransferService, times(1)).transfer(argThat(request -> request.getAmount() == 1050L));
+    }
+
+    @Test
+    void transferSameWalletNegative() throws Exception {
+        WalletTransferRequestDto dto = WalletTransferRequestDto.builder()
+                .fromWalletUuid(testUuid)
+                .toWalletUuid(testUuid)
+                .amount(1050L)
+                .build();
+
+        mockMvc.perform(post("/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletTransferService);
+    }
+
+    @Test
+    void transferCrossShardNegative() throws Exception {
+        WalletTransferRequestDto dto = WalletTransferRequestDto.builder()
+                .fromWalletUuid(testUuid)
+                .toWalletUuid(UUID.fromString("223e4567-e89b-12d3-a456-426614174000"))
+                .amount(1050L)
+                .build();
+
+        when(walletTransferService.transfer(any(WalletTransferRequestDto.class)))
+                .thenThrow(new WalletCrossShardException("Wallets are on different shards"));
+
+        mockMvc.perform(post("/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.status").value("UNPROCESSABLE_ENTITY"))
+                .andExpect(jsonPath("$.reason").value("Wallets of one operation must be on the same shard"));
+    }
+
+    @Test
+    void transferEngineUnsupportedNegative() throws Exception {
+        WalletTransferRequestDto dto = WalletTransferRequestDto.builder()
+                .fromWalletUuid(testUuid)
+                .toWalletUuid(UUID.fromString("223e4567-e89b-12d3-a456-426614174000"))
+                .amount(1050L)
+                .build();
+
+        when(walletTransferService.transfer(any(WalletTransferRequestDto.class)))
+                .thenThrow(
+                        new WalletEngineUnsupportedException("Transfers are not supported with wallet.engine=memory"));
+
+        mockMvc.perform(post("/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.reason").value("Operation is not supported by the configured wallet engine"));
+    }
+
+    @Test
+    void transferNotEnoughMoneyNegative() throws Exception {
+        WalletTransferRequestDto dto = WalletTransferRequestDto.builder()
+                .fromWalletUuid(testUuid)
+                .toWalletUuid(UUID.fromString("223e4567-e89b-12d3-a456-426614174000"))
+                .amount(1050L)
+                .build();
+
+        when(walletTransferService.transfer(any(WalletTransferRequestDto.class)))
+                .thenThrow(new NotEnoughMoneyException("Not enough money"));
+
+        mockMvc.perform(post("/v1/transfers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isPaymentRequired());
+    }
+
+    @Test
+    void getBalancesMixedWalletsOk() throws Exception {
+        UUID missingUuid = UUID.fromString("223e4567-e89b-12d3-a456-426614174000");
+        WalletBalancesRequestDto dto = WalletBalancesRequestDto.builder()
+                .walletUuids(List.of(testUuid, missingUuid, testUuid))
+                .build();
+
+        doAnswer(invocation -> {
+                    Consumer<WalletBalanceItemDto> consumer = invocation.getArgument(1);
+                    consumer.accept(new WalletBalanceItemDto(testUuid, true, 100050L));
+                    consumer.accept(new WalletBalanceItemDto(missingUuid, false, null));
+                    return null;
+                })
+                .when(walletService)
+                .streamBalances(eq(List.of(testUuid, missingUuid)), any());
+
+        MvcResult result = mockMvc.perform(post("/v1/wallets/balances")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].found").value(true))
+                .andExpect(jsonPath("$[0].balance").value(1000.50))
+                .andExpect(jsonPath("$[1].walletUuid").value(missingUuid.toString()))
+                .andExpect(jsonPath("$[1].found").value(false))
+                .andExpect(jsonPath("$[1].balance").doesNotExist());
+    }
+
+    @Test
+    void getBalancesEmptyRequestNegative() throws Exception {
+        WalletBalancesRequestDto dto =
+                WalletBalancesRequestDto.builder().walletUuids(List.of()).build();
+
+        mockMvc.perform(post("/v1/wallets/balances")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletService);
+    }
+
+    @Test
+    void processBatchValidRequestOk() throws Exception {
+        WalletBatchRequestDto dto = WalletBatchRequestDto.builder()
+                .mode(BatchMode.BEST_EFFORT)
+                .operations(List.of(
+                        WalletRequestPostDto.builder()
+                                .walletUuid(testUuid)
+                                .operationType(OperationType.DEPOSIT)
+                                .amount(1000L)
+                                .build(),
+                        WalletRequestPostDto.builder()
+                                .walletUuid(testUuid)
+                                .operationType(OperationType.WITHDRAW)
+                                .amount(100000L)
+                                .build()))
+                .build();
+
+        when(walletBatchService.processBatch(any(WalletBatchRequestDto.class)))
+                .thenReturn(new WalletBatchResponseDto(
+                        BatchMode.BEST_EFFORT,
+                        true,
+                        List.of(
+                                new WalletBatchItemResultDto(0, testUuid, BatchItemStatus.APPLIED, 2000L, null),
+                                new WalletBatchItemResultDto(
+                                        1, testUuid, BatchItemStatus.REJECTED, null, "Not enough money"))));
+
+        mockMvc.perform(post("/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.committed").value(true))
+                .andExpect(jsonPath("$.items[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$.items[1].status").value("REJECTED"));
+    }
+
+    @Test
+    void processBatchLockTimeoutNegative() throws Exception {
+        String json = "{\"operations\": [{\"walletUuid\": \"" + testUuid
+                + "\", \"operationType\": \"DEPOSIT\", \"amount\": 10.00}]}";
+
+        when(walletBatchService.processBatch(any(WalletBatchRequestDto.class)))
+                .thenThrow(new PessimisticLockingFailureException("lock timeout"));
+
+        mockMvc.perform(post("/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void processBatchEmptyOperationsNegative() throws Exception {
+        mockMvc.perform(post("/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": []}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletBatchService);
+    }
+
+    @Test
+    void processBatchInvalidOperationNegative() throws Exception {
+        String jsonInvalidItem = "{\"operations\": [{\"walletUuid\": \"123e4567-e89b-12d3-a456-426614174000\","
+                + " \"operationType\": \"DEPOSIT\", \"amount\": 0.00}]}";
+
+        mockMvc.perform(post("/v1/wallets/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(jsonInvalidItem))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletBatchService);
+    }
+
+    @Test
+    void getOperationsWithCursorOk() throws Exception {
+        WalletOperationPageDto page = new WalletOperationPageDto(
+                List.of(new WalletOperationDto(
+                        41L, testUuid, OperationType.DEPOSIT, 1000L, 11000L, Instant.parse("2025-01-01T10:00:00Z"))),
+                41L);
+
+        when(walletOperationService.getOperations(testUuid, 42L, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/v1/wallets/{walletUuid}/operations", testUuid)
+                        .param("cursor", "42")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.operations[0].id").value(41))
+                .andExpect(jsonPath("$.nextCursor").value(41));
+    }
+
+    @Test
+    void getOperationsNonExistentWalletNegative() throws Exception {
+        when(walletOperationService.getOperations(testUuid, null, 50))
+                .thenThrow(new WalletNoExistException("Wallet not found"));
+
+        mockMvc.perform(get("/v1/wallets/{walletUuid}/operations", testUuid)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void processWalletOperationPassesIdempotencyKeyOk() throws Exception {
+        WalletRequestPostDto dto = WalletRequestPostDto.builder()
+                .walletUuid(testUuid)
+                .operationType(OperationType.DEPOSIT)
+                .amount(10050L)
+                .build();
+
+        when(walletService.processWalletOperation(any(WalletRequestPostDto.class)))
+                .thenReturn(new WalletBalanceResponseDto(100000L));
+
+        mockMvc.perform(post("/v1/wallet")
+                        .header("Idempotency-Key", "order-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+
+        verify(walletService, times(1))
+                .processWalletOperation(argThat(request -> "order-42".equals(request.getIdempotencyKey())));
+    }
+
+    @Test
+    void processWalletOperationIdempotencyKeyConflictNegative() throws Exception {
+        WalletRequestPostDto dto = WalletRequestPostDto.builder()
+                .walletUuid(testUuid)
+                .operationType(OperationType.DEPOSIT)
+                .amount(10050L)
+                .build();
+
+        doThrow(new IdempotencyKeyConflictException("Key was used"))
+                .when(walletService)
+                .processWalletOperation(any(WalletRequestPostDto.class));
+
+        mockMvc.perform(post("/v1/wallet")
+                        .header("Idempotency-Key", "order-42")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isConflict());
+    }
 }
@@ -0,0 +1,133 @@
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.UUID;
+import org.example.controller.handler.ErrorHandler;
+import org.example.controller.wallet.WalletHoldController;
+import org.example.dto.WalletHoldDto;
+import org.example.dto.WalletHoldRequestDto;
+import org.example.exception.WalletHoldConflictException;
+import org.example.exception.WalletHoldNotFoundException;
+import org.example.model.HoldStatus;
+import org.example.service.WalletHoldService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+@ExtendWith(MockitoExtension.class)
+class WalletHoldControllerTest {
+
+    @Mock
+    private WalletHoldService walletHoldService;
+
+    @InjectMocks
+    private WalletHoldController walletHoldController;
+
+    private MockMvc mockMvc;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UUID testUuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+    private final UUID holdId = UUID.fromString("423e4567-e89b-12d3-a456-426614174000");
+    private final Instant expiresAt = Instant.parse("2030-01-01T00:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(walletHoldController)
+                .setControllerAdvice(new ErrorHandler())
+                .build();
+    }
+
+    @Test
+    void holdValidRequestOk() throws Exception {
+        WalletHoldRequestDto dto = WalletHoldRequestDto.builder()
+                .walletUuid(testUuid)
+                .amount(10050L)
+                .ttlSeconds(600)
+                .build();
+
+        when(walletHoldService.hold(any(WalletHoldRequestDto.class)))
+                .thenReturn(
+                        new WalletHoldDto(holdId, testUuid, 10050L, 0L, HoldStatus.OPEN, expiresAt, 89950L, 10050L));
+
+        mockMvc.perform(post("/v1/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.holdId").value(holdId.toString()))
+                .andExpect(jsonPath("$.status").value("OPEN"))
+                .andExpect(jsonPath("$.balance").value(899.50))
+                .andExpect(jsonPath("$.reserved").value(100.50));
+
+        verify(walletHoldService, times(1)).hold(argThat(request -> request.getTtlSeconds() == 600));
+    }
+
+    @Test
+    void holdInvalidTtlNegative() throws Exception {
+        WalletHoldRequestDto dto = WalletHoldRequestDto.builder()
+                .walletUuid(testUuid)
+                .amount(10050L)
+                .ttlSeconds(0)
+                .build();
+
+        mockMvc.perform(post("/v1/holds")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(walletHoldService);
+    }
+
+    @Test
+    void captureWithoutBodyCapturesWholeHoldOk() throws Exception {
+        when(walletHoldService.capture(holdId, 0L))
+                .thenReturn(new WalletHoldDto(
+                        holdId, testUuid, 10050L, 10050L, HoldStatus.CAPTURED, expiresAt, 89950L, 0L));
+
+        mockMvc.perform(post("/v1/holds/{holdId}/capture", holdId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CAPTURED"))
+                .andExpect(jsonPath("$.captured").value(100.50));
+    }
+
+    @Test
+    void captureNullAmountCapturesWholeHoldOk() throws Exception {
+        when(walletHoldService.capture(holdId, 0L))
+                .thenReturn(new WalletHoldDto(
+                        holdId, testUuid, 10050L, 10050L, HoldStatus.CAPTURED, expiresAt, 89950L, 0L));
+
+        mockMvc.perform(post("/v1/holds/{holdId}/capture", holdId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CAPTURED"));
+    }
+
+    @Test
+    void captureClosedHoldNegative() throws Exception {
+        when(walletHoldService.capture(holdId, 5000L))
+                .thenThrow(new WalletHoldConflictException("Hold with id: " + holdId + " is already RELEASED"));
+
+        mockMvc.perform(post("/v1/holds/{holdId}/capture", holdId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 50.00}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void releaseUnknownHoldNegative() throws Exception {
+        when(walletHoldService.release(holdId))
+                .thenThrow(new WalletHoldNotFoundException("Hold with id: " + holdId + " was not found"));
+
+        mockMvc.perform(post("/v1/holds/{holdId}/release", holdId)).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,104 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.dto.WalletBalanceResponseDto;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.WalletOperationTimeoutException;
+import org.example.model.OperationType;
+import org.example.service.sharding.WalletShards;
+import org.example.service.wallet.WalletOperationCoalescer;
+import org.example.service.wallet.WalletOperationProcessor;
+import org.example.service.wallet.WalletOperationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+@ExtendWith(MockitoExtension.class)
+class WalletOperationCoalescerTest {
+    private static final UUID WALLET = UUID.fromString("11111111-1111-1111-1111-111111111111");
+
+    @Mock
+    private WalletOperationProcessor processor;
+
+    private WalletOperationCoalescer coalescer;
+
+    @AfterEach
+    void shutdown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void submitOneDrainPerWalletOk() throws Exception {
+        coalescer = coalescer(Duration.ofSeconds(10));
+        AtomicInteger draining = new AtomicInteger();
+        AtomicInteger maxDraining = new AtomicInteger();
+        when(processor.applyBatch(eq(WALLET), any())).thenAnswer(invocation -> {
+            maxDraining.accumulateAndGet(draining.incrementAndGet(), Math::max);
+            Thread.onSpinWait();
+            draining.decrementAndGet();
+            List<WalletRequestPostDto> operations = invocation.getArgument(1);
+            return operations.stream()
+                    .map(operation -> WalletOperationResult.applied(new WalletBalanceResponseDto(1)))
+                    .toList();
+        });
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(16)) {
+            List<Future<WalletBalanceResponseDto>> results = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                results.add(callers.submit(() -> coalescer.submit(deposit())));
+            }
+            for (Future<WalletBalanceResponseDto> result : results) {
+                assertEquals(1, result.get().balance());
+            }
+        }
+        assertEquals(1, maxDraining.get());
+    }
+
+    @Test
+    void submitStuckBatchTimeoutNegative() throws Exception {
+        coalescer = coalescer(Duration.ofMillis(200));
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(processor.applyBatch(eq(WALLET), any())).thenAnswer(invocation -> {
+            taken.countDown();
+            release.await();
+            return List.of(WalletOperationResult.applied(new WalletBalanceResponseDto(1)));
+        });
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            Future<?> inBatch = callers.submit(() -> coalescer.submit(deposit()));
+            assertTrue(taken.await(5, TimeUnit.SECONDS));
+            WalletOperationTimeoutException queued =
+                    assertThrows(WalletOperationTimeoutException.class, () -> coalescer.submit(deposit()));
+            assertTrue(queued.getMessage().endsWith("it was not applied"), queued.getMessage());
+            Exception e = assertThrows(Exception.class, inBatch::get);
+            assertInstanceOf(WalletOperationTimeoutException.class, e.getCause());
+            assertTrue(e.getCause().getMessage().endsWith("it may still be applied"), e.getMessage());
+            release.countDown();
+        }
+    }
+
+    private WalletOperationCoalescer coalescer(Duration timeout) {
+        return new WalletOperationCoalescer(
+                processor, new WalletShards(new MockEnvironment()), 0, 256, 4, timeout, false);
+    }
+
+    private static WalletRequestPostDto deposit() {
+        return new WalletRequestPostDto(WALLET, OperationType.DEPOSIT, 100L, null);
+    }
+}
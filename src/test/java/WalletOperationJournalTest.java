@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.example.model.OperationType;
+import org.example.service.async.JournalEntry;
+import org.example.service.async.WalletOperationJournal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WalletOperationJournalTest {
+    private final UUID testUuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void openReplaysUnreleasedOperationsInOrderOk() throws IOException {
+        List<UUID> operationIds = new ArrayList<>();
+        try (WalletOperationJournal journal = WalletOperationJournal.open(directory, 1 << 20, new ArrayList<>())) {
+            for (int i = 0; i < 3; i++) {
+                UUID operationId = UUID.randomUUID();
+                operationIds.add(operationId);
+                journal.append(operationId, testUuid, OperationType.DEPOSIT, 100L + i, null);
+            }
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        WalletOperationJournal.open(directory, 1 << 20, recovered).close();
+
+        assertEquals(
+                operationIds, recovered.stream().map(JournalEntry::operationId).toList());
+        assertEquals(102L, recovered.get(2).amount());
+        assertEquals(OperationType.DEPOSIT, recovered.get(2).operationType());
+    }
+
+    @Test
+    void openReplaysIdempotencyKeyOk() throws IOException {
+        try (WalletOperationJournal journal = WalletOperationJournal.open(directory, 1 << 20, new ArrayList<>())) {
+            journal.append(UUID.randomUUID(), testUuid, OperationType.DEPOSIT, 100L, "ключ-1");
+            journal.append(UUID.randomUUID(), testUuid, OperationType.DEPOSIT, 200L, null);
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        WalletOperationJournal.open(directory, 1 << 20, recovered).close();
+
+        assertEquals(2, recovered.size());
+        assertEquals("ключ-1", recovered.get(0).idempotencyKey());
+        assertNull(recovered.get(1).idempotencyKey());
+        assertEquals(200L, recovered.get(1).amount());
+    }
+
+    @Test
+    void openTruncatesTornRecordOk() throws IOException {
+        try (WalletOperationJournal journal = WalletOperationJournal.open(directory, 1 << 20, new ArrayList<>())) {
+            journal.append(UUID.randomUUID(), testUuid, OperationType.WITHDRAW, 100L, null);
+            journal.append(UUID.randomUUID(), testUuid, OperationType.WITHDRAW, 200L, null);
+        }
+        Path segment = segments().getFirst();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        WalletOperationJournal.open(directory, 1 << 20, recovered).close();
+
+        assertEquals(1, recovered.size());
+        assertEquals(100L, recovered.getFirst().amount());
+    }
+
+    @Test
+    void releaseDeletesRolledSegmentOk() throws IOException {
+        List<JournalEntry> appended = new ArrayList<>();
+        try (WalletOperationJournal journal = WalletOperationJournal.open(directory, 1, new ArrayList<>())) {
+            appended.add(journal.append(UUID.randomUUID(), testUuid, OperationType.DEPOSIT, 100L, null));
+            appended.add(journal.append(UUID.randomUUID(), testUuid, OperationType.DEPOSIT, 200L, null));
+            assertEquals(3, segments().size());
+
+            journal.release(appended.subList(0, 1));
+            assertEquals(2, segments().size());
+        }
+
+        List<JournalEntry> recovered = new ArrayList<>();
+        WalletOperationJournal.open(directory, 1, recovered).close();
+        assertEquals(
+                List.of(appended.get(1).operationId()),
+                recovered.stream().map(JournalEntry::operationId).toList());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
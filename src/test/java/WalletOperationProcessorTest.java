@@ -0,0 +1,313 @@
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.example.dto.WalletRequestPostDto;
+import org.example.exception.IdempotencyKeyConflictException;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletBalanceLimitException;
+import org.example.exception.WalletNoExistException;
+import org.example.metrics.WalletMetrics;
+import org.example.model.IdempotencyKey;
+import org.example.model.OperationType;
+import org.example.repository.IdempotencyKeyRepository;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletBatchRepository;
+import org.example.repository.WalletSlotRepository;
+import org.example.repository.WalletWriteRepository;
+import org.example.service.cache.WalletBalanceCache;
+import org.example.service.idempotency.IdempotencyKeyStore;
+import org.example.service.striping.StripedWalletBalance;
+import org.example.service.striping.WalletStripes;
+import org.example.service.wallet.WalletOperationProcessor;
+import org.example.service.wallet.WalletOperationResult;
+import org.example.util.Money;
+import org.example.util.WalletServiceValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class WalletOperationProcessorTest {
+
+    @Mock
+    private WalletWriteRepository repository;
+
+    @Mock
+    private WalletBatchRepository batchRepository;
+
+    @Mock
+    private IdempotencyKeyStore idempotencyKeyStore;
+
+    @Mock
+    private WalletBalanceCache balanceCache;
+
+    @Mock
+    private WalletSlotRepository slotRepository;
+
+    @Mock
+    private WalletStripes walletStripes;
+
+    @Mock
+    private StripedWalletBalance stripedBalance;
+
+    @Mock
+    private IdempotencyKeyRepository keyRepository;
+
+    private final WalletMetrics metrics = new WalletMetrics(new SimpleMeterRegistry(), Optional.empty());
+    private WalletOperationProcessor processor;
+    private final UUID testUuid = UUID.fromString("113e4467-e80b-12d3-a456-426614174000");
+
+    @BeforeEach
+    void setUp() {
+        processor = new WalletOperationProcessor(
+                repository,
+                new WalletServiceValidator(metrics),
+                batchRepository,
+                idempotencyKeyStore,
+                balanceCache,
+                slotRepository,
+                walletStripes,
+                stripedBalance,
+                metrics);
+    }
+
+    @Test
+    void applyBatchRejectsOnlyOverdrawingWithdraw() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(10000L, 1, 0)));
+
+        List<WalletOperationResult> results = processor.applyBatch(
+                testUuid,
+                List.of(
+                        operation(OperationType.WITHDRAW, "60.00"),
+                        operation(OperationType.WITHDRAW, "60.00"),
+                        operation(OperationType.DEPOSIT, "10.00")));
+
+        assertEquals(4000L, results.get(0).balance().balance());
+        assertInstanceOf(NotEnoughMoneyException.class, results.get(1).error());
+        assertEquals(5000L, results.get(2).balance().balance());
+        verify(repository, times(1)).updateBalance(5000L, testUuid);
+        verify(batchRepository, times(1)).insertOperations(argThat(ledger -> ledger.size() == 2));
+        verify(balanceCache, times(1)).onBalanceChanged(testUuid, 5000L);
+    }
+
+    @Test
+    void applyBatchDepositOverReservedLimitNegative() {
+        long reserved = WalletServiceValidator.MAX_BALANCE - 10000L;
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(5000L, 1, reserved)));
+
+        List<WalletOperationResult> results = processor.applyBatch(
+                testUuid,
+                List.of(operation(OperationType.DEPOSIT, "60.00"), operation(OperationType.DEPOSIT, "50.00")));
+
+        assertInstanceOf(WalletBalanceLimitException.class, results.get(0).error());
+        assertEquals(10000L, results.get(1).balance().balance());
+        verify(repository, times(1)).updateBalance(10000L, testUuid);
+    }
+
+    @Test
+    void applyBatchWithoutNetChangeSkipsUpdate() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(1000L, 1, 0)));
+
+        processor.applyBatch(
+                testUuid, List.of(operation(OperationType.DEPOSIT, "5.00"), operation(OperationType.WITHDRAW, "5.00")));
+
+        verify(repository, never()).updateBalance(anyLong(), any());
+    }
+
+    @Test
+    void applyBatchFoldsSlotsOfStripedWallet() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(1000L, 4, 0)));
+        when(slotRepository.foldSlots(List.of(testUuid))).thenReturn(Map.of(testUuid, 5000L));
+
+        List<WalletOperationResult> results =
+                processor.applyBatch(testUuid, List.of(operation(OperationType.WITHDRAW, "40.00")));
+
+        assertEquals(2000L, results.get(0).balance().balance());
+        verify(repository, times(1)).updateBalance(2000L, testUuid);
+    }
+
+    @Test
+    void applyWithdrawUsesSlotsWhenStripeCountWasStale() {
+        when(walletStripes.get(testUuid)).thenReturn(1);
+        when(walletStripes.refresh(testUuid)).thenReturn(4);
+        when(repository.withdrawBalanceReturning(4000L, testUuid)).thenReturn(Optional.empty());
+        when(stripedBalance.withdraw(testUuid, 4000L)).thenReturn(Optional.of(2000L));
+
+        assertEquals(
+                2000L,
+                processor.apply(operation(OperationType.WITHDRAW, "40.00")).balance());
+        verify(balanceCache, never()).onBalanceChanged(any(), anyLong());
+    }
+
+    @Test
+    void applyDepositOverLimitNegative() {
+        when(walletStripes.get(testUuid)).thenReturn(1);
+        when(repository.depositBalanceReturning(1000L, testUuid)).thenReturn(Optional.empty());
+        when(repository.existsById(testUuid)).thenReturn(true);
+
+        assertThrows(
+                WalletBalanceLimitException.class, () -> processor.apply(operation(OperationType.DEPOSIT, "10.00")));
+        verify(balanceCache, never()).onBalanceChanged(any(), anyLong());
+    }
+
+    @Test
+    void applyBatchWalletNotFoundNegative() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.empty());
+
+        assertThrows(
+                WalletNoExistException.class,
+                () -> processor.applyBatch(testUuid, List.of(operation(OperationType.DEPOSIT, "5.00"))));
+    }
+
+    @Test
+    void applyStoredKeySameBodyReplayOk() {
+        when(keyRepository.findById("key"))
+                .thenReturn(Optional.of(storedKey("key", OperationType.DEPOSIT, 1000L, 7000L)));
+
+        assertEquals(
+                7000L,
+                keyedProcessor()
+                        .apply(operation(OperationType.DEPOSIT, "10.00", "key"))
+                        .balance());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void applyStoredKeyOtherBodyNegative() {
+        when(keyRepository.findById("key"))
+                .thenReturn(Optional.of(storedKey("key", OperationType.DEPOSIT, 1000L, 7000L)));
+
+        assertThrows(IdempotencyKeyConflictException.class, () -> keyedProcessor()
+                .apply(operation(OperationType.WITHDRAW, "10.00", "key")));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void applyBatchSameKeySameBodyReplayOk() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(10000L, 1, 0)));
+        when(keyRepository.findAllById(any())).thenReturn(List.of());
+        when(batchRepository.insertIdempotencyKeys(any())).thenReturn(Set.of());
+
+        List<WalletOperationResult> results = keyedProcessor()
+                .applyBatch(
+                        testUuid,
+                        List.of(
+                                operation(OperationType.DEPOSIT, "10.00", "key"),
+                                operation(OperationType.DEPOSIT, "10.00", "key")));
+
+        assertEquals(11000L, results.get(0).balance().balance());
+        assertEquals(11000L, results.get(1).balance().balance());
+        verify(batchRepository, times(1)).insertIdempotencyKeys(argThat(keys -> keys.size() == 1));
+        verify(batchRepository, times(1)).insertOperations(argThat(ledger -> ledger.size() == 1));
+        verify(repository, times(1)).updateBalance(11000L, testUuid);
+    }
+
+    @Test
+    void applyBatchStoredKeyOtherBodyNegative() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(10000L, 1, 0)));
+        when(keyRepository.findAllById(any()))
+                .thenReturn(List.of(storedKey("key", OperationType.DEPOSIT, 1000L, 7000L)));
+
+        List<WalletOperationResult> results = keyedProcessor()
+                .applyBatch(
+                        testUuid,
+                        List.of(
+                                operation(OperationType.WITHDRAW, "10.00", "key"),
+                                operation(OperationType.DEPOSIT, "10.00", "key"),
+                                operation(OperationType.DEPOSIT, "5.00")));
+
+        assertInstanceOf(IdempotencyKeyConflictException.class, results.get(0).error());
+        assertEquals(7000L, results.get(1).balance().balance());
+        assertEquals(10500L, results.get(2).balance().balance());
+        verify(batchRepository, never()).insertIdempotencyKeys(any());
+        verify(repository, times(1)).updateBalance(10500L, testUuid);
+    }
+
+    @Test
+    void applyBatchConcurrentDuplicateKeyReplayOk() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(10000L, 1, 0)));
+        // "first" is committed by another transaction between the lookup and the insert
+        when(keyRepository.findAllById(any()))
+                .thenReturn(List.of(), List.of(storedKey("first", OperationType.DEPOSIT, 1000L, 50000L)));
+        when(batchRepository.insertIdempotencyKeys(any())).thenReturn(Set.of("first"), Set.of());
+
+        List<WalletOperationResult> results = keyedProcessor()
+                .applyBatch(
+                        testUuid,
+                        List.of(
+                                operation(OperationType.DEPOSIT, "10.00", "first"),
+                                operation(OperationType.DEPOSIT, "20.00", "second")));
+
+        assertEquals(50000L, results.get(0).balance().balance());
+        assertEquals(12000L, results.get(1).balance().balance());
+        verify(batchRepository, times(1)).deleteIdempotencyKeys(List.of("second"));
+        verify(batchRepository, times(1))
+                .insertIdempotencyKeys(argThat(keys -> keys.size() == 1
+                        && keys.getFirst().getIdempotencyKey().equals("second")
+                        && keys.getFirst().getBalance() == 12000L));
+        verify(batchRepository, times(1)).insertOperations(argThat(ledger -> ledger.size() == 1));
+        verify(repository, times(1)).updateBalance(12000L, testUuid);
+    }
+
+    @Test
+    void applyBatchConcurrentKeyOtherBodyNegative() {
+        when(repository.findByUuidWithLock(testUuid)).thenReturn(Optional.of(new LockedWallet(10000L, 1, 0)));
+        IdempotencyKey otherWallet =
+                new IdempotencyKey("key", UUID.randomUUID(), OperationType.DEPOSIT, 1000L, 1000L, null);
+        when(keyRepository.findAllById(any())).thenReturn(List.of(), List.of(otherWallet));
+        when(batchRepository.insertIdempotencyKeys(any())).thenReturn(Set.of("key"));
+
+        List<WalletOperationResult> results =
+                keyedProcessor().applyBatch(testUuid, List.of(operation(OperationType.DEPOSIT, "10.00", "key")));
+
+        assertInstanceOf(IdempotencyKeyConflictException.class, results.get(0).error());
+        verify(batchRepository, never()).deleteIdempotencyKeys(any());
+        verify(repository, never()).updateBalance(anyLong(), any());
+        verify(batchRepository, never()).insertOperations(any());
+    }
+
+    /**
+     * With a real key store on top of the mocked repositories.
+     */
+    private WalletOperationProcessor keyedProcessor() {
+        return new WalletOperationProcessor(
+                repository,
+                new WalletServiceValidator(metrics),
+                batchRepository,
+                new IdempotencyKeyStore(keyRepository, batchRepository, 100, Duration.ofMinutes(1)),
+                balanceCache,
+                slotRepository,
+                walletStripes,
+                stripedBalance,
+                metrics);
+    }
+
+    private IdempotencyKey storedKey(String key, OperationType operationType, long amount, long balance) {
+        return new IdempotencyKey(key, testUuid, operationType, amount, balance, null);
+    }
+
+    private WalletRequestPostDto operation(OperationType operationType, String amount) {
+        return operation(operationType, amount, null);
+    }
+
+    private WalletRequestPostDto operation(OperationType operationType, String amount, String idempotencyKey) {
+        return WalletRequestPostDto.builder()
+                .walletUuid(testUuid)
+                .operationType(operationType)
+                .amount(Money.parse(amount))
+                .idempotencyKey(idempotencyKey)
+                .build();
+    }
+}
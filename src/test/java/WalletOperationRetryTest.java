@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.exception.NotEnoughMoneyException;
+import org.example.exception.WalletOperationLockException;
+import org.example.metrics.WalletMetrics;
+import org.example.service.wallet.WalletOperationRetry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+class WalletOperationRetryTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WalletMetrics metrics = new WalletMetrics(registry, Optional.empty());
+    private final UUID testUuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+
+    @Test
+    void executeRetriesLockFailuresOk() {
+        WalletOperationRetry retry = new WalletOperationRetry(metrics, 5, 1, 2, 10, 3000);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retry.execute(testUuid, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, registry.get("wallet.operation.retries").counter().count());
+        assertEquals(3, registry.get("wallet.operation.attempts").summary().totalAmount());
+    }
+
+    @Test
+    void executeGivesUpAfterMaxAttemptsNegative() {
+        WalletOperationRetry retry = new WalletOperationRetry(metrics, 3, 1, 2, 10, 3000);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(
+                WalletOperationLockException.class,
+                () -> retry.execute(testUuid, () -> {
+                    calls.incrementAndGet();
+                    throw new CannotAcquireLockException("lock timeout");
+                }));
+        assertEquals(3, calls.get());
+        assertEquals(
+                1,
+                registry.get("wallet.operation.recoveries")
+                        .tag("reason", "attempts")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void executeGivesUpAtDeadlineNegative() {
+        WalletOperationRetry retry = new WalletOperationRetry(metrics, 100, 50, 1, 50, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(
+                WalletOperationLockException.class,
+                () -> retry.execute(testUuid, () -> {
+                    calls.incrementAndGet();
+                    throw new CannotAcquireLockException("lock timeout");
+                }));
+        assertEquals(1, calls.get());
+        assertEquals(
+                1,
+                registry.get("wallet.operation.recoveries")
+                        .tag("reason", "deadline")
+                        .counter()
+                        .count());
+    }
+
+    @Test
+    void executeDoesNotRetryOtherErrorsNegative() {
+        WalletOperationRetry retry = new WalletOperationRetry(metrics, 5, 1, 2, 10, 3000);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(
+                NotEnoughMoneyException.class,
+                () -> retry.execute(testUuid, () -> {
+                    calls.incrementAndGet();
+                    throw new NotEnoughMoneyException("not enough money");
+                }));
+        assertEquals(1, calls.get());
+    }
+}
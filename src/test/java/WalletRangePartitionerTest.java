@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import java.util.UUID;
+import org.example.service.export.WalletRangePartitioner;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+class WalletRangePartitionerTest {
+    private final WalletRangePartitioner partitioner = new WalletRangePartitioner();
+
+    @Test
+    void partitionCoversUuidSpaceWithoutGapsOk() {
+        Map<String, ExecutionContext> partitions = partitioner.partition(5);
+
+        assertEquals(5, partitions.size());
+        assertEquals(new UUID(0L, 0L), min(partitions, 0));
+        assertEquals(new UUID(-1L, -1L), max(partitions, 4));
+        for (int i = 1; i < 5; i++) {
+            UUID previousMax = max(partitions, i - 1);
+            UUID min = min(partitions, i);
+            assertEquals(-1L, previousMax.getLeastSignificantBits());
+            assertEquals(0L, min.getLeastSignificantBits());
+            assertEquals(previousMax.getMostSignificantBits() + 1, min.getMostSignificantBits());
+            assertTrue(Long.compareUnsigned(
+                            min.getMostSignificantBits(), max(partitions, i).getMostSignificantBits())
+                    < 0);
+        }
+    }
+
+    @Test
+    void partitionSingleRangeOk() {
+        Map<String, ExecutionContext> partitions = partitioner.partition(1);
+
+        assertEquals(new UUID(0L, 0L), min(partitions, 0));
+        assertEquals(new UUID(-1L, -1L), max(partitions, 0));
+        assertEquals(0, partitions.get("partition0").getInt(WalletRangePartitioner.PARTITION));
+    }
+
+    @Test
+    void partitionEveryShardOk() {
+        Map<String, ExecutionContext> partitions = new WalletRangePartitioner(3).partition(4);
+
+        assertEquals(12, partitions.size());
+        for (int shard = 0; shard < 3; shard++) {
+            for (int i = 0; i < 4; i++) {
+                ExecutionContext context = partitions.get("partition" + (shard * 4 + i));
+                assertEquals(shard, context.getInt(WalletRangePartitioner.SHARD));
+                assertEquals(min(partitions, i), min(partitions, shard * 4 + i));
+                assertEquals(max(partitions, i), max(partitions, shard * 4 + i));
+            }
+        }
+    }
+
+    private static UUID min(Map<String, ExecutionContext> partitions, int partition) {
+        return UUID.fromString(partitions.get("partition" + partition).getString(WalletRangePartitioner.MIN_UUID));
+    }
+
+    private static UUID max(Map<String, ExecutionContext> partitions, int partition) {
+        return UUID.fromString(partitions.get("partition" + partition).getString(WalletRangePartitioner.MAX_UUID));
+    }
+}
@@ -0,0 +1,51 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Optional;
+import org.example.metrics.WalletMetrics;
+import org.example.service.replica.WalletReplica;
+import org.junit.jupiter.api.Test;
+
+class WalletReplicaTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WalletReplica replica =
+            new WalletReplica(new WalletMetrics(registry, Optional.empty()), true, Duration.ofMillis(200));
+
+    @Test
+    void routeToReplicaUnknownLagNegative() {
+        assertFalse(replica.routeToReplica());
+        assertFalse(replica.read(true, replica::routeToReplica));
+        assertEquals(1, routed("replica", "primary", "unavailable"));
+        assertEquals(1, routed("read_your_writes", "primary", "unavailable"));
+    }
+
+    @Test
+    void routeToReplicaReadYourWritesOverMaxLagNegative() {
+        replica.lag(500);
+
+        assertTrue(replica.routeToReplica());
+        assertFalse(replica.read(true, replica::routeToReplica));
+        assertTrue(replica.routeToReplica());
+        assertEquals(2, routed("replica", "replica", "ok"));
+        assertEquals(1, routed("read_your_writes", "primary", "lag"));
+        assertEquals(500, registry.get("wallet.replica.lag").gauge().value());
+    }
+
+    @Test
+    void routeToReplicaReadYourWritesWithinMaxLagOk() {
+        replica.lag(150);
+
+        assertTrue(replica.read(true, replica::routeToReplica));
+        assertEquals(1, routed("read_your_writes", "replica", "ok"));
+    }
+
+    private double routed(String mode, String target, String reason) {
+        return registry.get("wallet.replica.routing")
+                .tag("mode", mode)
+                .tag("target", target)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
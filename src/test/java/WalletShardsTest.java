@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.UUID;
+import org.example.exception.WalletCrossShardException;
+import org.example.service.sharding.WalletShards;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class WalletShardsTest {
+    private static final int WALLETS = 40_000;
+
+    @Test
+    void disabledSingleShardOk() {
+        WalletShards shards = new WalletShards(new MockEnvironment());
+
+        assertEquals(1, shards.count());
+        assertEquals(0, shards.shardOf(UUID.randomUUID()));
+        assertEquals("done", shards.onShard(3, () -> "done"));
+        assertNull(WalletShards.current());
+    }
+
+    @Test
+    void shardOfSpreadsWalletsEvenlyOk() {
+        WalletShards shards = shards(4);
+        int[] wallets = new int[4];
+        for (int i = 0; i < WALLETS; i++) {
+            wallets[shards.shardOf(UUID.randomUUID())]++;
+        }
+
+        for (int count : wallets) {
+            assertEquals(WALLETS / 4.0, count, WALLETS / 4.0 * 0.1);
+        }
+    }
+
+    @Test
+    void addedShardTakesWalletsFromEveryShardOnlyOk() {
+        WalletShards before = shards(3);
+        WalletShards after = shards(4);
+        int moved = 0;
+        for (int i = 0; i < WALLETS; i++) {
+            UUID uuid = UUID.randomUUID();
+            int shard = after.shardOf(uuid);
+            if (shard != before.shardOf(uuid)) {
+                assertEquals(3, shard);
+                moved++;
+            }
+        }
+
+        assertEquals(WALLETS / 4.0, moved, WALLETS / 4.0 * 0.1);
+    }
+
+    @Test
+    void onShardRoutesAndRestoresOk() {
+        WalletShards shards = shards(2);
+
+        Integer inner = shards.onShard(1, () -> shards.onShard(0, WalletShards::current));
+
+        assertEquals(0, inner);
+        assertNull(WalletShards.current());
+    }
+
+    @Test
+    void sameShardDifferentShardsNegative() {
+        WalletShards shards = shards(2);
+        UUID first = UUID.randomUUID();
+        UUID other;
+        do {
+            other = UUID.randomUUID();
+        } while (shards.shardOf(other) == shards.shardOf(first));
+        UUID second = other;
+
+        assertEquals(shards.shardOf(first), shards.sameShard(List.of(first, shards.newId(first))));
+        assertThrows(WalletCrossShardException.class, () -> shards.sameShard(List.of(first, second)));
+    }
+
+    private static WalletShards shards(int count) {
+        MockEnvironment environment = new MockEnvironment().withProperty("wallet.sharding.enabled", "true");
+        for (int i = 0; i < count; i++) {
+            environment.setProperty("wallet.sharding.shards[" + i + "].url", "jdbc:postgresql://localhost/shard" + i);
+        }
+        return new WalletShards(environment);
+    }
+}
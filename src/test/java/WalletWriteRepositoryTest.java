@@ -0,0 +1,201 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.example.WalletServiceApplication;
+import org.example.repository.JdbcWalletWriteRepository;
+import org.example.repository.JpaWalletWriteRepository;
+import org.example.repository.LockedWallet;
+import org.example.repository.WalletSlotRepository;
+import org.example.repository.WalletWriteRepository;
+import org.example.util.WalletServiceValidator;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Both {@link WalletWriteRepository} implementations against the same Postgres schema, every case
+ * runs once on jpa and once on jdbc. Needs Docker, skipped without it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = WalletServiceApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class WalletWriteRepositoryTest {
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private JpaWalletWriteRepository jpaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void depositBalanceReturningOk(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = createWallet(10_000L);
+
+        assertEquals(Optional.of(10_550L), inTransaction(() -> repository.depositBalanceReturning(550L, uuid)));
+        assertEquals(Optional.of(10_550L), inTransaction(() -> repository.findTotalBalance(uuid)));
+        assertEquals(1, ledgerRows(uuid, "DEPOSIT", 550L, 10_550L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void withdrawBalanceReturningOk(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = createWallet(10_000L);
+
+        assertEquals(Optional.of(9_000L), inTransaction(() -> repository.withdrawBalanceReturning(1_000L, uuid)));
+        assertEquals(1, ledgerRows(uuid, "WITHDRAW", 1_000L, 9_000L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void withdrawBalanceReturningNotEnoughMoneyNegative(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = createWallet(500L);
+
+        assertEquals(Optional.empty(), inTransaction(() -> repository.withdrawBalanceReturning(501L, uuid)));
+        assertTrue(inTransaction(() -> repository.existsById(uuid)));
+        assertEquals(Optional.of(500L), inTransaction(() -> repository.findTotalBalance(uuid)));
+        assertEquals(0, ledgerRows(uuid, "WITHDRAW", 501L, 500L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void depositBalanceReturningOverLimitNegative(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = createWallet(WalletServiceValidator.MAX_BALANCE - 1_000L);
+        inTransaction(() -> jdbcTemplate.update("UPDATE wallets SET reserved = 500 WHERE uuid = ?", uuid));
+
+        assertEquals(Optional.empty(), inTransaction(() -> repository.depositBalanceReturning(501L, uuid)));
+        assertTrue(inTransaction(() -> repository.existsById(uuid)));
+        assertEquals(
+                Optional.of(WalletServiceValidator.MAX_BALANCE - 500L),
+                inTransaction(() -> repository.depositBalanceReturning(500L, uuid)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void missingWalletNegative(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = UUID.randomUUID();
+
+        assertEquals(Optional.empty(), inTransaction(() -> repository.depositBalanceReturning(100L, uuid)));
+        assertEquals(Optional.empty(), inTransaction(() -> repository.withdrawBalanceReturning(100L, uuid)));
+        assertEquals(Optional.empty(), inTransaction(() -> repository.findTotalBalance(uuid)));
+        assertEquals(Optional.empty(), inTransaction(() -> repository.findByUuidWithLock(uuid)));
+        assertFalse(inTransaction(() -> repository.existsById(uuid)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void stripedWalletTotalIncludesSlotsOk(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = createWallet(1_000L);
+        inTransaction(() -> {
+            jdbcTemplate.update("UPDATE wallets SET stripes = 3 WHERE uuid = ?", uuid);
+            return jdbcTemplate.update(
+                    "INSERT INTO wallet_balance_slots (wallet_uuid, slot, balance) VALUES (?, 1, 200), (?, 2, 30)",
+                    uuid,
+                    uuid);
+        });
+
+        assertEquals(Optional.of(1_230L), inTransaction(() -> repository.findTotalBalance(uuid)));
+        assertEquals(Optional.of(1_330L), inTransaction(() -> repository.depositBalanceReturning(100L, uuid)));
+        // Only the wallets row is guarded, slots are not spent by a withdraw
+        assertEquals(Optional.empty(), inTransaction(() -> repository.withdrawBalanceReturning(1_200L, uuid)));
+        assertEquals(1, ledgerRows(uuid, "DEPOSIT", 100L, 1_330L));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void stripedWalletDepositOverLimitNegative(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        WalletSlotRepository slotRepository = new WalletSlotRepository(jdbcTemplate);
+        UUID uuid = createWallet(WalletServiceValidator.MAX_BALANCE - 1_000L);
+        inTransaction(() -> {
+            jdbcTemplate.update("UPDATE wallets SET stripes = 3, reserved = 200 WHERE uuid = ?", uuid);
+            return jdbcTemplate.update(
+                    "INSERT INTO wallet_balance_slots (wallet_uuid, slot, balance) VALUES (?, 1, 300), (?, 2, 0)",
+                    uuid,
+                    uuid);
+        });
+
+        // The row, both slots and reserved money count against the limit
+        assertEquals(Optional.empty(), inTransaction(() -> slotRepository.depositToSlot(uuid, 2, 501L)));
+        assertEquals(Optional.empty(), inTransaction(() -> repository.depositBalanceReturning(501L, uuid)));
+        assertEquals(
+                Optional.of(WalletServiceValidator.MAX_BALANCE - 200L),
+                inTransaction(() -> slotRepository.depositToSlot(uuid, 2, 500L)));
+        inTransaction(() -> slotRepository.foldSlots(List.of(uuid)));
+        assertEquals(
+                Optional.of(WalletServiceValidator.MAX_BALANCE - 200L),
+                inTransaction(() -> repository.findTotalBalance(uuid)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"jpa", "jdbc"})
+    void findByUuidWithLockAndUpdateBalanceOk(String implementation) {
+        WalletWriteRepository repository = repository(implementation);
+        UUID uuid = createWallet(7_000L);
+
+        LockedWallet locked = inTransaction(() -> {
+            LockedWallet wallet = repository.findByUuidWithLock(uuid).orElseThrow();
+            repository.updateBalance(wallet.balance() - 2_000L, uuid);
+            return wallet;
+        });
+
+        assertEquals(7_000L, locked.balance());
+        assertEquals(1, locked.stripes());
+        assertEquals(Optional.of(5_000L), inTransaction(() -> repository.findTotalBalance(uuid)));
+    }
+
+    private WalletWriteRepository repository(String implementation) {
+        return implementation.equals("jpa") ? jpaRepository : new JdbcWalletWriteRepository(jdbcTemplate);
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return transactionTemplate.execute(status -> action.get());
+    }
+
+    /**
+     * Pool connections do not autocommit, the wallet is committed before the repository sees it.
+     */
+    private UUID createWallet(long balance) {
+        return inTransaction(() -> jdbcTemplate.queryForObject(
+                "INSERT INTO wallets (balance) VALUES (?) RETURNING uuid", UUID.class, balance));
+    }
+
+    private int ledgerRows(UUID uuid, String operationType, long amount, long balance) {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM wallet_operations "
+                        + "WHERE wallet_uuid = ? AND operation_type = ? AND amount = ? AND balance = ?",
+                Integer.class,
+                uuid,
+                operationType,
+                amount,
+                balance);
+    }
+}